@@ -0,0 +1,232 @@
+package org.angularjs.codeInsight;
+
+import com.intellij.lang.javascript.DialectDetector;
+import com.intellij.lang.javascript.psi.JSImplicitElementProvider;
+import com.intellij.lang.javascript.psi.stubs.JSImplicitElement;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.AtomicNotNullLazyValue;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
+import org.angularjs.index.AngularDirectivesDocIndex;
+import org.angularjs.index.AngularDirectivesIndex;
+import org.angularjs.index.AngularIndexUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Directives of the project by normalized name, partitioned by restriction, so that HTML tag and attribute descriptors
+ * don't scan the directive indexes for every tag. A name is resolved on the first request for it, all names only when
+ * all tag or attribute directives are requested. The table is rebuilt after any PSI modification, together with
+ * the keys of the Angular indexes.
+ */
+public class AngularDirectivesTable {
+  private final IndexDirectives myDocDirectives;
+  private final IndexDirectives myDirectives;
+  private final AtomicNotNullLazyValue<Map<String, JSImplicitElement>> myTagDirectives =
+    new AtomicNotNullLazyValue<Map<String, JSImplicitElement>>() {
+      @NotNull
+      @Override
+      protected Map<String, JSImplicitElement> compute() {
+        final Map<String, JSImplicitElement> tagDirectives = new LinkedHashMap<>(myDocDirectives.getTagDirectives());
+        for (Map.Entry<String, JSImplicitElement> entry : myDirectives.getTagDirectives().entrySet()) {
+          if (!myDocDirectives.myNames.contains(entry.getKey())) {
+            tagDirectives.put(entry.getKey(), entry.getValue());
+          }
+        }
+        return Collections.unmodifiableMap(tagDirectives);
+      }
+    };
+
+  private AngularDirectivesTable(@NotNull Project project) {
+    myDocDirectives = new IndexDirectives(project, AngularDirectivesDocIndex.KEY);
+    myDirectives = new IndexDirectives(project, AngularDirectivesIndex.KEY);
+  }
+
+  @NotNull
+  public static AngularDirectivesTable getInstance(@NotNull final Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result.create(
+      new AngularDirectivesTable(project), PsiModificationTracker.MODIFICATION_COUNT,
+      VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS, ProjectRootModificationTracker.getInstance(project)));
+  }
+
+  /**
+   * @return element-restricted directives by normalized name, documented directives first;
+   * directives from the doc index shadow the ones with the same name from the directive index
+   */
+  @NotNull
+  public Map<String, JSImplicitElement> getTagDirectives() {
+    return myTagDirectives.getValue();
+  }
+
+  /**
+   * @return element-restricted directive with the given normalized name, the documented one if it is restricted
+   * to elements, otherwise the one from the directive index
+   */
+  @Nullable
+  public JSImplicitElement getTagDirective(@NotNull String name) {
+    final JSImplicitElement directive = myDocDirectives.resolve(name).myTagDirective;
+    return directive != null ? directive : myDirectives.resolve(name).myTagDirective;
+  }
+
+  /**
+   * @return names of directives from the index which may be used as attributes of some tag
+   */
+  @NotNull
+  public Collection<String> getAttributeDirectiveNames(@NotNull StubIndexKey<String, JSImplicitElementProvider> index) {
+    return getIndexDirectives(index).myAttributeDirectiveNames.getValue();
+  }
+
+  /**
+   * @return all definitions of the directive in the index, in the order of {@link AngularIndexUtil#multiResolve}
+   */
+  @NotNull
+  public List<Directive> getDefinitions(@NotNull StubIndexKey<String, JSImplicitElementProvider> index, @NotNull String name) {
+    return getIndexDirectives(index).resolve(name).myDefinitions;
+  }
+
+  @NotNull
+  private IndexDirectives getIndexDirectives(@NotNull StubIndexKey<String, JSImplicitElementProvider> index) {
+    return index == AngularDirectivesDocIndex.KEY ? myDocDirectives : myDirectives;
+  }
+
+  public static class Directive {
+    private final JSImplicitElement myElement;
+    @Nullable private final String myRestrictions;
+    @Nullable private final String myRequiredTag;
+
+    private Directive(@NotNull Project project, @NotNull JSImplicitElement element) {
+      myElement = element;
+      final String typeString = element.getTypeString();
+      if (typeString != null) {
+        final String[] split = typeString.split(";", -1);
+        myRestrictions = AngularIndexUtil.convertRestrictions(project, split[0]);
+        myRequiredTag = split.length > 1 ? split[1] : null;
+      }
+      else {
+        myRestrictions = null;
+        myRequiredTag = null;
+      }
+    }
+
+    @NotNull
+    public JSImplicitElement getElement() {
+      return myElement;
+    }
+
+    /**
+     * @return restrictions converted according to the Angular version, null if the directive has no type string
+     */
+    @Nullable
+    public String getRestrictions() {
+      return myRestrictions;
+    }
+
+    @Nullable
+    public String getRequiredTag() {
+      return myRequiredTag;
+    }
+
+    public boolean hasTypeString() {
+      return myElement.getTypeString() != null;
+    }
+
+    public boolean isRestrictedTo(char restriction) {
+      return StringUtil.isEmpty(myRestrictions) || StringUtil.containsIgnoreCase(myRestrictions, String.valueOf(restriction));
+    }
+  }
+
+  private static class IndexDirectives {
+    private final Project myProject;
+    private final StubIndexKey<String, JSImplicitElementProvider> myIndex;
+    private final Set<String> myNames = new LinkedHashSet<>();
+    private final ConcurrentMap<String, NameDirectives> myResolved = ContainerUtil.newConcurrentMap();
+    private final AtomicNotNullLazyValue<Set<String>> myAttributeDirectiveNames = new AtomicNotNullLazyValue<Set<String>>() {
+      @NotNull
+      @Override
+      protected Set<String> compute() {
+        final Set<String> names = new LinkedHashSet<>();
+        for (String name : myNames) {
+          if (resolve(name).myAttribute) {
+            names.add(name);
+          }
+        }
+        return Collections.unmodifiableSet(names);
+      }
+    };
+
+    private IndexDirectives(@NotNull Project project, @NotNull StubIndexKey<String, JSImplicitElementProvider> index) {
+      myProject = project;
+      myIndex = index;
+      myNames.addAll(AngularIndexUtil.getAllKeys(index, project));
+    }
+
+    @NotNull
+    private Map<String, JSImplicitElement> getTagDirectives() {
+      final Map<String, JSImplicitElement> tagDirectives = new LinkedHashMap<>();
+      for (String name : myNames) {
+        final JSImplicitElement directive = resolve(name).myTagDirective;
+        if (directive != null) {
+          tagDirectives.put(name, directive);
+        }
+      }
+      return tagDirectives;
+    }
+
+    @NotNull
+    private NameDirectives resolve(@NotNull String name) {
+      if (!myNames.contains(name)) {
+        return NameDirectives.EMPTY;
+      }
+      final NameDirectives resolved = myResolved.get(name);
+      if (resolved != null) {
+        return resolved;
+      }
+      final List<Directive> definitions = new SmartList<>();
+      AngularIndexUtil.multiResolve(myProject, myIndex, name, element -> {
+        definitions.add(new Directive(myProject, element));
+        return true;
+      });
+      return ContainerUtil.concurrentMapPutIfAbsent(myResolved, name, new NameDirectives(definitions));
+    }
+  }
+
+  private static class NameDirectives {
+    private static final NameDirectives EMPTY = new NameDirectives(Collections.emptyList());
+
+    private final List<Directive> myDefinitions;
+    private final boolean myAttribute;
+    private final JSImplicitElement myTagDirective;
+
+    private NameDirectives(@NotNull List<Directive> definitions) {
+      myDefinitions = Collections.unmodifiableList(definitions);
+
+      boolean attribute = false;
+      for (Directive definition : definitions) {
+        if (!definition.hasTypeString() || definition.isRestrictedTo('A')) {
+          attribute = true;
+          break;
+        }
+      }
+      myAttribute = attribute;
+
+      // the same definition AngularIndexUtil.resolve() picks: the first TypeScript one or the last one
+      Directive resolved = null;
+      for (Directive definition : definitions) {
+        resolved = definition;
+        if (DialectDetector.isTypeScript(definition.myElement)) break;
+      }
+      myTagDirective = resolved != null && resolved.hasTypeString() && !StringUtil.isEmpty(resolved.myRestrictions) &&
+                       StringUtil.containsIgnoreCase(resolved.myRestrictions, "E") ? resolved.myElement : null;
+    }
+  }
+}
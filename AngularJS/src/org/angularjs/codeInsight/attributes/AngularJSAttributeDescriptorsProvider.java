@@ -3,7 +3,6 @@ package org.angularjs.codeInsight.attributes;
 import com.intellij.lang.javascript.psi.JSImplicitElementProvider;
 import com.intellij.lang.javascript.psi.stubs.JSImplicitElement;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.impl.source.html.dtd.HtmlElementDescriptorImpl;
@@ -15,6 +14,7 @@ import com.intellij.util.ThreeState;
 import com.intellij.xml.XmlAttributeDescriptor;
 import com.intellij.xml.XmlAttributeDescriptorsProvider;
 import com.intellij.xml.XmlElementDescriptor;
+import org.angularjs.codeInsight.AngularDirectivesTable;
 import org.angularjs.codeInsight.DirectiveUtil;
 import org.angularjs.index.AngularDirectivesDocIndex;
 import org.angularjs.index.AngularDirectivesIndex;
@@ -38,7 +38,8 @@ public class AngularJSAttributeDescriptorsProvider implements XmlAttributeDescri
       final Map<String, XmlAttributeDescriptor> result = new LinkedHashMap<>();
       final Project project = xmlTag.getProject();
       final XmlElementDescriptor descriptor = xmlTag.getDescriptor();
-      final Collection<String> directives = AngularIndexUtil.getAllKeys(AngularDirectivesIndex.KEY, project);
+      final AngularDirectivesTable directivesTable = AngularDirectivesTable.getInstance(project);
+      final Collection<String> directives = directivesTable.getAttributeDirectiveNames(AngularDirectivesIndex.KEY);
       if (AngularIndexUtil.hasAngularJS2(project)) {
         if (descriptor instanceof HtmlElementDescriptorImpl) {
           final XmlAttributeDescriptor[] descriptors = ((HtmlElementDescriptorImpl)descriptor).getDefaultAttributeDescriptors(xmlTag);
@@ -61,7 +62,7 @@ public class AngularJSAttributeDescriptorsProvider implements XmlAttributeDescri
         }
       }
       final Collection<String> docDirectives = AngularIndexUtil.getAllKeys(AngularDirectivesDocIndex.KEY, project);
-      for (String directiveName : docDirectives) {
+      for (String directiveName : directivesTable.getAttributeDirectiveNames(AngularDirectivesDocIndex.KEY)) {
         PsiElement declaration = applicableDirective(project, directiveName, xmlTag, AngularDirectivesDocIndex.KEY);
         if (isApplicable(declaration)) {
           addAttributes(project, result, directiveName, declaration);
@@ -92,35 +93,27 @@ public class AngularJSAttributeDescriptorsProvider implements XmlAttributeDescri
   }
 
   private static PsiElement applicableDirective(Project project, String directiveName, XmlTag tag, final StubIndexKey<String, JSImplicitElementProvider> index) {
-    Ref<PsiElement> result = Ref.create(PsiUtilCore.NULL_PSI_ELEMENT);
-    AngularIndexUtil.multiResolve(project, index, directiveName, (directive) -> {
-      ThreeState applicable = isApplicable(project, tag, directive);
+    PsiElement result = PsiUtilCore.NULL_PSI_ELEMENT;
+    for (AngularDirectivesTable.Directive directive : AngularDirectivesTable.getInstance(project).getDefinitions(index, directiveName)) {
+      ThreeState applicable = isApplicable(tag, directive);
       if (applicable == ThreeState.YES) {
-        result.set(directive);
+        result = directive.getElement();
       }
-      if (applicable == ThreeState.NO && result.get() == PsiUtilCore.NULL_PSI_ELEMENT) {
-        result.set(null);
+      if (applicable == ThreeState.NO && result == PsiUtilCore.NULL_PSI_ELEMENT) {
+        result = null;
       }
-      return !result.isNull();
-    });
-    return result.get();
+      if (result == null) break;
+    }
+    return result;
   }
 
   @NotNull
-  private static ThreeState isApplicable(Project project, XmlTag tag, JSImplicitElement directive) {
-    if (directive == null) {
-      return ThreeState.UNSURE;
-    }
-
-    final String restrictions = directive.getTypeString();
-    if (restrictions != null) {
-      final String[] split = restrictions.split(";", -1);
-      final String restrict = AngularIndexUtil.convertRestrictions(project, split[0]);
-      final String requiredTag = split[1];
-      if (!StringUtil.isEmpty(restrict) && !StringUtil.containsIgnoreCase(restrict, "A")) {
+  private static ThreeState isApplicable(XmlTag tag, AngularDirectivesTable.Directive directive) {
+    if (directive.hasTypeString()) {
+      if (!directive.isRestrictedTo('A')) {
         return ThreeState.NO;
       }
-      if (!tagMatches(tag, requiredTag)) {
+      if (!tagMatches(tag, directive.getRequiredTag())) {
         return ThreeState.NO;
       }
     }
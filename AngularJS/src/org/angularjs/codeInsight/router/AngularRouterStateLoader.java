@@ -7,6 +7,9 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.Processor;
 import org.angularjs.index.AngularIndexUtil;
 import org.angularjs.index.AngularUiRouterGenericStatesIndex;
@@ -38,6 +41,16 @@ public class AngularRouterStateLoader {
   }
 
   public List<JSObjectLiteralExpression> loadFreelyDefinedStates() {
+    if (myStateName == null) {
+      // all states are requested by the diagram on every refresh, reference search makes them expensive to collect
+      return new ArrayList<>(CachedValuesManager.getManager(myProject).getCachedValue(myProject, () -> CachedValueProvider.Result.create(
+        Collections.unmodifiableList(doLoadFreelyDefinedStates()), PsiModificationTracker.MODIFICATION_COUNT)));
+    }
+    return doLoadFreelyDefinedStates();
+  }
+
+  @NotNull
+  private List<JSObjectLiteralExpression> doLoadFreelyDefinedStates() {
     final List<JSObjectLiteralExpression> states = new ArrayList<>();
     final Collection<String> allKeys = AngularIndexUtil.getAllKeys(AngularUiRouterGenericStatesIndex.KEY, myProject);
     for (String key : allKeys) {
@@ -9,12 +9,16 @@ import com.intellij.lang.javascript.psi.stubs.impl.JSImplicitElementImpl;
 import com.intellij.openapi.fileTypes.LanguageFileType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.include.FileIncludeManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.CommonProcessors;
 import com.intellij.util.ObjectUtils;
@@ -25,6 +29,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
  * @author Irina.Chernushina on 3/8/2016.
@@ -63,38 +69,47 @@ public class AngularUiRouterDiagramBuilder {
       final CommonProcessors.CollectProcessor<JSImplicitElement> processor = new CommonProcessors.CollectProcessor<>();
       AngularIndexUtil.multiResolve(myProject, AngularUiRouterStatesIndex.KEY, id, processor);
       for (JSImplicitElement element : processor.getResults()) {
-        final UiRouterState state = new UiRouterState(id, element.getContainingFile().getVirtualFile());
-        if (!element.getContainingFile().getLanguage().isKindOf(JavascriptLanguage.INSTANCE)
+        final PsiFile containingFile = element.getContainingFile();
+        if (!containingFile.getLanguage().isKindOf(JavascriptLanguage.INSTANCE)
             && PsiTreeUtil.getParentOfType(element, JSEmbeddedContent.class) != null) {
-          createRootTemplatesForEmbedded(element.getContainingFile());
+          createRootTemplatesForEmbedded(containingFile);
         }
 
-        final JSCallExpression call = findWrappingCallExpression(element);
-        if (call != null) {
-          final JSReferenceExpression methodExpression = ObjectUtils.tryCast(call.getMethodExpression(), JSReferenceExpression.class);
-          if (methodExpression != null &&
-              methodExpression.getQualifier() != null &&
-              "state".equals(methodExpression.getReferenceName())) {
-            final JSExpression[] arguments = call.getArguments();
-            if (arguments.length > 0 && PsiTreeUtil.isAncestor(arguments[0], element.getNavigationElement(), false)) {
-              state.setPointer(mySmartPointerManager.createSmartPsiElementPointer(arguments[0]));
-
-              if (arguments.length > 1 && arguments[1] instanceof JSObjectLiteralExpression) {
-                final JSObjectLiteralExpression object = (JSObjectLiteralExpression)arguments[1];
-                fillStateParameters(state, object);
-              } else if (arguments[0] instanceof JSObjectLiteralExpression) {
-                final JSObjectLiteralExpression object = (JSObjectLiteralExpression)arguments[0];
-                final JSProperty name = object.findProperty("name");
-                if (name != null && PsiTreeUtil.isAncestor(name, element.getNavigationElement(), false)) {
-                  fillStateParameters(state, object);
-                }
-              }
+        final String parseKey = id + ":" + element.getNavigationElement().getTextRange().getStartOffset();
+        final ParsedState parsed = getParsedState(containingFile, parseKey, () -> parseIndexedState(id, element));
+        myStates.add(parsed.createState());
+      }
+    }
+  }
+
+  @NotNull
+  private static ParsedState parseIndexedState(@NotNull String id, @NotNull JSImplicitElement element) {
+    final ParsedState parsed = new ParsedState(new UiRouterState(id, element.getContainingFile().getVirtualFile()));
+    final JSCallExpression call = findWrappingCallExpression(element);
+    if (call != null) {
+      final JSReferenceExpression methodExpression = ObjectUtils.tryCast(call.getMethodExpression(), JSReferenceExpression.class);
+      if (methodExpression != null &&
+          methodExpression.getQualifier() != null &&
+          "state".equals(methodExpression.getReferenceName())) {
+        final JSExpression[] arguments = call.getArguments();
+        if (arguments.length > 0 && PsiTreeUtil.isAncestor(arguments[0], element.getNavigationElement(), false)) {
+          final SmartPointerManager smartPointerManager = SmartPointerManager.getInstance(element.getProject());
+          parsed.myState.setPointer(smartPointerManager.createSmartPsiElementPointer(arguments[0]));
+
+          if (arguments.length > 1 && arguments[1] instanceof JSObjectLiteralExpression) {
+            final JSObjectLiteralExpression object = (JSObjectLiteralExpression)arguments[1];
+            fillStateParameters(parsed, object);
+          } else if (arguments[0] instanceof JSObjectLiteralExpression) {
+            final JSObjectLiteralExpression object = (JSObjectLiteralExpression)arguments[0];
+            final JSProperty name = object.findProperty("name");
+            if (name != null && PsiTreeUtil.isAncestor(name, element.getNavigationElement(), false)) {
+              fillStateParameters(parsed, object);
             }
           }
         }
-        myStates.add(state);
       }
     }
+    return parsed;
   }
 
   private void addGenericStates() {
@@ -102,16 +117,67 @@ public class AngularUiRouterDiagramBuilder {
     for (JSObjectLiteralExpression state : freeStates) {
       final JSProperty name = state.findProperty("name");
       if (name != null && name.getValue() instanceof JSLiteralExpression && ((JSLiteralExpression)name.getValue()).isQuotedLiteral()) {
-        final UiRouterState uiState = new UiRouterState(StringUtil.unquoteString(name.getValue().getText()),
-                                                        name.getContainingFile().getVirtualFile());
-        uiState.setGeneric(true);
-        uiState.setPointer(mySmartPointerManager.createSmartPsiElementPointer(name));
-        fillStateParameters(uiState, state);
+        final String parseKey = "generic:" + state.getTextRange().getStartOffset();
+        final ParsedState parsed = getParsedState(state.getContainingFile(), parseKey, () -> {
+          final ParsedState genericState = new ParsedState(new UiRouterState(StringUtil.unquoteString(name.getValue().getText()),
+                                                                             name.getContainingFile().getVirtualFile()));
+          genericState.myState.setGeneric(true);
+          genericState.myState.setPointer(SmartPointerManager.getInstance(myProject).createSmartPsiElementPointer(name));
+          fillStateParameters(genericState, state);
+          return genericState;
+        });
+        final UiRouterState uiState = parsed.createState();
         if (!myStates.contains(uiState)) myStates.add(uiState);
       }
     }
   }
 
+  /**
+   * States are parsed once per file modification, templates referenced from the parsed states are re-read from
+   * their own per-file caches, so only files which were changed since the previous build are parsed again.
+   */
+  @NotNull
+  private ParsedState getParsedState(@NotNull PsiFile file, @NotNull String key, @NotNull Supplier<ParsedState> parser) {
+    final ConcurrentMap<String, ParsedState> parsedStates = CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(
+      ContainerUtil.<String, ParsedState>newConcurrentMap(), file, VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS));
+    ParsedState parsed = parsedStates.get(key);
+    if (parsed == null) {
+      parsed = parser.get();
+      parsedStates.put(key, parsed);
+    }
+    for (Pair<String, VirtualFile> template : parsed.myTemplates) {
+      addTemplate(template.first, template.second);
+    }
+    return parsed;
+  }
+
+  private void addTemplate(@NotNull String url, @NotNull VirtualFile templateFile) {
+    if (myTemplatesMap.containsKey(templateFile)) return;
+    final PsiFile psiFile = PsiManager.getInstance(myProject).findFile(templateFile);
+    if (psiFile != null) {
+      myTemplatesMap.put(templateFile, readTemplateFromFile(myProject, url, psiFile));
+    }
+  }
+
+  /**
+   * Result of parsing one state definition. The state itself is never exposed since graph building modifies states,
+   * {@link #createState()} provides a fresh copy for every build.
+   */
+  private static class ParsedState {
+    private final UiRouterState myState;
+    // template url and file for every template referenced by the state, in order of appearance
+    private final List<Pair<String, VirtualFile>> myTemplates = new ArrayList<>();
+
+    private ParsedState(@NotNull UiRouterState state) {
+      myState = state;
+    }
+
+    @NotNull
+    private UiRouterState createState() {
+      return myState.copy();
+    }
+  }
+
   @Nullable
   public static JSCallExpression findWrappingCallExpression(JSImplicitElement element) {
     if (element.getNavigationElement() instanceof JSCallExpression) return (JSCallExpression)element.getNavigationElement();
@@ -338,7 +404,9 @@ public class AngularUiRouterDiagramBuilder {
     return relativePath == null ? null : AngularUiRouterGraphBuilder.normalizeTemplateUrl(relativePath);
   }
 
-  private void fillStateParameters(UiRouterState state, JSObjectLiteralExpression object) {
+  private static void fillStateParameters(@NotNull ParsedState parsed, @NotNull JSObjectLiteralExpression object) {
+    final UiRouterState state = parsed.myState;
+    final SmartPointerManager smartPointerManager = SmartPointerManager.getInstance(object.getProject());
     final String url = getPropertyValueIfExists(object, "url");
     if (url != null) {
       state.setUrl(StringUtil.unquoteString(url));
@@ -352,7 +420,7 @@ public class AngularUiRouterDiagramBuilder {
     if (templateUrl != null) {
       state.setTemplateUrl(templateUrl);
       final JSProperty urlProperty = object.findProperty("templateUrl");
-      state.setTemplateFile(parseTemplate(templateUrl, urlProperty));
+      state.setTemplateFile(parseTemplate(parsed, templateUrl, urlProperty));
     }
     final JSProperty template = object.findProperty("template");
     if (templateUrl == null && object.findProperty("templateUrl") != null ||
@@ -361,7 +429,7 @@ public class AngularUiRouterDiagramBuilder {
     }
     if (template != null) {
       final PsiElement templateDefinition = findTemplateDefinitionObject(template);
-      if (templateDefinition != null) state.setTemplatePointer(mySmartPointerManager.createSmartPsiElementPointer(templateDefinition));
+      if (templateDefinition != null) state.setTemplatePointer(smartPointerManager.createSmartPsiElementPointer(templateDefinition));
     }
     final JSProperty views = object.findProperty("views");
     if (views != null) {
@@ -372,7 +440,7 @@ public class AngularUiRouterDiagramBuilder {
           final List<UiView> viewsList = new ArrayList<>();
           for (JSProperty property : viewsProperties) {
             if (property.getName() != null && property.getValue() != null) {
-              viewsList.add(processView(property));
+              viewsList.add(processView(parsed, property));
             }
           }
           state.setViews(viewsList);
@@ -401,20 +469,18 @@ public class AngularUiRouterDiagramBuilder {
   }
 
   @Nullable
-  private VirtualFile parseTemplate(@NotNull final String url, @Nullable JSProperty urlProperty) {
-    PsiFile templateFile = null;
-    Template template = null;
+  private static VirtualFile parseTemplate(@NotNull ParsedState parsed, @NotNull final String url, @Nullable JSProperty urlProperty) {
     if (urlProperty != null && urlProperty.getValue() != null) {
       int offset = urlProperty.getValue().getTextRange().getEndOffset() - 1;
       final PsiReference reference = urlProperty.getContainingFile().findReferenceAt(offset);
       if (reference != null) {
         final PsiElement templateFileElement = reference.resolve();
         if (templateFileElement != null && templateFileElement.isValid()) {
-          templateFile = templateFileElement.getContainingFile();
-          if (myTemplatesMap.containsKey(templateFile.getVirtualFile())) return templateFile.getVirtualFile();
-          template = readTemplateFromFile(urlProperty.getProject(), url, templateFile);
-          myTemplatesMap.put(templateFile.getVirtualFile(), template);
-          return templateFile.getVirtualFile();
+          final VirtualFile templateFile = templateFileElement.getContainingFile().getVirtualFile();
+          if (templateFile != null) {
+            parsed.myTemplates.add(Pair.create(url, templateFile));
+          }
+          return templateFile;
         }
       }
     }
@@ -425,34 +491,51 @@ public class AngularUiRouterDiagramBuilder {
   static Template readTemplateFromFile(@NotNull Project project, @NotNull String url, PsiElement templateElement) {
     final PsiFile templateFile = templateElement.getContainingFile();
     final Map<String, SmartPsiElementPointer<PsiElement>> placeholders = new HashMap<>();
-    final Set<String> placeholdersSet = new HashSet<>();
-    final FileBasedIndex instance = FileBasedIndex.getInstance();
-    final GlobalSearchScope scope = GlobalSearchScope.fileScope(project, templateFile.getVirtualFile());
-    instance.processAllKeys(AngularUiRouterViewsIndex.UI_ROUTER_VIEWS_CACHE_INDEX, view -> {
-      placeholdersSet.add(view);
-      return true;
-    }, scope, null);
     final SmartPointerManager smartPointerManager = SmartPointerManager.getInstance(project);
-    for (String key : placeholdersSet) {
-      instance.processValues(AngularUiRouterViewsIndex.UI_ROUTER_VIEWS_CACHE_INDEX, key, null,
-                             (file, value) -> {
-                               final JSImplicitElementImpl.Builder builder = new JSImplicitElementImpl.Builder(
-                                 JSQualifiedNameImpl.fromQualifiedName(key), null);
-                               final JSOffsetBasedImplicitElement implicitElement =
-                                 new JSOffsetBasedImplicitElement(builder, (int)value.getStartOffset(), templateFile);
-                               if (templateElement instanceof PsiFile ||
-                                      PsiTreeUtil.isAncestor(templateElement, implicitElement, false)) {
-                                 placeholders.put(key, smartPointerManager.createSmartPsiElementPointer(implicitElement));
-                               }
-                               return true;
-                             }, scope);
+    for (Pair<String, Integer> placeholder : getViewPlaceholders(templateFile)) {
+      final String key = placeholder.first;
+      final JSImplicitElementImpl.Builder builder = new JSImplicitElementImpl.Builder(JSQualifiedNameImpl.fromQualifiedName(key), null);
+      final JSOffsetBasedImplicitElement implicitElement = new JSOffsetBasedImplicitElement(builder, placeholder.second, templateFile);
+      if (templateElement instanceof PsiFile ||
+             PsiTreeUtil.isAncestor(templateElement, implicitElement, false)) {
+        placeholders.put(key, smartPointerManager.createSmartPsiElementPointer(implicitElement));
+      }
     }
     final Template template = new Template(url, smartPointerManager.createSmartPsiElementPointer(templateElement));
     template.setViewPlaceholders(placeholders);
     return template;
   }
 
-  private UiView processView(@NotNull final JSProperty property) {
+  /**
+   * @return names and offsets of all ui-view placeholders of the file, read from the index once per file modification
+   */
+  @NotNull
+  private static List<Pair<String, Integer>> getViewPlaceholders(@NotNull PsiFile templateFile) {
+    return CachedValuesManager.getCachedValue(templateFile, () -> {
+      final Project project = templateFile.getProject();
+      final List<Pair<String, Integer>> placeholders = new ArrayList<>();
+      final VirtualFile virtualFile = templateFile.getVirtualFile();
+      if (virtualFile != null) {
+        final Set<String> placeholdersSet = new HashSet<>();
+        final FileBasedIndex instance = FileBasedIndex.getInstance();
+        final GlobalSearchScope scope = GlobalSearchScope.fileScope(project, virtualFile);
+        instance.processAllKeys(AngularUiRouterViewsIndex.UI_ROUTER_VIEWS_CACHE_INDEX, view -> {
+          placeholdersSet.add(view);
+          return true;
+        }, scope, null);
+        for (String key : placeholdersSet) {
+          instance.processValues(AngularUiRouterViewsIndex.UI_ROUTER_VIEWS_CACHE_INDEX, key, null, (file, value) -> {
+            placeholders.add(Pair.create(key, (int)value.getStartOffset()));
+            return true;
+          }, scope);
+        }
+      }
+      return CachedValueProvider.Result.create(placeholders, templateFile);
+    });
+  }
+
+  private static UiView processView(@NotNull ParsedState parsed, @NotNull final JSProperty property) {
+    final SmartPointerManager smartPointerManager = SmartPointerManager.getInstance(property.getProject());
     final String name = property.getName();
     final JSExpression value = property.getValue();
     final JSObjectLiteralExpression expression = ObjectUtils.tryCast(value, JSObjectLiteralExpression.class);
@@ -462,18 +545,18 @@ public class AngularUiRouterDiagramBuilder {
       templateUrl = getPropertyValueIfExists(expression, "templateUrl");
       if (templateUrl != null) {
         final JSProperty urlProperty = expression.findProperty("templateUrl");
-        templateFile = parseTemplate(templateUrl, urlProperty);
+        templateFile = parseTemplate(parsed, templateUrl, urlProperty);
       }
     }
     final UiView view = new UiView(name, templateUrl, templateFile,
                                    property.getNameIdentifier() == null
                                    ? null
-                                   : mySmartPointerManager.createSmartPsiElementPointer(property.getNameIdentifier()));
+                                   : smartPointerManager.createSmartPsiElementPointer(property.getNameIdentifier()));
     if (expression != null) {
       final JSProperty template = expression.findProperty("template");
       if (template != null) {
         final PsiElement templateDefinition = findTemplateDefinitionObject(template);
-        if (templateDefinition != null) view.setTemplatePointer(mySmartPointerManager.createSmartPsiElementPointer(templateDefinition));
+        if (templateDefinition != null) view.setTemplatePointer(smartPointerManager.createSmartPsiElementPointer(templateDefinition));
       }
     }
     return view;
@@ -34,6 +34,25 @@ public class UiRouterState {
     myFile = file;
   }
 
+  /**
+   * @return a copy without duplicate definitions, used to build a fresh graph model from cached parse results
+   */
+  @NotNull
+  UiRouterState copy() {
+    final UiRouterState copy = new UiRouterState(myName, myFile);
+    copy.myUrl = myUrl;
+    copy.myTemplateUrl = myTemplateUrl;
+    copy.myHasTemplateDefined = myHasTemplateDefined;
+    copy.myParentName = myParentName;
+    copy.myViews = myViews;
+    copy.myPointer = myPointer;
+    copy.myIsAbstract = myIsAbstract;
+    copy.myTemplateFile = myTemplateFile;
+    copy.myTemplatePointer = myTemplatePointer;
+    copy.myGeneric = myGeneric;
+    return copy;
+  }
+
   @NotNull
   public String getName() {
     return myName;
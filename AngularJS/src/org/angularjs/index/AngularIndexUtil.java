@@ -38,9 +38,7 @@ import com.intellij.util.indexing.ID;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -174,18 +172,73 @@ public class AngularIndexUtil {
     public CachedValueProvider.Result<Collection<String>> compute(final Pair<Project, ID<String, ?>> projectAndIndex) {
       final Project project = projectAndIndex.first;
       final ID<String, ?> id = projectAndIndex.second;
-      final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
-      final FileBasedIndex fileIndex = FileBasedIndex.getInstance();
-      final StubIndex stubIndex = StubIndex.getInstance();
       final Collection<String> allKeys =
-        id instanceof StubIndexKey ? stubIndex.getAllKeys((StubIndexKey<String, ?>)id, project) :
-        fileIndex.getAllKeys(id, project);
-
-      return CachedValueProvider.Result.create(ContainerUtil.filter(allKeys, key -> id instanceof StubIndexKey ?
-                                                                                    !stubIndex.processElements((StubIndexKey<String, PsiElement>)id, key, project, scope, PsiElement.class,
-                                        element -> false) :
-                                                                                    !fileIndex.processValues(id, key, null,
-                                                                                                             (FileBasedIndex.ValueProcessor)(file, value) -> false, scope)), PsiManager.getInstance(project).getModificationTracker());
+        id instanceof StubIndexKey ? StubIndex.getInstance().getAllKeys((StubIndexKey<String, ?>)id, project) :
+        FileBasedIndex.getInstance().getAllKeys(id, project);
+
+      return CachedValueProvider.Result.create(new AngularIndexKeys(project, id, allKeys), PsiManager.getInstance(project).getModificationTracker());
+    }
+  }
+
+  /**
+   * Keys of an index which have at least one value in the project. Index key storages may contain stale keys,
+   * those are filtered out lazily: {@link #contains(Object)} checks only the requested key, iteration checks all keys once.
+   */
+  private static class AngularIndexKeys extends AbstractCollection<String> {
+    private final Project myProject;
+    private final ID<String, ?> myIndex;
+    private final Set<String> myAllKeys;
+    private final ConcurrentMap<String, Boolean> myKeyValidity = ContainerUtil.newConcurrentMap();
+    private volatile List<String> myValidKeys;
+
+    private AngularIndexKeys(@NotNull Project project, @NotNull ID<String, ?> index, @NotNull Collection<String> allKeys) {
+      myProject = project;
+      myIndex = index;
+      myAllKeys = new LinkedHashSet<>(allKeys);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof String && myAllKeys.contains(o) && isValid((String)o);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<String> iterator() {
+      return getValidKeys().iterator();
+    }
+
+    @Override
+    public int size() {
+      return getValidKeys().size();
+    }
+
+    @NotNull
+    private List<String> getValidKeys() {
+      List<String> validKeys = myValidKeys;
+      if (validKeys == null) {
+        validKeys = Collections.unmodifiableList(ContainerUtil.filter(myAllKeys, this::isValid));
+        myValidKeys = validKeys;
+      }
+      return validKeys;
+    }
+
+    private boolean isValid(@NotNull String key) {
+      Boolean valid = myKeyValidity.get(key);
+      if (valid == null) {
+        valid = hasValues(key);
+        myKeyValidity.put(key, valid);
+      }
+      return valid;
+    }
+
+    private boolean hasValues(@NotNull String key) {
+      final GlobalSearchScope scope = GlobalSearchScope.allScope(myProject);
+      if (myIndex instanceof StubIndexKey) {
+        return !StubIndex.getInstance().processElements((StubIndexKey<String, PsiElement>)myIndex, key, myProject, scope, PsiElement.class,
+                                                        element -> false);
+      }
+      return !FileBasedIndex.getInstance().processValues(myIndex, key, null, (FileBasedIndex.ValueProcessor)(file, value) -> false, scope);
     }
   }
 }
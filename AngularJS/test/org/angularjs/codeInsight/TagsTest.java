@@ -230,6 +230,17 @@ public class TagsTest extends LightPlatformCodeInsightFixtureTestCase {
     assertEquals("'myCustomer'", AngularTestUtil.getDirectiveDefinitionText(resolve));
   }
 
+  public void testDocumentedAttributeDirectiveResolve() {
+    myFixture.configureByFiles("docAttributeDirective.html", "angular.js", "docAttributeDirective.js");
+    int offsetBySignature = AngularTestUtil.findOffsetBySignature("my-pa<caret>nel", myFixture.getFile());
+    PsiReference ref = myFixture.getFile().findReferenceAt(offsetBySignature);
+    assertNotNull(ref);
+    PsiElement resolve = ref.resolve();
+    assertNotNull(resolve);
+    assertEquals("docAttributeDirective.js", resolve.getContainingFile().getName());
+    assertEquals("'myPanel'", AngularTestUtil.getDirectiveDefinitionText(resolve));
+  }
+
   public void testNoCompletionInXml() {
     final List<String> variants = myFixture.getCompletionVariants("standard.xml", "angular.js");
     assertDoesntContain(variants, "ng-form", "form", "script");
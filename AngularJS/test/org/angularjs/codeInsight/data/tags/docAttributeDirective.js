@@ -0,0 +1,12 @@
+/**
+ * @ngdoc directive
+ * @name docApp.directive:myPanel
+ * @restrict A
+ */
+
+angular.module('docApp', []).directive('myPanel', function() {
+  return {
+    restrict: 'E',
+    template: '<div class="panel"></div>'
+  };
+});
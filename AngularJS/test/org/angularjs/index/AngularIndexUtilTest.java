@@ -4,6 +4,8 @@ import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCa
 import org.angularjs.AngularTestUtil;
 import org.junit.Assert;
 
+import java.util.Collection;
+
 public class AngularIndexUtilTest extends LightPlatformCodeInsightFixtureTestCase {
 
   @Override
@@ -17,4 +19,19 @@ public class AngularIndexUtilTest extends LightPlatformCodeInsightFixtureTestCas
                                            "];");
     Assert.assertTrue(AngularIndexUtil.hasAngularJS2(myFixture.getProject()));
   }
+
+  public void testStaleKeysAreFiltered() throws Exception {
+    myFixture.configureByText("controllers.js", "angular.module('app').controller('FirstCtrl', function() {});\n" +
+                                                "angular.module('app').controller('SecondCtrl', function() {});");
+    Collection<String> keys = AngularIndexUtil.getAllKeys(AngularControllerIndex.KEY, getProject());
+    Assert.assertTrue(keys.contains("FirstCtrl"));
+    Assert.assertTrue(keys.contains("SecondCtrl"));
+
+    myFixture.configureByText("controllers.js", "angular.module('app').controller('FirstCtrl', function() {});");
+    keys = AngularIndexUtil.getAllKeys(AngularControllerIndex.KEY, getProject());
+    Assert.assertTrue(keys.contains("FirstCtrl"));
+    Assert.assertFalse(keys.contains("SecondCtrl"));
+    Assert.assertFalse(keys.contains("UnknownCtrl"));
+    Assert.assertEquals(1, keys.size());
+  }
 }
@@ -1,8 +1,12 @@
 package org.angularjs.performance;
 
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
 import org.angularjs.AngularTestUtil;
+import org.angularjs.index.AngularControllerIndex;
+import org.angularjs.index.AngularIndexUtil;
 
 /**
  * @author Konstantin.Ulitin
@@ -19,4 +23,18 @@ public class AngularJSPerformanceTest extends LightPlatformCodeInsightFixtureTes
     PlatformTestUtil.startPerformanceTest(getTestName(false), 60000, () -> myFixture.checkHighlighting()).attempts(1).usesAllCPUCores().assertTiming();
   }
 
+  public void testControllerKeysAfterModification() {
+    final StringBuilder controllers = new StringBuilder("var app = angular.module('app', []);\n");
+    for (int i = 0; i < 5000; i++) {
+      controllers.append("app.controller('MyCtrl").append(i).append("', function() {});\n");
+    }
+    myFixture.configureByText("controllers.js", controllers.toString());
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 5000, () -> {
+      for (int i = 0; i < 20; i++) {
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.getEditor().getDocument().insertString(0, " "));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+        assertTrue(AngularIndexUtil.getAllKeys(AngularControllerIndex.KEY, getProject()).contains("MyCtrl" + i));
+      }
+    }).attempts(1).assertTiming();
+  }
 }
@@ -142,7 +142,7 @@ public class CfmlParameterInfoHandler implements ParameterInfoHandler<PsiElement
     }
     if (element instanceof CfmlReferenceExpression) {
       String functionName = element.getText().toLowerCase();
-      if (ArrayUtil.find(CfmlLangInfo.getInstance(element.getProject()).getPredefinedFunctionsLowCase(), functionName) != -1) {
+      if (CfmlLangInfo.getInstance(element.getProject()).isPredefinedFunction(functionName)) {
         context.setItemsToShow(new Object[]{CfmlLangInfo.getInstance(element.getProject()).getFunctionParameters().get(functionName)});
         context.showHint(element, element.getTextRange().getStartOffset(), this);
       }
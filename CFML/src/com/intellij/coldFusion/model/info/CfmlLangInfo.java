@@ -20,9 +20,8 @@ import com.intellij.coldFusion.model.CfmlLanguage;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.reference.SoftReference;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.text.LineReader;
 import org.jetbrains.annotations.Nullable;
 import org.xml.sax.InputSource;
@@ -30,17 +29,20 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.InputStream;
-import java.lang.ref.Reference;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author vnikolaenko
  */
 public class CfmlLangInfo {
+  /**
+   * Dictionaries depend on the language level only, so they are shared by all projects and kept for the application lifetime
+   */
+  private static final ConcurrentMap<String, CfmlLangDictionary> ourDictionaries = ContainerUtil.newConcurrentMap();
+
   private final Project myProject;
-  private Reference<CfmlLangDictionary> myCFDictionary;
-  private String myCFDictionaryLevel;
 
   public static CfmlLangInfo getInstance(Project project) {
     return ServiceManager.getService(project, CfmlLangInfo.class);
@@ -82,23 +84,11 @@ public class CfmlLangInfo {
   }
 
   private CfmlLangDictionary getProjectDictionary() {
-    String languageLevel = getLanguageLevel();
-    CfmlLangDictionary dictionary;
-
-    if (Comparing.equal(myCFDictionaryLevel, languageLevel)) {
-      dictionary = SoftReference.dereference(myCFDictionary);
-      if (dictionary != null) return dictionary;
-    }
-
-    synchronized (CfmlLangInfo.class) {
-      dictionary = SoftReference.dereference(myCFDictionary);
-      if (dictionary == null || !Comparing.equal(myCFDictionaryLevel, languageLevel)) {
-        dictionary = new CfmlLangDictionary("scopes.txt", languageLevel);
-        myCFDictionary = new SoftReference<>(dictionary);
-        myCFDictionaryLevel = languageLevel;
-      }
+    String languageLevel = StringUtil.notNullize(getLanguageLevel());
+    CfmlLangDictionary dictionary = ourDictionaries.get(languageLevel);
+    if (dictionary == null) {
+      dictionary = ourDictionaries.computeIfAbsent(languageLevel, level -> new CfmlLangDictionary("scopes.txt", level));
     }
-
     return dictionary;
   }
 
@@ -111,6 +101,14 @@ public class CfmlLangInfo {
     return getProjectDictionary().myPredefinedFunctionsInLowCase;
   }
 
+  /**
+   * @param functionNameInLowCase function name in lower case
+   */
+  public boolean isPredefinedFunction(String functionNameInLowCase) {
+    final Map<String, CfmlFunctionDescription> functions = getProjectDictionary().myFunctionParameters;
+    return functions != null && functions.containsKey(functionNameInLowCase);
+  }
+
   public String[] getPredefinedFunctions() {
     return getProjectDictionary().myPredefinedFunctions;
   }
@@ -34,10 +34,14 @@ import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.resolve.ResolveCache;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopes;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Function;
 import com.intellij.util.IncorrectOperationException;
@@ -50,7 +54,9 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author vnikolaenko
@@ -130,6 +136,33 @@ public class CfmlComponentReference extends CfmlCompositeElement implements Cfml
       return result;
     }
 
+    result.addAll(ResolveByMappingsCache.getInstance(originalFile.getProject()).resolve(componentQualifiedName, originalFile));
+
+    if (result.isEmpty()) {
+      final Couple<String> prefixAndName = CfmlUtil.getPrefixAndName(componentQualifiedName);
+      final String componentName = prefixAndName.getSecond();
+      final CfmlImport cfmlImport = CfmlUtil.getImportByPrefix(originalFile, prefixAndName.getFirst());
+      if (cfmlImport != null && !StringUtil.isEmpty(componentName)) {
+        String libtag = cfmlImport.getImportString();
+        final VirtualFile folder = CfmlUtil.findFileByLibTag(originalFile, libtag);
+        if (folder != null && folder.isDirectory()) {
+          final GlobalSearchScope scope = GlobalSearchScopes.directoryScope(originalFile.getProject(), folder, true);
+          result.addAll(CfmlIndex.getInstance(originalFile.getProject()).getComponentsByNameInScope(componentName, scope));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Resolves the name by the directory of the file and by server mappings, i.e. everything except imports of the file.
+   */
+  @NotNull
+  private static List<CfmlComponent> resolveByDirectoryAndMappings(@NotNull String componentQualifiedName,
+                                                                   @NotNull CfmlFile originalFile,
+                                                                   @NotNull CfmlMappingsConfig mappings) {
+    List<CfmlComponent> result = new ArrayList<>();
+
     Project project = originalFile.getProject();
     if (!componentQualifiedName.contains(".")) {
       // resolve with directory scope
@@ -172,9 +205,6 @@ public class CfmlComponentReference extends CfmlCompositeElement implements Cfml
         directoryName = componentQualifiedName.substring(0, i);
       }
 
-      CfmlProjectConfiguration.State state = CfmlProjectConfiguration.getInstance(project).getState();
-      CfmlMappingsConfig mappings = state != null ? state.getMapps().clone() : new CfmlMappingsConfig();
-      adjustMappingsIfEmpty(mappings, originalFile.getProject());
       // addFakeMappingsForResolution(mappings);
       List<String> realPossiblePaths = mappings.mapVirtualToReal(directoryName);
       // Collections.sort(realPossiblePaths);
@@ -221,20 +251,56 @@ public class CfmlComponentReference extends CfmlCompositeElement implements Cfml
       }
     }
 
-    if (result.isEmpty()) {
-      final Couple<String> prefixAndName = CfmlUtil.getPrefixAndName(componentQualifiedName);
-      final String componentName = prefixAndName.getSecond();
-      final CfmlImport cfmlImport = CfmlUtil.getImportByPrefix(originalFile, prefixAndName.getFirst());
-      if (cfmlImport != null && !StringUtil.isEmpty(componentName)) {
-        String libtag = cfmlImport.getImportString();
-        final VirtualFile folder = CfmlUtil.findFileByLibTag(originalFile, libtag);
-        if (folder != null && folder.isDirectory()) {
-          final GlobalSearchScope scope = GlobalSearchScopes.directoryScope(originalFile.getProject(), folder, true);
-          result.addAll(CfmlIndex.getInstance(originalFile.getProject()).getComponentsByNameInScope(componentName, scope));
-        }
+    return result;
+  }
+
+  /**
+   * Results of {@link #resolveByDirectoryAndMappings} keyed by qualified name and directory of the file.
+   * Dropped on out of code block PSI changes and VFS structure changes (component names live in CFML stubs),
+   * on content roots change (they are the default mappings) and when the mappings configured for the project
+   * differ from the ones the results were computed with.
+   */
+  private static class ResolveByMappingsCache {
+    private volatile MappingsResults myResults;
+
+    @NotNull
+    private static ResolveByMappingsCache getInstance(@NotNull final Project project) {
+      return CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result.create(
+        new ResolveByMappingsCache(), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT,
+        VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS, ProjectRootManager.getInstance(project)));
+    }
+
+    @NotNull
+    private List<CfmlComponent> resolve(@NotNull String componentQualifiedName, @NotNull CfmlFile originalFile) {
+      final Project project = originalFile.getProject();
+      CfmlProjectConfiguration.State state = CfmlProjectConfiguration.getInstance(project).getState();
+      CfmlMappingsConfig mappings = state != null ? state.getMapps().clone() : new CfmlMappingsConfig();
+      MappingsResults results = myResults;
+      if (results == null || !results.myMappings.equals(mappings)) {
+        // mappings are edited in place by the settings, so results are bound to a snapshot of them
+        results = new MappingsResults(mappings.clone());
+        myResults = results;
+      }
+
+      final PsiDirectory directory = originalFile.getParent();
+      final String key = componentQualifiedName + "\n" + (directory != null ? directory.getVirtualFile().getUrl() : "");
+      List<CfmlComponent> result = results.myComponents.get(key);
+      if (result == null) {
+        adjustMappingsIfEmpty(mappings, project);
+        result = Collections.unmodifiableList(resolveByDirectoryAndMappings(componentQualifiedName, originalFile, mappings));
+        results.myComponents.put(key, result);
+      }
+      return result;
+    }
+
+    private static class MappingsResults {
+      private final CfmlMappingsConfig myMappings;
+      private final ConcurrentMap<String, List<CfmlComponent>> myComponents = ContainerUtil.newConcurrentMap();
+
+      private MappingsResults(@NotNull CfmlMappingsConfig mappings) {
+        myMappings = mappings;
       }
     }
-    return result;
   }
 
   private final ResolveCache.PolyVariantResolver<CfmlComponentReference> MY_RESOLVER =
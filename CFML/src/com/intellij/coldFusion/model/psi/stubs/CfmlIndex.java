@@ -16,51 +16,43 @@
 package com.intellij.coldFusion.model.psi.stubs;
 
 import com.intellij.coldFusion.model.psi.CfmlComponent;
-import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.stubs.StubIndex;
 import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiUtilBase;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.FileBasedIndex;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author vnikolaenko
  */
-public abstract class CfmlIndex implements Disposable {
+public class CfmlIndex {
   private static final Logger LOG = Logger.getInstance("#com.intellij.coldFusion.model.psi.stubs.CfmlIndex");
   private static final Key<GlobalSearchScope> MY_SCOPE_KEY = Key.create("default.cfml.scope");
-  private static final Map<Project, CfmlIndex> managers = new HashMap<>();
   private final Project project;
 
-  private CfmlIndex(Project project) {
+  public CfmlIndex(Project project) {
     this.project = project;
   }
 
-  public static synchronized CfmlIndex getInstance(@NotNull Project project) {
-    CfmlIndex manager = managers.get(project);
-    if (manager == null) {
-      manager = new CfmlIndexManagerImpl(project);
-      managers.put(project, manager);
-      Disposer.register(project, manager);
-    }
-    return manager;
-  }
-
-  private static class CfmlIndexManagerImpl extends CfmlIndex {
-    private CfmlIndexManagerImpl(Project project) {
-      super(project);
-    }
+  public static CfmlIndex getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, CfmlIndex.class);
   }
 
   public GlobalSearchScope getSearchScope() {
@@ -82,20 +74,22 @@ public abstract class CfmlIndex implements Disposable {
     return getInterfacesByNameInScope(name, getSearchScope());
   }
 
+  /**
+   * @return a modifiable copy of the cached lookup result
+   */
   @NotNull
   public Collection<CfmlComponent> getComponentsByNameInScope(@Nullable final String name, GlobalSearchScope scope) {
     if (name == null) return Collections.emptyList();
-    Collection<CfmlComponent> cfmlComponents = StubIndex.getElements(CfmlComponentIndex.KEY, name.toLowerCase(), project, scope,
-                                                                     CfmlComponent.class);
-    return workaroundIndexBug(cfmlComponents, CfmlComponent.class, CfmlComponentIndex.KEY);
+    return getCachedElements(CfmlComponentIndex.KEY, name.toLowerCase(), scope);
   }
 
+  /**
+   * @return a modifiable copy of the cached lookup result
+   */
   @NotNull
   public Collection<CfmlComponent> getInterfacesByNameInScope(@Nullable final String name, GlobalSearchScope scope) {
     if (name == null) return Collections.emptyList();
-    Collection<CfmlComponent> cfmlComponents = StubIndex.getElements(CfmlInterfaceIndex.KEY, name.toLowerCase(), project, scope,
-                                                                     CfmlComponent.class);
-    return workaroundIndexBug(cfmlComponents, CfmlComponent.class, CfmlInterfaceIndex.KEY);
+    return getCachedElements(CfmlInterfaceIndex.KEY, name.toLowerCase(), scope);
   }
 
   @NotNull
@@ -108,8 +102,37 @@ public abstract class CfmlIndex implements Disposable {
     return StubIndex.getInstance().getAllKeys(CfmlInterfaceIndex.KEY, project);
   }
 
-  public void dispose() {
-    managers.remove(project);
+  /**
+   * Lookups are cached by index and lower-cased name in the whole project until the next PSI modification,
+   * so the index is queried (and checked for corrupted entries) once per name; the scope is applied to the cached result.
+   */
+  @NotNull
+  private List<CfmlComponent> getCachedElements(@NotNull StubIndexKey<String, CfmlComponent> key,
+                                                @NotNull String lowerCaseName,
+                                                @NotNull GlobalSearchScope scope) {
+    final ConcurrentMap<String, Collection<CfmlComponent>> cache = getLookupCache(key);
+    Collection<CfmlComponent> elements = cache.get(lowerCaseName);
+    if (elements == null) {
+      Collection<CfmlComponent> cfmlComponents =
+        StubIndex.getElements(key, lowerCaseName, project, GlobalSearchScope.allScope(project), CfmlComponent.class);
+      elements = ContainerUtil.concurrentMapPutIfAbsent(cache, lowerCaseName, workaroundIndexBug(cfmlComponents, CfmlComponent.class, key));
+    }
+    return ContainerUtil.filter(elements, component -> {
+      VirtualFile file = PsiUtilCore.getVirtualFile(component);
+      return file != null && scope.contains(file);
+    });
+  }
+
+  @NotNull
+  private ConcurrentMap<String, Collection<CfmlComponent>> getLookupCache(@NotNull StubIndexKey<String, CfmlComponent> key) {
+    final Map<StubIndexKey<String, CfmlComponent>, ConcurrentMap<String, Collection<CfmlComponent>>> caches =
+      CachedValuesManager.getManager(project).getCachedValue(project, () -> {
+        Map<StubIndexKey<String, CfmlComponent>, ConcurrentMap<String, Collection<CfmlComponent>>> map = new HashMap<>();
+        map.put(CfmlComponentIndex.KEY, ContainerUtil.newConcurrentMap());
+        map.put(CfmlInterfaceIndex.KEY, ContainerUtil.newConcurrentMap());
+        return CachedValueProvider.Result.create(map, PsiModificationTracker.MODIFICATION_COUNT);
+      });
+    return caches.get(key);
   }
 
   // reused code (com.jetbrains.php.PHPIndex) for the same reason
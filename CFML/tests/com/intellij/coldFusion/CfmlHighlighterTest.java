@@ -17,6 +17,7 @@ package com.intellij.coldFusion;
 
 import com.intellij.coldFusion.UI.inspections.CfmlReferenceInspection;
 import com.intellij.coldFusion.model.CfmlLanguage;
+import com.intellij.testFramework.PlatformTestUtil;
 
 import java.util.concurrent.Callable;
 
@@ -58,6 +59,21 @@ public class CfmlHighlighterTest extends CfmlCodeInsightFixtureTestCase {
     doTest();
   }
 
+  public void testComponentReferencesPerformance() throws Exception {
+    final int componentsCount = 200;
+    for (int i = 0; i < componentsCount; i++) {
+      myFixture.addFileToProject("folder/subfolder/Component" + i + ".cfc",
+                                 "<cfcomponent>\n<cffunction name=\"func\"></cffunction>\n</cfcomponent>");
+    }
+    final StringBuilder text = new StringBuilder("<cfscript>\n");
+    for (int i = 0; i < 3000; i++) {
+      text.append("obj").append(i).append(" = new folder.subfolder.Component").append(i % componentsCount).append("();\n");
+    }
+    text.append("</cfscript>");
+    myFixture.configureByText("references.cfm", text.toString());
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 10000, () -> myFixture.doHighlighting()).attempts(1).assertTiming();
+  }
+
   @Override
   protected String getBasePath() {
     return "/highlighter";
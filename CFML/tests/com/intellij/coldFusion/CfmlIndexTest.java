@@ -0,0 +1,96 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.coldFusion;
+
+import com.intellij.coldFusion.model.psi.CfmlComponent;
+import com.intellij.coldFusion.model.psi.stubs.CfmlIndex;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+public class CfmlIndexTest extends CfmlCodeInsightFixtureTestCase {
+  private static final int COMPONENTS_COUNT = 50;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    for (int i = 0; i < COMPONENTS_COUNT; i++) {
+      myFixture.addFileToProject("components/Component" + i + ".cfc", "<cfcomponent>\n</cfcomponent>");
+      myFixture.addFileToProject("interfaces/Interface" + i + ".cfc", "<cfinterface>\n</cfinterface>");
+    }
+  }
+
+  public void testLookupIsCaseInsensitive() {
+    final CfmlIndex index = CfmlIndex.getInstance(getProject());
+    assertSize(1, index.getComponentsByName("Component7"));
+    assertSize(1, index.getComponentsByName("COMPONENT7"));
+    assertSize(1, index.getInterfacesByName("interface7"));
+    assertEmpty(index.getInterfacesByName("Component7"));
+  }
+
+  public void testLookupResultIsModifiable() {
+    final CfmlIndex index = CfmlIndex.getInstance(getProject());
+    final Collection<CfmlComponent> components = index.getComponentsByName("Component1");
+    components.addAll(index.getInterfacesByName("Interface1"));
+    assertSize(2, components);
+    assertSize(1, index.getComponentsByName("Component1"));
+  }
+
+  public void testLookupIsFilteredByScope() {
+    final PsiFile other = myFixture.addFileToProject("other/Component7.cfc", "<cfcomponent>\n</cfcomponent>");
+    final CfmlIndex index = CfmlIndex.getInstance(getProject());
+    assertSize(2, index.getComponentsByName("Component7"));
+
+    final Collection<CfmlComponent> components =
+      index.getComponentsByNameInScope("Component7", GlobalSearchScopes.directoryScope(other.getContainingDirectory(), false));
+    assertSize(1, components);
+    assertEquals(other, components.iterator().next().getContainingFile());
+    assertEmpty(index.getComponentsByNameInScope("Component6", GlobalSearchScope.fileScope(other)));
+  }
+
+  public void testConcurrentLookups() throws Exception {
+    final CfmlIndex index = CfmlIndex.getInstance(getProject());
+    final GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<Integer>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      futures.add(ApplicationManager.getApplication().executeOnPooledThread(() -> ReadAction.compute(() -> {
+        // all threads query the cold cache at once
+        start.await();
+        int found = 0;
+        for (int round = 0; round < 20; round++) {
+          for (int i = 0; i < COMPONENTS_COUNT; i++) {
+            found += index.getComponentsByNameInScope("component" + i, scope).size();
+            found += index.getInterfacesByNameInScope("INTERFACE" + i, scope).size();
+          }
+        }
+        return found;
+      })));
+    }
+    start.countDown();
+    for (Future<Integer> future : futures) {
+      assertEquals(2 * 20 * COMPONENTS_COUNT, future.get().intValue());
+    }
+  }
+}
@@ -30,12 +30,17 @@ import jetbrains.communicator.util.UIUtil;
 import org.apache.log4j.Logger;
 import org.jdom.Element;
 
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 public class Helper {
   private static final Logger LOG = Logger.getLogger(Helper.class);
 
+  /** Listings received from users last time, they are sent back so that only differences are received */
+  private static final Map<User, ProjectsData> ourLastProjectsData = new WeakHashMap<>();
+
   private Helper() {
   }
 
@@ -51,15 +56,14 @@ public class Helper {
                 try {
                   semaphore.acquire();
 
-                  transport.sendXmlMessage(user, new GetProjectsDataXmlMessage(result) {
-                    @Override
-                    public void processResponse(Element responseElement) {
-                      super.processResponse(responseElement);
-                      semaphore.release();
-                    }
-                  });
+                  ProjectsData knownData = getLastProjectsData(user);
+                  GetProjectsDataXmlMessage message = createProjectsDataMessage(result, knownData, semaphore);
+                  transport.sendXmlMessage(user, message);
 
-                  semaphore.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS);
+                  if (semaphore.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS) && message.isDeltaFailed()) {
+                    transport.sendXmlMessage(user, createProjectsDataMessage(result, null, semaphore));
+                    semaphore.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS);
+                  }
 
                 } catch (InterruptedException ignored) { }
               }
@@ -68,9 +72,31 @@ public class Helper {
         //
       }
     }
+    if (result[0] != ProjectsData.NULL) {
+      synchronized (ourLastProjectsData) {
+        ourLastProjectsData.put(user, result[0]);
+      }
+    }
     return result[0];
   }
 
+  private static ProjectsData getLastProjectsData(User user) {
+    synchronized (ourLastProjectsData) {
+      return ourLastProjectsData.get(user);
+    }
+  }
+
+  private static GetProjectsDataXmlMessage createProjectsDataMessage(ProjectsData[] result, ProjectsData knownData,
+                                                                     final Semaphore semaphore) {
+    return new GetProjectsDataXmlMessage(result, knownData) {
+      @Override
+      public void processResponse(Element responseElement) {
+        super.processResponse(responseElement);
+        semaphore.release();
+      }
+    };
+  }
+
   public static void fillVFileContent(final Transport transport, final User user, final VFile vFile, IDEFacade ideFacade) {
     if (user.isOnline()) {
       try {
@@ -83,15 +109,19 @@ public class Helper {
                 try {
                   semaphore.acquire();
 
-                  transport.sendXmlMessage(user, new GetVFileContentsXmlMessage(vFile) {
+                  GetVFileContentsXmlMessage message = new GetVFileContentsXmlMessage(vFile) {
                     @Override
                     public void processResponse(Element responseElement) {
                       super.processResponse(responseElement);
                       semaphore.release();
                     }
-                  });
+                  };
 
-                  semaphore.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS);
+                  // contents come in chunks, every chunk is requested separately
+                  do {
+                    transport.sendXmlMessage(user, message);
+                  }
+                  while (semaphore.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS) && !message.isComplete());
 
                 } catch (InterruptedException ignored) {
                   // noop
@@ -22,14 +22,25 @@ import org.jdom.Element;
 import java.util.List;
 
 /**
+ * Requests projects and files of a remote user. If the listing received last time is given, the remote side
+ * may send only the difference from it (see {@link ProjectsData#createDelta(ProjectsData)}).
+ *
  * @author Kir
  */
 public class GetProjectsDataXmlMessage implements XmlMessage {
   public static final String TAG = "projectsData";
   private final ProjectsData[] myResult;
+  private final ProjectsData myKnownData;
+  private boolean myDeltaFailed;
 
   public GetProjectsDataXmlMessage(ProjectsData[] result) {
+    this(result, null);
+  }
+
+  /** @param knownData the listing received from the same user last time, or null */
+  public GetProjectsDataXmlMessage(ProjectsData[] result, ProjectsData knownData) {
     myResult = result;
+    myKnownData = knownData;
   }
 
   public String getTagName() {
@@ -44,13 +55,34 @@ public class GetProjectsDataXmlMessage implements XmlMessage {
     return true;
   }
 
+  /** Returns true if a difference was received but it doesn't match the known listing, so the full one should be requested */
+  public boolean isDeltaFailed() {
+    return myDeltaFailed;
+  }
+
   public void fillRequest(Element element) {
+    element.setAttribute(StreamingTransfer.STREAMING_ATTR, "true");
+    if (myKnownData != null) {
+      element.setAttribute(StreamingTransfer.KNOWN_HASH_ATTR, myKnownData.getContentHash());
+    }
   }
 
   public void processResponse(Element responseElement) {
     List children = responseElement.getChildren();
     if (children.size() > 0) {
-      ProjectsData projectsData = new ProjectsData((Element) children.get(0));
+      Element child = (Element) children.get(0);
+      ProjectsData projectsData;
+      if (ProjectsData.DELTA_TAG.equals(child.getName())) {
+        String hash = responseElement.getAttributeValue(StreamingTransfer.CONTENT_HASH_ATTR);
+        projectsData = myKnownData == null ? null : myKnownData.applyDelta(child);
+        if (projectsData == null || !projectsData.getContentHash().equals(hash)) {
+          myDeltaFailed = true;
+          return;
+        }
+      }
+      else {
+        projectsData = new ProjectsData(child);
+      }
       if (projectsData.getProjects().length > 0) {
         myResult[0] = projectsData;
       }
@@ -19,13 +19,38 @@ package jetbrains.communicator.core.transport;
 import jetbrains.communicator.core.vfs.VFile;
 import org.jdom.Element;
 
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static jetbrains.communicator.core.transport.StreamingTransfer.*;
+
 /**
+ * Requests contents of a remote file. Contents are received in chunks (see {@link StreamingTransfer}),
+ * so the message should be sent again while it is not {@link #isComplete() complete}.
+ *
  * @author Kir
  */
 public class GetVFileContentsXmlMessage implements XmlMessage {
   public static final String TAG = "fillContents";
+  private static final int MAX_RESTARTS = 3;
+  private static final int MAX_KNOWN_CONTENTS = 32;
+
+  /** Last received contents by file, their hashes are sent to skip transfer of unchanged contents */
+  private static final Map<String, KnownContents> ourKnownContents = new LinkedHashMap<String, KnownContents>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, KnownContents> eldest) {
+      return size() > MAX_KNOWN_CONTENTS;
+    }
+  };
+
   private final VFile myFile;
 
+  private String myContentHash;
+  private ByteArrayOutputStream myReceived;
+  private int myRestarts;
+  private boolean myComplete;
+
   public GetVFileContentsXmlMessage(VFile file) {
     myFile = file;
   }
@@ -42,14 +67,100 @@ public class GetVFileContentsXmlMessage implements XmlMessage {
     return true;
   }
 
+  /** Returns true if contents are received or can't be received */
+  public boolean isComplete() {
+    return myComplete;
+  }
+
   public void fillRequest(Element element) {
     myFile.saveTo(element);
+    element.setAttribute(STREAMING_ATTR, "true");
+    if (myContentHash == null) {
+      KnownContents known = getKnownContents();
+      if (known != null) {
+        element.setAttribute(KNOWN_HASH_ATTR, known.myHash);
+      }
+    }
+    else {
+      element.setAttribute(CONTENT_HASH_ATTR, myContentHash);
+      element.setAttribute(OFFSET_ATTR, String.valueOf(myReceived.size()));
+    }
   }
 
   public void processResponse(Element responseElement) {
-    VFile from = VFile.createFrom(responseElement);
-    if (from != null) {
-      myFile.setContents(from.getContents());
+    String hash = responseElement.getAttributeValue(CONTENT_HASH_ATTR);
+    if (hash == null) {
+      // whole contents, or no such file
+      VFile from = VFile.createFrom(responseElement);
+      if (from != null) {
+        myFile.setContents(from.getContents());
+      }
+      myComplete = true;
+      return;
+    }
+
+    if ("true".equals(responseElement.getAttributeValue(UNCHANGED_ATTR))) {
+      KnownContents known = getKnownContents();
+      if (known != null && known.myHash.equals(hash)) {
+        myFile.setContents(known.myContents);
+      }
+      myComplete = true;
+      return;
+    }
+
+    try {
+      int offset = Integer.parseInt(responseElement.getAttributeValue(OFFSET_ATTR));
+      int size = Integer.parseInt(responseElement.getAttributeValue(SIZE_ATTR));
+      if (!hash.equals(myContentHash)) {
+        // the first chunk, or the file was changed during the transfer
+        if (offset != 0 || myContentHash != null && ++myRestarts > MAX_RESTARTS) {
+          myComplete = true;
+          return;
+        }
+        myContentHash = hash;
+        myReceived = new ByteArrayOutputStream(size);
+      }
+
+      byte[] chunk = decodeChunk(responseElement.getText());
+      if (chunk == null || offset != myReceived.size() || chunk.length == 0 && myReceived.size() < size) {
+        myComplete = true;
+        return;
+      }
+      myReceived.write(chunk, 0, chunk.length);
+
+      if (myReceived.size() >= size) {
+        String contents = decompress(myReceived.toByteArray());
+        if (contents != null && hash.equals(hash(contents))) {
+          myFile.setContents(contents);
+          synchronized (ourKnownContents) {
+            ourKnownContents.put(getKey(), new KnownContents(hash, contents));
+          }
+        }
+        myComplete = true;
+      }
+    }
+    catch (NumberFormatException e) {
+      myComplete = true;
+    }
+  }
+
+  private KnownContents getKnownContents() {
+    synchronized (ourKnownContents) {
+      return ourKnownContents.get(getKey());
+    }
+  }
+
+  private String getKey() {
+    return myFile.getProjectName() + ':' + myFile.getFullPath();
+  }
+
+  private static class KnownContents {
+    private final String myHash;
+    private final String myContents;
+
+    KnownContents(String hash, String contents) {
+      myHash = hash;
+      myContents = contents;
     }
   }
 }
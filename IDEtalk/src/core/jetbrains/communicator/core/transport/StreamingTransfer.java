@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.communicator.core.transport;
+
+import com.intellij.openapi.vfs.CharsetToolkit;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Attributes and helpers of the streaming mode of file contents and project listings transfer.
+ * <p/>
+ * A requester supporting this mode marks its request with {@link #STREAMING_ATTR} and sends the hash of contents
+ * it already holds in {@link #KNOWN_HASH_ATTR}. If contents didn't change, the response is {@link #UNCHANGED_ATTR},
+ * otherwise contents are compressed and sent in chunks of {@link #CHUNK_SIZE} bytes: every next chunk is requested
+ * with {@link #CONTENT_HASH_ATTR} and {@link #OFFSET_ATTR}. Peers which don't know this mode ignore the attributes
+ * and send whole contents, the requester accepts such responses too.
+ */
+public class StreamingTransfer {
+  public static final String STREAMING_ATTR = "streaming";
+  public static final String KNOWN_HASH_ATTR = "knownHash";
+  public static final String CONTENT_HASH_ATTR = "contentHash";
+  public static final String UNCHANGED_ATTR = "unchanged";
+  public static final String OFFSET_ATTR = "offset";
+  public static final String SIZE_ATTR = "compressedSize";
+
+  /** Max size of compressed data sent in one response */
+  public static final int CHUNK_SIZE = 32 * 1024;
+
+  private static final char[] NUMS = {
+      '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+  };
+
+  private StreamingTransfer() {
+  }
+
+  public static String hash(String text) {
+    return hash(text.getBytes(CharsetToolkit.UTF8_CHARSET));
+  }
+
+  public static String hash(byte[] data) {
+    try {
+      byte[] bytes = MessageDigest.getInstance("MD5").digest(data);
+      char[] res = new char[bytes.length*2];
+      for (int i = 0; i < bytes.length; i++) {
+        res[2*i] = NUMS[(0xF0 & bytes[i]) >> 4];
+        res[2*i + 1] = NUMS[0x0F & bytes[i]];
+      }
+      return new String(res);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static byte[] compress(String text) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(text.getBytes(CharsetToolkit.UTF8_CHARSET));
+      deflater.finish();
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        result.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return result.toByteArray();
+    }
+    finally {
+      deflater.end();
+    }
+  }
+
+  /** @Nullable if data is corrupted */
+  public static String decompress(byte[] data) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      ByteArrayOutputStream result = new ByteArrayOutputStream(data.length * 4);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int length = inflater.inflate(buffer);
+        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          return null;
+        }
+        result.write(buffer, 0, length);
+      }
+      return new String(result.toByteArray(), CharsetToolkit.UTF8_CHARSET);
+    }
+    catch (DataFormatException e) {
+      return null;
+    }
+    finally {
+      inflater.end();
+    }
+  }
+
+  /** Returns text of the chunk of data starting at offset */
+  public static String encodeChunk(byte[] data, int offset) {
+    int end = Math.min(data.length, offset + CHUNK_SIZE);
+    return Base64.getEncoder().encodeToString(Arrays.copyOfRange(data, offset, end));
+  }
+
+  /** @Nullable if text is not a chunk */
+  public static byte[] decodeChunk(String text) {
+    try {
+      return Base64.getDecoder().decode(text.trim());
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -19,6 +19,7 @@ package jetbrains.communicator.core.vfs;
 import com.intellij.util.ArrayUtil;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
+import jetbrains.communicator.core.transport.StreamingTransfer;
 import org.apache.log4j.Logger;
 import org.jdom.Element;
 import org.jdom.JDOMException;
@@ -37,6 +38,11 @@ public class ProjectsData {
   public static final ProjectsData NULL = new ProjectsData();
   private final Hashtable<String, Vector<List>> myStatus;
   public static final String NON_PROJECT_KEY = "non project files";
+  public static final String DELTA_TAG = "projectsDelta";
+  private static final String ADDED_TAG = "added";
+  private static final String REMOVED_TAG = "removed";
+  private static final String REMOVED_PROJECT_TAG = "removedProject";
+  private static final String NAME_ATTR = "name";
 
   public ProjectsData() {
     this(new Hashtable<>());
@@ -120,4 +126,105 @@ public class ProjectsData {
   public boolean isEmpty() {
     return myStatus.size() == 0;
   }
+
+  /** Returns a hash of projects and their files which doesn't depend on the order of files */
+  public String getContentHash() {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, Vector<List>> entry : myStatus.entrySet()) {
+      lines.add(entry.getKey());
+      for (List fileData : entry.getValue()) {
+        lines.add(entry.getKey() + '\n' + fileData);
+      }
+    }
+    Collections.sort(lines);
+
+    StringBuilder text = new StringBuilder();
+    for (String line : lines) {
+      text.append(line).append('\u0000');
+    }
+    return StreamingTransfer.hash(text.toString());
+  }
+
+  /** Returns files added and removed since the base listing, see {@link #applyDelta(Element)} */
+  public Element createDelta(ProjectsData base) {
+    Hashtable<String, Vector<List>> added = new Hashtable<>();
+    Hashtable<String, Vector<List>> removed = new Hashtable<>();
+    Element delta = new Element(DELTA_TAG);
+
+    for (Map.Entry<String, Vector<List>> entry : myStatus.entrySet()) {
+      Vector<List> baseFiles = base.myStatus.get(entry.getKey());
+      Set<List> baseSet = baseFiles == null ? Collections.emptySet() : new HashSet<>(baseFiles);
+      Set<List> currentSet = new HashSet<>(entry.getValue());
+
+      Vector<List> addedFiles = new Vector<>();
+      for (List fileData : entry.getValue()) {
+        if (!baseSet.contains(fileData)) addedFiles.add(fileData);
+      }
+      // a project without changes in files is still listed, so that an empty project is created
+      if (!addedFiles.isEmpty() || baseFiles == null) {
+        added.put(entry.getKey(), addedFiles);
+      }
+
+      if (baseFiles != null) {
+        Vector<List> removedFiles = new Vector<>();
+        for (List fileData : baseFiles) {
+          if (!currentSet.contains(fileData)) removedFiles.add(fileData);
+        }
+        if (!removedFiles.isEmpty()) {
+          removed.put(entry.getKey(), removedFiles);
+        }
+      }
+    }
+
+    for (String project : base.myStatus.keySet()) {
+      if (!myStatus.containsKey(project)) {
+        delta.addContent(new Element(REMOVED_PROJECT_TAG).setAttribute(NAME_ATTR, project));
+      }
+    }
+
+    delta.addContent(createDeltaPart(ADDED_TAG, added));
+    delta.addContent(createDeltaPart(REMOVED_TAG, removed));
+    return delta;
+  }
+
+  private static Element createDeltaPart(String tagName, Hashtable<String, Vector<List>> files) {
+    Element serialized = new ProjectsData(files).serialize();
+    serialized.detach();
+    return new Element(tagName).addContent(serialized);
+  }
+
+  /** Returns a new listing made of this one and the delta created with it as a base */
+  public ProjectsData applyDelta(Element delta) {
+    Hashtable<String, Vector<List>> result = new Hashtable<>();
+    for (Map.Entry<String, Vector<List>> entry : myStatus.entrySet()) {
+      result.put(entry.getKey(), new Vector<>(entry.getValue()));
+    }
+
+    for (Object child : delta.getChildren(REMOVED_PROJECT_TAG)) {
+      result.remove(((Element)child).getAttributeValue(NAME_ATTR));
+    }
+
+    for (Map.Entry<String, Vector<List>> entry : getDeltaPart(delta, REMOVED_TAG).entrySet()) {
+      Vector<List> files = result.get(entry.getKey());
+      if (files != null) {
+        files.removeAll(new HashSet<>(entry.getValue()));
+      }
+    }
+
+    for (Map.Entry<String, Vector<List>> entry : getDeltaPart(delta, ADDED_TAG).entrySet()) {
+      Vector<List> files = result.get(entry.getKey());
+      if (files == null) {
+        files = new Vector<>();
+        result.put(entry.getKey(), files);
+      }
+      files.addAll(entry.getValue());
+    }
+    return new ProjectsData(result);
+  }
+
+  private static Hashtable<String, Vector<List>> getDeltaPart(Element delta, String tagName) {
+    Element part = delta.getChild(tagName);
+    if (part == null || part.getChildren().isEmpty()) return new Hashtable<>();
+    return initFrom((Element)part.getChildren().get(0));
+  }
 }
@@ -46,6 +46,8 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
   private final Map<User,List<Message>> myUser2Messages = new HashMap<>();
   private final EventBroadcaster myEventBroadcaster;
   private boolean myDispatching;
+  /** Pending messages were changed since they were saved, guarded by myUser2MessagesLock */
+  private boolean myChanged;
 
   protected AbstractMessageDispatcher(EventBroadcaster eventBroadcaster, File dataDir) {
     myDataDir = dataDir;
@@ -74,13 +76,14 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
       synchronized(myUser2MessagesLock) {
         List<Message> userMessages = getMessages(user);
         if (result) {
-          userMessages.remove(message);
+          myChanged |= userMessages.remove(message);
           if (userMessages.size() == 0) {
             myUser2Messages.remove(user);
           }
         }
         else if (!userMessages.contains(message) ){
           userMessages.add(message);
+          myChanged = true;
         }
       }
 
@@ -145,6 +148,7 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
           LOG.debug("Added pending message " + message + "\nfor user " + user);
         }
         userMessages.add(message);
+        myChanged = true;
         save();
       }
     }
@@ -154,12 +158,14 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
     synchronized(myUser2MessagesLock) {
       List<Message> userMessages = getMessages(user);
       userMessages.remove(messageIndex);
+      myChanged = true;
       save();
     }
   }
 
   protected void clearAll() {
     synchronized (myUser2MessagesLock) {
+      myChanged |= !myUser2Messages.isEmpty();
       myUser2Messages.clear();
       save();
     }
@@ -196,18 +202,25 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
 
   private void removeUser(User user) {
     synchronized (myUser2MessagesLock) {
-      myUser2Messages.remove(user);
+      myChanged |= myUser2Messages.remove(user) != null;
       save();
     }
   }
 
+  /**
+   * Writes pending messages if they were changed since the last save: the dispatchers save after every
+   * delivery attempt, and most of them don't change the queue.
+   */
   @SuppressWarnings({"HardCodedStringLiteral"})
   protected void save() {
     if (myDataDir == null || !myDataDir.exists()) return;
 
-    LOG.debug("Save start");
     synchronized(myUser2MessagesLock) {
+      if (!myChanged) return;
+
+      LOG.debug("Save start");
       XMLUtil.toXml(getXStream(), getFileName(), createStorableMessages());
+      myChanged = false;
     }
     LOG.debug("Save finish");
   }
@@ -15,26 +15,32 @@
  */
 package jetbrains.communicator.core.impl.dispatcher;
 
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.thoughtworks.xstream.XStream;
 import jetbrains.communicator.core.dispatcher.LocalMessage;
 import jetbrains.communicator.core.impl.users.UserImpl;
 import jetbrains.communicator.core.users.User;
 import jetbrains.communicator.core.users.UserModel;
 import jetbrains.communicator.ide.IDEFacade;
-import jetbrains.communicator.util.TimeUtil;
 import jetbrains.communicator.util.XMLUtil;
 import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
-import java.io.FilenameFilter;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.Future;
 
 /**
+ * History of sent and received local messages.
+ * <p/>
+ * Messages are appended to a log file as separate XML records, and every record is described by an entry
+ * of an append-only index (date, position in the log, user). The index is read on start, messages are read
+ * from the log when the history of their user and date range is requested the first time. So saving a message
+ * doesn't depend on the size of the history, and history queries read only the requested messages.
+ * <p/>
+ * History stored in day files by previous versions is moved to the log on start.
+ *
  * @author Kir
  */
 class MessageHistory {
@@ -44,28 +50,36 @@ class MessageHistory {
   public static final long SAVE_TIMEOUT = 300;
   @NonNls
   private static final String HISTORY = "history";
-
-  private final DayHistory myHistory = new DayHistory();
+  @NonNls
+  private static final String LOG_FILE = "messages.log";
+  @NonNls
+  private static final String INDEX_FILE = "messages.idx";
+  /** Date, position and length of the message, length of the user key */
+  private static final int INDEX_ENTRY_HEADER_SIZE = 8 + 8 + 4 + 4;
+  private static final int MAX_USER_KEY_LENGTH = 4096;
+
+  /** Entries of every user, sorted by date */
+  private final Map<User, List<HistoryEntry>> myEntries = new HashMap<>();
+  /** Entries added since the last save, in the order of adding */
+  private final List<HistoryEntry> myUnsavedEntries = new ArrayList<>();
   @NonNls
   private final XStream myXStream;
-  private final UserModel myUserModel;
+  private final UserConverter myUserConverter;
   private final IDEFacade myFacade;
 
   private Future<?> myPendingSave;
 
-  @NonNls
-  private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-
   MessageHistory(IDEFacade facade, UserModel userModel) {
     myFacade = facade;
-    myUserModel = userModel;
+    myUserConverter = new UserConverter(userModel);
 
     getHistoryDir().mkdir();
 
     myXStream = XMLUtil.createXStream();
     setupXStream();
 
-    loadHistorySince(new Date());
+    loadIndex();
+    migrateDayFiles();
   }
 
   public synchronized void dispose() {
@@ -74,7 +88,9 @@ class MessageHistory {
       myPendingSave = null;
     }
 
-    myHistory.clear();
+    saveHistory();
+    myEntries.clear();
+    myUnsavedEntries.clear();
   }
 
   private void setupXStream() {
@@ -82,16 +98,35 @@ class MessageHistory {
     myXStream.alias("dayHistory", DayHistory.class);
     myXStream.aliasField("historyEntries", DayHistory.class, "myData");
 
-    myXStream.registerConverter(new UserConverter(myUserModel));
+    myXStream.registerConverter(myUserConverter);
   }
 
   public synchronized void addMessage(User user, LocalMessage message) {
-    myHistory.addMessage(user, message);
+    HistoryEntry entry = new HistoryEntry(user, message.getWhen().getTime());
+    entry.myMessage = message;
+    addEntry(entry);
+    myUnsavedEntries.add(entry);
     triggerSave();
   }
 
+  private void addEntry(HistoryEntry entry) {
+    List<HistoryEntry> entries = myEntries.get(entry.myUser);
+    if (entries == null) {
+      entries = new ArrayList<>();
+      myEntries.put(entry.myUser, entries);
+    }
+
+    // messages come mostly in order of their dates, so an entry is usually added to the end
+    int index = entries.size();
+    while (index > 0 && entries.get(index - 1).myWhen > entry.myWhen) {
+      index--;
+    }
+    entries.add(index, entry);
+  }
+
   public synchronized void clear() {
-    myHistory.clear();
+    myEntries.clear();
+    myUnsavedEntries.clear();
 
     deleteAllHistoryFiles();
   }
@@ -111,68 +146,156 @@ class MessageHistory {
   }
 
   public synchronized LocalMessage[] getHistory(User user, @Nullable Date since) {
-    loadHistorySince(since);
+    List<HistoryEntry> entries = myEntries.get(user);
+    if (entries == null) {
+      return new LocalMessage[0];
+    }
 
-    List<LocalMessage> list = filterHistoryByDate(user, since);
-    return list.toArray(new LocalMessage[list.size()]);
+    int start = since == null ? 0 : findFirstEntryAfter(entries, since.getTime());
+    List<LocalMessage> result = new ArrayList<>(entries.size() - start);
+    RandomAccessFile log = null;
+    try {
+      for (int i = start; i < entries.size(); i++) {
+        HistoryEntry entry = entries.get(i);
+        if (entry.myMessage == null) {
+          if (log == null) {
+            log = new RandomAccessFile(new File(getHistoryDir(), LOG_FILE), "r");
+          }
+          entry.myMessage = readMessage(log, entry);
+        }
+        if (entry.myMessage != null) {
+          result.add(entry.myMessage);
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Unable to read history of " + user, e);
+    }
+    finally {
+      close(log);
+    }
+    return result.toArray(new LocalMessage[result.size()]);
   }
 
-  private List<LocalMessage> filterHistoryByDate(User user, Date since) {
-    List<LocalMessage> list = myHistory.readMessages(user);
-    if (since != null) {
-      List<LocalMessage> result = new ArrayList<>(list.size());
-      for (LocalMessage message : list) {
-        if (message.getWhen().after(since)) {
-          result.add(message);
-        }
+  private static int findFirstEntryAfter(List<HistoryEntry> entries, long since) {
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (entries.get(middle).myWhen <= since) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
       }
-      list = result;
     }
-    return list;
+    return low;
   }
 
-  private void loadHistorySince(@Nullable Date since) {
-    if (since != null) {
-      since = TimeUtil.getDay(since);
+  @Nullable
+  private LocalMessage readMessage(RandomAccessFile log, HistoryEntry entry) throws IOException {
+    byte[] bytes = new byte[entry.myLength];
+    log.seek(entry.myOffset);
+    log.readFully(bytes);
+    try {
+      return (LocalMessage)myXStream.fromXML(new String(bytes, CharsetToolkit.UTF8_CHARSET));
     }
+    catch (RuntimeException e) {
+      LOG.info("Unable to read history message of " + entry.myUser + " at " + entry.myOffset, e);
+      return null;
+    }
+  }
 
-    if (!myHistory.hasHistorySince(since)) {
-      if (since == null) {
-        doLoadHistorySince(new Date(0));
-        myHistory.setHasFullHistory();
-      }
-      else {
-        doLoadHistorySince(since);
+  private void loadIndex() {
+    File indexFile = new File(getHistoryDir(), INDEX_FILE);
+    if (!indexFile.exists()) return;
+
+    long logLength = new File(getHistoryDir(), LOG_FILE).length();
+    long validLength = 0;
+    DataInputStream index = null;
+    try {
+      index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+      while (true) {
+        long when = index.readLong();
+        long offset = index.readLong();
+        int length = index.readInt();
+        int userKeyLength = index.readInt();
+        if (userKeyLength < 0 || userKeyLength > MAX_USER_KEY_LENGTH) break;
+        byte[] userKey = new byte[userKeyLength];
+        index.readFully(userKey);
+        if (offset + length > logLength) break;
+
+        HistoryEntry entry = new HistoryEntry((User)myUserConverter.fromString(new String(userKey, CharsetToolkit.UTF8_CHARSET)), when);
+        entry.myOffset = offset;
+        entry.myLength = length;
+        addEntry(entry);
+        validLength += INDEX_ENTRY_HEADER_SIZE + userKey.length;
       }
     }
+    catch (EOFException ignored) {
+      // end of the index
+    }
+    catch (IOException e) {
+      LOG.info("Unable to read history index", e);
+    }
+    finally {
+      close(index);
+    }
+
+    if (validLength < indexFile.length()) {
+      // drop the tail written partially, so that appended entries can be read
+      truncate(indexFile, validLength);
+    }
   }
 
-  private void doLoadHistorySince(Date since) {
-    File historyDir = getHistoryDir();
+  private static void truncate(File file, long length) {
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      randomAccessFile.setLength(length);
+    }
+    catch (IOException e) {
+      LOG.info("Unable to truncate " + file, e);
+    }
+    finally {
+      close(randomAccessFile);
+    }
+  }
 
-    String[] historyFiles = historyDir.list((dir, name) -> name.endsWith(".xml"));
-
-    Arrays.sort(historyFiles);
-    for (int i = historyFiles.length - 1; i >= 0; i--) {
-      String historyFile = historyFiles[i];
-      try {
-        Date date = DATE_FORMAT.parse(historyFile);
-        if (!date.before(since) && !myHistory.hasHistorySince(date)) {
-          DayHistory dayHistory = (DayHistory)XMLUtil.fromXml(myXStream, myFacade.getCacheDir(), getFileNameForDate(date), false);
-          if (dayHistory != null) {
-            dayHistory.copyTo(myHistory);
-          }
+  /**
+   * Moves the history saved by previous versions as one XML file per day to the log
+   */
+  private void migrateDayFiles() {
+    String[] dayFiles = getHistoryDir().list((dir, name) -> name.endsWith(".xml"));
+    if (dayFiles == null || dayFiles.length == 0) return;
+
+    Arrays.sort(dayFiles);
+    List<HistoryEntry> entries = new ArrayList<>();
+    for (String dayFile : dayFiles) {
+      DayHistory dayHistory = (DayHistory)XMLUtil.fromXml(myXStream, getHistoryDir(), dayFile, false);
+      if (dayHistory == null) continue;
+
+      for (User user : dayHistory.keySet()) {
+        for (LocalMessage message : dayHistory.get(user)) {
+          HistoryEntry entry = new HistoryEntry(user, message.getWhen().getTime());
+          entry.myMessage = message;
+          entries.add(entry);
         }
       }
-      catch (ParseException e) {
-        // ignore file of wrong format
-      }
-      catch (NumberFormatException e) {
-        // ignore file of wrong format
-      }
     }
 
-    myHistory.resort();
+    Collections.sort(entries, (o1, o2) -> Long.compare(o1.myWhen, o2.myWhen));
+    for (HistoryEntry entry : entries) {
+      addEntry(entry);
+      myUnsavedEntries.add(entry);
+    }
+
+    if (saveHistory()) {
+      for (String dayFile : dayFiles) {
+        new File(getHistoryDir(), dayFile).delete();
+      }
+      LOG.info("Moved " + entries.size() + " history messages from " + dayFiles.length + " day files");
+    }
   }
 
   private void triggerSave() {
@@ -184,61 +307,111 @@ class MessageHistory {
           // Ignore here.
         }
         finally {
-          saveHistory();
-          myPendingSave = null;
+          savePendingHistory();
         }
       });
     }
   }
 
-  private synchronized void saveHistory() {
-    LOG.debug("Start history save");
-    Map<Date, DayHistory> map = getHistory();
-    for (Date date : map.keySet()) {
-      DayHistory dayHistory = map.get(date);
-      try {
-        XMLUtil.toXml(myXStream, myFacade.getCacheDir(), getFileNameForDate(date), dayHistory);
-      } catch (RuntimeException e) {
-        LOG.error("Unable to save dayHistory for " + date + ": " + dayHistory, e);
-      }
-    }
-
-    LOG.debug("Done history save");
+  private synchronized void savePendingHistory() {
+    myPendingSave = null;
+    saveHistory();
   }
 
-  private synchronized Map<Date, DayHistory> getHistory() {
-    Map<Date, DayHistory> result = new HashMap<>();
+  /**
+   * Appends messages added since the last save to the log and the index. If saving fails, both files
+   * are truncated back to their length before the save, so that a retry doesn't leave half-written or
+   * duplicate entries.
+   *
+   * @return true if all messages are saved
+   */
+  synchronized boolean saveHistory() {
+    if (myUnsavedEntries.isEmpty()) return true;
 
-    for (User user : myHistory.keySet()) {
-      List<LocalMessage> messages = myHistory.get(user);
-      for (LocalMessage message : messages) {
-        DayHistory dayHistory = getDayHistoryFor(message, result);
+    LOG.debug("Start history save");
+    File logFile = new File(getHistoryDir(), LOG_FILE);
+    File indexFile = new File(getHistoryDir(), INDEX_FILE);
+    getHistoryDir().mkdir();
 
-        dayHistory.addMessage(user, message);
+    long logLength = logFile.length();
+    long indexLength = indexFile.length();
+    boolean saved = false;
+    OutputStream log = null;
+    DataOutputStream index = null;
+    try {
+      long offset = logLength;
+      log = new BufferedOutputStream(new FileOutputStream(logFile, true));
+      index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+      for (HistoryEntry entry : myUnsavedEntries) {
+        byte[] bytes = myXStream.toXML(entry.myMessage).getBytes(CharsetToolkit.UTF8_CHARSET);
+        log.write(bytes);
+        entry.myOffset = offset;
+        entry.myLength = bytes.length;
+        offset += bytes.length;
       }
+      // the index is written after the log, so that it never refers to a missing message
+      log.flush();
+      for (HistoryEntry entry : myUnsavedEntries) {
+        index.writeLong(entry.myWhen);
+        index.writeLong(entry.myOffset);
+        index.writeInt(entry.myLength);
+        byte[] userKey = myUserConverter.toString(entry.myUser).getBytes(CharsetToolkit.UTF8_CHARSET);
+        index.writeInt(userKey.length);
+        index.write(userKey);
+      }
+      index.flush();
+      saved = true;
+    }
+    catch (IOException | RuntimeException e) {
+      LOG.error("Unable to save history: " + e.getMessage(), e);
+    }
+    finally {
+      close(log);
+      close(index);
     }
 
-    return result;
+    if (!saved) {
+      // the unsaved entries are written again on the next save, drop what this save managed to write
+      truncate(indexFile, indexLength);
+      truncate(logFile, logLength);
+      for (HistoryEntry entry : myUnsavedEntries) {
+        entry.myOffset = -1;
+      }
+      return false;
+    }
+
+    myUnsavedEntries.clear();
+    LOG.debug("Done history save");
+    return true;
   }
 
-  private DayHistory getDayHistoryFor(LocalMessage message, Map<Date, DayHistory> result) {
-    Date day = TimeUtil.getDay(message.getWhen());
-    DayHistory dayHistory = result.get(day);
-    if (dayHistory == null) {
-      dayHistory = new DayHistory();
-      result.put(day, dayHistory);
+  private static void close(@Nullable Closeable closeable) {
+    if (closeable == null) return;
+    try {
+      closeable.close();
+    }
+    catch (IOException e) {
+      LOG.info(e.getMessage(), e);
     }
-    return dayHistory;
   }
 
-  @NonNls
-  private String getFileNameForDate(Date date) {
-    //noinspection HardCodedStringLiteral
-    return HISTORY + '/' + DATE_FORMAT.format(date) + ".xml";
+  public synchronized boolean isEmpty() {
+    return myEntries.isEmpty();
   }
 
-  public boolean isEmpty() {
-    File historyDir = getHistoryDir();
-    return !(historyDir.isDirectory() && historyDir.list().length > 0);
+  private static class HistoryEntry {
+    private final User myUser;
+    private final long myWhen;
+    /** Position of the message in the log, or -1 if it isn't saved yet */
+    private long myOffset = -1;
+    private int myLength;
+    /** The message, if it is already read from the log or isn't saved yet */
+    @Nullable
+    private LocalMessage myMessage;
+
+    HistoryEntry(User user, long when) {
+      myUser = user;
+      myWhen = when;
+    }
   }
 }
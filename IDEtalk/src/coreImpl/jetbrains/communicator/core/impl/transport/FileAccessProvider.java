@@ -54,9 +54,13 @@ public abstract class FileAccessProvider extends XmlResponseProvider {
       }
     }
 
-    doProcess(request, response);
+    doProcess(request, response, requestingUser);
     return true;
   }
 
+  protected void doProcess(Element request, Element response, User requestingUser) {
+    doProcess(request, response);
+  }
+
   protected abstract void doProcess(Element request, Element response);
 }
@@ -17,14 +17,23 @@ package jetbrains.communicator.core.impl.transport;
 
 import jetbrains.communicator.OptionFlag;
 import jetbrains.communicator.core.transport.GetProjectsDataXmlMessage;
+import jetbrains.communicator.core.users.User;
 import jetbrains.communicator.core.users.UserModel;
+import jetbrains.communicator.core.vfs.ProjectsData;
 import jetbrains.communicator.ide.IDEFacade;
 import org.jdom.Element;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static jetbrains.communicator.core.transport.StreamingTransfer.*;
+
 /**
  * @author Kir
  */
 public class GetProjectsDataProvider extends FileAccessProvider {
+  /** Listings sent to users last time, differences from them are sent if users still hold them */
+  private final Map<User, ProjectsData> myLastSentData = new WeakHashMap<>();
 
   public GetProjectsDataProvider(IDEFacade ideFacade, UserModel userModel) {
     super(ideFacade, userModel);
@@ -34,12 +43,42 @@ public class GetProjectsDataProvider extends FileAccessProvider {
     return GetProjectsDataXmlMessage.TAG;
   }
 
+  @Override
+  protected void doProcess(Element request, Element response, User requestingUser) {
+    if (!"true".equals(request.getAttributeValue(STREAMING_ATTR))) {
+      doProcess(request, response);
+      return;
+    }
+    if (OptionFlag.HIDE_ALL_KEY.isSet()) {
+      return;
+    }
+
+    ProjectsData projectsData = myIdeFacade.getProjectsData();
+    ProjectsData lastSent;
+    synchronized (myLastSentData) {
+      lastSent = myLastSentData.put(requestingUser, projectsData);
+    }
+
+    response.setAttribute(CONTENT_HASH_ATTR, projectsData.getContentHash());
+    String knownHash = request.getAttributeValue(KNOWN_HASH_ATTR);
+    if (knownHash != null && lastSent != null && knownHash.equals(lastSent.getContentHash())) {
+      response.addContent(projectsData.createDelta(lastSent));
+    }
+    else {
+      addProjectsData(response, projectsData);
+    }
+  }
+
   protected void doProcess(Element request, Element response) {
     if (OptionFlag.HIDE_ALL_KEY.isSet()) {
       return;
     }
 
-    Element serialized = myIdeFacade.getProjectsData().serialize();
+    addProjectsData(response, myIdeFacade.getProjectsData());
+  }
+
+  private static void addProjectsData(Element response, ProjectsData projectsData) {
+    Element serialized = projectsData.serialize();
     serialized.detach();
     response.addContent(serialized);
   }
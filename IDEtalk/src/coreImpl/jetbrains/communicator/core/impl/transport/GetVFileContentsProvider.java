@@ -21,10 +21,24 @@ import jetbrains.communicator.core.vfs.VFile;
 import jetbrains.communicator.ide.IDEFacade;
 import org.jdom.Element;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static jetbrains.communicator.core.transport.StreamingTransfer.*;
+
 /**
  * @author Kir
  */
 public class GetVFileContentsProvider extends FileAccessProvider {
+  private static final int MAX_TRANSFERS = 4;
+
+  /** Compressed contents of files being transferred, by their hash */
+  private final Map<String, byte[]> myTransfers = new LinkedHashMap<String, byte[]>(8, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+      return size() > MAX_TRANSFERS;
+    }
+  };
 
   public GetVFileContentsProvider(IDEFacade ideFacade, UserModel userModel) {
     super(ideFacade, userModel);
@@ -36,7 +50,67 @@ public class GetVFileContentsProvider extends FileAccessProvider {
 
   protected void doProcess(Element request, Element response) {
     VFile from = VFile.createFrom(request);
-    myIdeFacade.fillFileContents(from);
+    if (from == null) return;
+
+    if (!"true".equals(request.getAttributeValue(STREAMING_ATTR))) {
+      myIdeFacade.fillFileContents(from);
+      from.saveTo(response);
+      return;
+    }
+
+    String transferHash = request.getAttributeValue(CONTENT_HASH_ATTR);
+    byte[] compressed = transferHash == null ? null : getTransfer(transferHash);
+    String hash = transferHash;
+    if (compressed == null) {
+      myIdeFacade.fillFileContents(from);
+      String contents = from.getContents();
+      if (contents == null) {
+        from.saveTo(response);
+        return;
+      }
+
+      hash = hash(contents);
+      if (hash.equals(request.getAttributeValue(KNOWN_HASH_ATTR))) {
+        from.setContents(null);
+        from.saveTo(response);
+        response.setAttribute(CONTENT_HASH_ATTR, hash);
+        response.setAttribute(UNCHANGED_ATTR, "true");
+        return;
+      }
+
+      compressed = compress(contents);
+      synchronized (myTransfers) {
+        myTransfers.put(hash, compressed);
+      }
+    }
+
+    // a chunk of the transfer which is continued, or the first one
+    int offset = 0;
+    if (hash.equals(transferHash)) {
+      try {
+        offset = Math.max(0, Math.min(compressed.length, Integer.parseInt(request.getAttributeValue(OFFSET_ATTR))));
+      }
+      catch (NumberFormatException ignored) {
+      }
+    }
+
+    from.setContents(null);
     from.saveTo(response);
+    response.setAttribute(CONTENT_HASH_ATTR, hash);
+    response.setAttribute(SIZE_ATTR, String.valueOf(compressed.length));
+    response.setAttribute(OFFSET_ATTR, String.valueOf(offset));
+    response.setText(encodeChunk(compressed, offset));
+
+    if (offset + CHUNK_SIZE >= compressed.length) {
+      synchronized (myTransfers) {
+        myTransfers.remove(hash);
+      }
+    }
+  }
+
+  private byte[] getTransfer(String hash) {
+    synchronized (myTransfers) {
+      return myTransfers.get(hash);
+    }
   }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.communicator.core.impl.dispatcher;
+
+import com.thoughtworks.xstream.XStream;
+import jetbrains.communicator.core.dispatcher.LocalMessage;
+import jetbrains.communicator.core.impl.BaseTestCase;
+import jetbrains.communicator.core.impl.users.UserImpl;
+import jetbrains.communicator.core.impl.users.UserModelImpl;
+import jetbrains.communicator.core.users.User;
+import jetbrains.communicator.mock.MockIDEFacade;
+import jetbrains.communicator.mock.MockMessage;
+import jetbrains.communicator.mock.MockTransport;
+import jetbrains.communicator.util.WatchDog;
+import jetbrains.communicator.util.XMLUtil;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.*;
+
+@SuppressWarnings({"HardCodedStringLiteral"})
+public class MessageHistoryTest extends BaseTestCase {
+  private static final long DAY = 1000L * 3600 * 24;
+
+  private MockIDEFacade myIdeFacade;
+  private UserModelImpl myUserModel;
+  private User myUser;
+  private MessageHistory myHistory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    myUserModel = new UserModelImpl(getBroadcaster());
+    disposeOnTearDown(myUserModel);
+    myIdeFacade = new MockIDEFacade(getClass());
+    myHistory = new MessageHistory(myIdeFacade, myUserModel);
+
+    myUser = UserImpl.create("user", MockTransport.NAME);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    myHistory.clear();
+    myHistory.dispose();
+    super.tearDown();
+  }
+
+  public void testSavingAppendsToLog() throws Exception {
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "first"));
+    assertTrue(myHistory.saveHistory());
+    File log = new File(getHistoryDir(), "messages.log");
+    long length = log.length();
+
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "second"));
+    assertTrue(myHistory.saveHistory());
+    assertTrue("Log should grow", log.length() > length);
+
+    LocalMessage[] messages = new MessageHistory(myIdeFacade, myUserModel).getHistory(myUser, null);
+    assertEquals(2, messages.length);
+    assertEquals("first", ((MockMessage)messages[0]).getMessage());
+    assertEquals("second", ((MockMessage)messages[1]).getMessage());
+  }
+
+  public void testPartiallyWrittenIndex() throws Exception {
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "first"));
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "second"));
+    assertTrue(myHistory.saveHistory());
+
+    File index = new File(getHistoryDir(), "messages.idx");
+    RandomAccessFile file = new RandomAccessFile(index, "rw");
+    try {
+      file.setLength(file.length() - 3);
+    }
+    finally {
+      file.close();
+    }
+
+    MessageHistory history = new MessageHistory(myIdeFacade, myUserModel);
+    assertEquals(1, history.getHistory(myUser, null).length);
+
+    history.addMessage(myUser, new MockMessage(new Date(), "third"));
+    assertTrue(history.saveHistory());
+
+    LocalMessage[] messages = new MessageHistory(myIdeFacade, myUserModel).getHistory(myUser, null);
+    assertEquals(2, messages.length);
+    assertEquals("third", ((MockMessage)messages[1]).getMessage());
+  }
+
+  public void testFailedSaveIsRolledBack() throws Exception {
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "saved"));
+    assertTrue(myHistory.saveHistory());
+    File log = new File(getHistoryDir(), "messages.log");
+    File index = new File(getHistoryDir(), "messages.idx");
+    long logLength = log.length();
+    long indexLength = index.length();
+
+    myHistory.addMessage(myUser, new MockMessage(new Date(), "retried"));
+    myHistory.addMessage(myUser, new FailingOnceMessage(new Date()));
+    assertFalse(myHistory.saveHistory());
+    assertEquals("Log should be truncated", logLength, log.length());
+    assertEquals("Index should be truncated", indexLength, index.length());
+    assertEquals(1, new MessageHistory(myIdeFacade, myUserModel).getHistory(myUser, null).length);
+
+    assertTrue(myHistory.saveHistory());
+    LocalMessage[] messages = new MessageHistory(myIdeFacade, myUserModel).getHistory(myUser, null);
+    assertEquals(3, messages.length);
+    assertEquals("saved", ((MockMessage)messages[0]).getMessage());
+    assertEquals("retried", ((MockMessage)messages[1]).getMessage());
+  }
+
+  public void testMigrationFromDayFiles() throws Exception {
+    XStream xStream = XMLUtil.createXStream();
+    xStream.alias("user", UserImpl.class);
+    xStream.alias("dayHistory", DayHistory.class);
+    xStream.aliasField("historyEntries", DayHistory.class, "myData");
+    xStream.registerConverter(new UserConverter(myUserModel));
+
+    long now = System.currentTimeMillis();
+    writeDayHistory(xStream, "2017-01-02.xml", new MockMessage(new Date(now - DAY), "yesterday"));
+    writeDayHistory(xStream, "2017-01-01.xml", new MockMessage(new Date(now - 2 * DAY), "two days ago"));
+
+    MessageHistory history = new MessageHistory(myIdeFacade, myUserModel);
+    LocalMessage[] messages = history.getHistory(myUser, null);
+    assertEquals(2, messages.length);
+    assertEquals("two days ago", ((MockMessage)messages[0]).getMessage());
+    assertEquals("yesterday", ((MockMessage)messages[1]).getMessage());
+
+    assertEquals("Day files should be moved to the log", 0, getHistoryDir().list((dir, name) -> name.endsWith(".xml")).length);
+    assertEquals(2, new MessageHistory(myIdeFacade, myUserModel).getHistory(myUser, null).length);
+  }
+
+  private void writeDayHistory(XStream xStream, String fileName, LocalMessage message) {
+    Map<User, List<LocalMessage>> data = new HashMap<>();
+    data.put(myUser, new ArrayList<>(Collections.singletonList(message)));
+    XMLUtil.toXml(xStream, getHistoryDir(), fileName, new DayHistory(data));
+  }
+
+  public void testYearsOfHistory() throws Exception {
+    Logger logger = Logger.getLogger("jetbrains.communicator");
+    Level oldLevel = logger.getLevel();
+    try {
+      logger.setLevel(Level.WARN);
+
+      User anotherUser = UserImpl.create("another", MockTransport.NAME);
+      long start = System.currentTimeMillis() - 3 * 365 * DAY;
+      WatchDog watchDog = new WatchDog("Years of history");
+      for (int day = 0; day < 3 * 365; day++) {
+        for (int i = 0; i < 10; i++) {
+          Date when = new Date(start + day * DAY + i * 60000L);
+          myHistory.addMessage(i % 2 == 0 ? myUser : anotherUser, new MockMessage(when, "message " + day + ":" + i));
+        }
+        if (day % 30 == 0) {
+          assertTrue(myHistory.saveHistory());
+        }
+      }
+      assertTrue(myHistory.saveHistory());
+      watchDog.watchAndReset("saved");
+
+      MessageHistory history = new MessageHistory(myIdeFacade, myUserModel);
+      LocalMessage[] lastWeek = history.getHistory(myUser, new Date(System.currentTimeMillis() - 7 * DAY));
+      long diff = watchDog.diff();
+      watchDog.watchAndReset("last week read");
+      assertTrue(lastWeek.length > 0 && lastWeek.length <= 8 * 5);
+      assertTrue("Too long getting last week of history:" + diff, diff < 1000);
+
+      assertEquals(3 * 365 * 5, history.getHistory(anotherUser, null).length);
+      watchDog.watchAndReset("all history read");
+    }
+    finally {
+      logger.setLevel(oldLevel);
+    }
+  }
+
+  private static class FailingOnceMessage extends MockMessage implements Serializable {
+    private transient boolean myFailed;
+
+    FailingOnceMessage(Date date) {
+      super(date, "failing once");
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      if (!myFailed) {
+        myFailed = true;
+        throw new IOException("No space left on device");
+      }
+      out.defaultWriteObject();
+    }
+  }
+
+  private File getHistoryDir() {
+    return new File(myIdeFacade.getCacheDir(), "history");
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.communicator.core.impl.transport;
+
+import jetbrains.communicator.core.impl.BaseTestCase;
+import jetbrains.communicator.core.impl.users.UserModelImpl;
+import jetbrains.communicator.core.transport.GetProjectsDataXmlMessage;
+import jetbrains.communicator.core.transport.GetVFileContentsXmlMessage;
+import jetbrains.communicator.core.transport.StreamingTransfer;
+import jetbrains.communicator.core.transport.XmlMessage;
+import jetbrains.communicator.core.users.User;
+import jetbrains.communicator.core.vfs.ProjectsData;
+import jetbrains.communicator.core.vfs.VFile;
+import jetbrains.communicator.mock.MockIDEFacade;
+import jetbrains.communicator.mock.MockTransport;
+import org.jdom.Element;
+
+import java.util.*;
+
+@SuppressWarnings({"HardCodedStringLiteral"})
+public class StreamingTransferTest extends BaseTestCase {
+  private UserModelImpl myUserModel;
+  private MockIDEFacade myIdeFacade;
+  private User myUser;
+  private int myRequests;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    myUserModel = new UserModelImpl(getBroadcaster());
+    disposeOnTearDown(myUserModel);
+    myIdeFacade = new MockIDEFacade(getClass());
+
+    myUser = myUserModel.createUser("User", MockTransport.NAME);
+    myUserModel.addUser(myUser);
+    myUser.setCanAccessMyFiles(true, myUserModel);
+  }
+
+  public void testLargeFileInChunks() throws Exception {
+    VFile file = createFile("Large.java");
+    String text = createText(200000);
+    myIdeFacade.setReturnedFileText(file, text);
+
+    VFile received = createFile("Large.java");
+    receiveContents(received);
+
+    assertEquals(text, received.getContents());
+    assertTrue("Should be sent in several chunks: " + myRequests, myRequests > 1);
+  }
+
+  public void testUnchangedFile() throws Exception {
+    VFile file = createFile("Same.java");
+    String text = createText(1000);
+    myIdeFacade.setReturnedFileText(file, text);
+    receiveContents(createFile("Same.java"));
+
+    Element request = new Element("request");
+    GetVFileContentsXmlMessage message = new GetVFileContentsXmlMessage(createFile("Same.java"));
+    message.fillRequest(request);
+    assertEquals(StreamingTransfer.hash(text), request.getAttributeValue(StreamingTransfer.KNOWN_HASH_ATTR));
+
+    VFile received = createFile("Same.java");
+    receiveContents(received);
+    assertEquals(text, received.getContents());
+    assertEquals("Unchanged contents should not be sent again", 1, myRequests);
+  }
+
+  public void testChangedDuringTransfer() throws Exception {
+    VFile file = createFile("Changed.java");
+    myIdeFacade.setReturnedFileText(file, createText(100000));
+
+    VFile received = createFile("Changed.java");
+    GetVFileContentsXmlMessage message = new GetVFileContentsXmlMessage(received);
+    sendAndProcess(message, new GetVFileContentsProvider(myIdeFacade, myUserModel));
+    assertFalse(message.isComplete());
+
+    String newText = createText(100001);
+    myIdeFacade.setReturnedFileText(file, newText);
+    GetVFileContentsProvider provider = new GetVFileContentsProvider(myIdeFacade, myUserModel);
+    while (!message.isComplete()) {
+      sendAndProcess(message, provider);
+    }
+    assertEquals(newText, received.getContents());
+  }
+
+  public void testLegacyRequest() throws Exception {
+    VFile file = createFile("Legacy.java");
+    myIdeFacade.setReturnedFileText(file, "legacy text");
+
+    Element request = new Element("request");
+    file.saveTo(request);
+    Element response = new Element("response");
+    new GetVFileContentsProvider(myIdeFacade, myUserModel).processAndFillResponse(response, request, new MockTransport(), myUser.getName());
+
+    assertNull(response.getAttributeValue(StreamingTransfer.CONTENT_HASH_ATTR));
+    assertEquals("legacy text", VFile.createFrom(response).getContents());
+  }
+
+  public void testProjectsDelta() throws Exception {
+    GetProjectsDataProvider provider = new GetProjectsDataProvider(myIdeFacade, myUserModel);
+    myIdeFacade.setReturnedProjects(new String[]{"project1", "project2"});
+
+    ProjectsData[] result = new ProjectsData[]{ProjectsData.NULL};
+    sendAndProcess(new GetProjectsDataXmlMessage(result), provider);
+    ProjectsData known = result[0];
+    assertEquals(2, known.getProjects().length);
+
+    myIdeFacade.setReturnedProjects(new String[]{"project2", "project3"});
+    Element request = new Element("request");
+    GetProjectsDataXmlMessage message = new GetProjectsDataXmlMessage(result, known);
+    message.fillRequest(request);
+    Element response = new Element("response");
+    provider.processAndFillResponse(response, request, new MockTransport(), myUser.getName());
+    assertEquals(ProjectsData.DELTA_TAG, ((Element)response.getChildren().get(0)).getName());
+
+    message.processResponse(response);
+    assertFalse(message.isDeltaFailed());
+    assertEquals(myIdeFacade.getProjectsData().getContentHash(), result[0].getContentHash());
+    assertEquals(Arrays.asList("project2", "project3"), sorted(result[0].getProjects()));
+  }
+
+  public void testProjectsDeltaForUnknownListing() throws Exception {
+    GetProjectsDataProvider provider = new GetProjectsDataProvider(myIdeFacade, myUserModel);
+    myIdeFacade.setReturnedProjects(new String[]{"project1"});
+    ProjectsData stale = new ProjectsData();
+    stale.setProjectFiles("old project", new VFile[0]);
+
+    ProjectsData[] result = new ProjectsData[]{ProjectsData.NULL};
+    GetProjectsDataXmlMessage message = new GetProjectsDataXmlMessage(result, stale);
+    sendAndProcess(message, provider);
+
+    assertFalse(message.isDeltaFailed());
+    assertEquals("Full listing expected", 1, result[0].getProjects().length);
+    assertEquals("project1", result[0].getProjects()[0]);
+  }
+
+  private void receiveContents(VFile file) {
+    myRequests = 0;
+    GetVFileContentsXmlMessage message = new GetVFileContentsXmlMessage(file);
+    GetVFileContentsProvider provider = new GetVFileContentsProvider(myIdeFacade, myUserModel);
+    while (!message.isComplete()) {
+      assertTrue("Too many requests", myRequests < 100);
+      sendAndProcess(message, provider);
+    }
+  }
+
+  private void sendAndProcess(XmlMessage message, FileAccessProvider provider) {
+    myRequests++;
+    Element request = new Element("request");
+    message.fillRequest(request);
+    Element response = new Element("response");
+    provider.processAndFillResponse(response, request, new MockTransport(), myUser.getName());
+    message.processResponse(response);
+  }
+
+  private VFile createFile(String name) {
+    VFile file = VFile.create("/src/" + name);
+    file.setProjectName(getName());
+    return file;
+  }
+
+  private static List<String> sorted(String[] projects) {
+    List<String> result = new ArrayList<>(Arrays.asList(projects));
+    Collections.sort(result);
+    return result;
+  }
+
+  private static String createText(int length) {
+    // random enough not to be compressed into a single chunk
+    Random random = new Random(length);
+    StringBuilder result = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      result.append(i % 60 == 59 ? '\n' : (char)('a' + random.nextInt(26)));
+    }
+    return result.toString();
+  }
+}
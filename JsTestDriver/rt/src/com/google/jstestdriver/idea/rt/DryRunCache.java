@@ -0,0 +1,226 @@
+package com.google.jstestdriver.idea.rt;
+
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.jstestdriver.FileInfo;
+import com.google.jstestdriver.Plugin;
+import com.google.jstestdriver.config.ParsedConfiguration;
+import com.google.jstestdriver.config.ResolvedConfiguration;
+import com.google.jstestdriver.idea.rt.execution.TestPath;
+import com.google.jstestdriver.idea.rt.util.JstdConfigParsingUtils;
+import com.google.jstestdriver.idea.rt.util.TestFileScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persists tests registered by the dry run of a jstd config, so the dry run can be skipped when neither the config
+ * nor the files it refers to have changed since the last run.
+ *
+ * @author Sergey Simonchik
+ */
+public class DryRunCache {
+
+  private static final int VERSION = 2;
+
+  private final File myCacheDir;
+
+  public DryRunCache(@NotNull File cacheDir) {
+    myCacheDir = cacheDir;
+  }
+
+  @NotNull
+  public static DryRunCache createDefault() {
+    return new DryRunCache(new File(System.getProperty("java.io.tmpdir"), "jstestdriver-dry-run-cache"));
+  }
+
+  /**
+   * Returns a stamp of the config, its loaded, test and plugin files, the server, the browsers captured by it
+   * and the test scope, or null if the config refers to files which can't be stamped.
+   */
+  @Nullable
+  public static String computeStamp(@NotNull File configFile,
+                                    @NotNull ParsedConfiguration parsedConfiguration,
+                                    @NotNull String serverUrl,
+                                    @NotNull List<String> capturedBrowsers,
+                                    @NotNull TestFileScope testFileScope) {
+    ResolvedConfiguration resolvedConfiguration = JstdConfigParsingUtils.resolveConfiguration(parsedConfiguration);
+    List<String> fileStamps = Lists.newArrayList();
+    List<FileInfo> fileInfos = Lists.newArrayList(resolvedConfiguration.getFilesList());
+    fileInfos.addAll(resolvedConfiguration.getTests());
+    for (FileInfo fileInfo : fileInfos) {
+      if (fileInfo.isWebAddress()) {
+        return null;
+      }
+      fileStamps.add(stampFile(fileInfo.toFile()));
+    }
+    for (Plugin plugin : resolvedConfiguration.getPlugins()) {
+      fileStamps.add(stampFile(new File(plugin.getPathToJar())));
+    }
+    Collections.sort(fileStamps);
+
+    StringBuilder stamp = new StringBuilder();
+    stamp.append(VERSION).append('\n');
+    stamp.append(stampFile(configFile)).append('\n');
+    stamp.append(serverUrl).append('\n');
+    for (String browser : capturedBrowsers) {
+      stamp.append(browser).append('\n');
+    }
+    stamp.append(testFileScope.serialize()).append('\n');
+    for (String fileStamp : fileStamps) {
+      stamp.append(fileStamp).append('\n');
+    }
+    return md5(stamp.toString());
+  }
+
+  /**
+   * Returns ids and display names of the browsers captured by the server, sorted by id,
+   * or null if the server can't be asked for them.
+   */
+  @Nullable
+  public static List<String> fetchCapturedBrowsers(@NotNull String serverUrl) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection)new URL(serverUrl + "/cmd?listBrowsers").openConnection();
+      connection.setConnectTimeout(5000);
+      connection.setReadTimeout(5000);
+      Reader reader = new InputStreamReader(connection.getInputStream(), Charset.forName("UTF-8"));
+      try {
+        JsonElement browsers = new JsonParser().parse(reader);
+        if (!browsers.isJsonArray()) {
+          return null;
+        }
+        List<String> result = Lists.newArrayList();
+        for (JsonElement browser : browsers.getAsJsonArray()) {
+          if (!browser.isJsonObject()) {
+            return null;
+          }
+          JsonObject obj = browser.getAsJsonObject();
+          result.add(getString(obj, "id") + ':' + getString(obj, "name") + ' ' + getString(obj, "version") + ' ' + getString(obj, "os"));
+        }
+        Collections.sort(result);
+        return result;
+      }
+      finally {
+        reader.close();
+        connection.disconnect();
+      }
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static String getString(@NotNull JsonObject obj, @NotNull String name) {
+    JsonElement element = obj.get(name);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+
+  @NotNull
+  private static String stampFile(@NotNull File file) {
+    return file.getAbsolutePath() + ':' + file.lastModified() + ':' + file.length();
+  }
+
+  /**
+   * Returns tests registered by the dry run of the config if the cached ones have the same stamp, null otherwise.
+   */
+  @Nullable
+  public List<TestPath> load(@NotNull File configFile, @NotNull String stamp) {
+    File cacheFile = getCacheFile(configFile);
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+      try {
+        if (!stamp.equals(in.readUTF())) {
+          return null;
+        }
+        String configFilePath = configFile.getAbsolutePath();
+        int count = in.readInt();
+        List<TestPath> testPaths = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+          String browserDisplayName = in.readUTF();
+          String jsTestFilePath = in.readBoolean() ? in.readUTF() : null;
+          String testCaseName = in.readUTF();
+          String testName = in.readUTF();
+          testPaths.add(new TestPath(configFilePath, browserDisplayName, jsTestFilePath, testCaseName, testName));
+        }
+        return testPaths;
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  public void save(@NotNull File configFile, @NotNull String stamp, @NotNull List<TestPath> testPaths) {
+    if (!myCacheDir.isDirectory() && !myCacheDir.mkdirs()) {
+      return;
+    }
+    File cacheFile = getCacheFile(configFile);
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+      try {
+        out.writeUTF(stamp);
+        out.writeInt(testPaths.size());
+        for (TestPath testPath : testPaths) {
+          out.writeUTF(testPath.getBrowserDisplayName());
+          String jsTestFilePath = testPath.getJsTestFileAbsolutePath();
+          out.writeBoolean(jsTestFilePath != null);
+          if (jsTestFilePath != null) {
+            out.writeUTF(jsTestFilePath);
+          }
+          out.writeUTF(testPath.getTestCaseName());
+          out.writeUTF(testPath.getTestName());
+        }
+      }
+      finally {
+        out.close();
+      }
+    }
+    catch (IOException e) {
+      invalidate(configFile);
+    }
+  }
+
+  public void invalidate(@NotNull File configFile) {
+    File cacheFile = getCacheFile(configFile);
+    if (cacheFile.exists() && !cacheFile.delete()) {
+      cacheFile.deleteOnExit();
+    }
+  }
+
+  @NotNull
+  private File getCacheFile(@NotNull File configFile) {
+    return new File(myCacheDir, md5(configFile.getAbsolutePath()) + ".dat");
+  }
+
+  @NotNull
+  private static String md5(@NotNull String s) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(s.getBytes(Charset.forName("UTF-8")));
+      StringBuilder result = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
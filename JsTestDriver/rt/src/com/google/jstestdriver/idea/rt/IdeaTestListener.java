@@ -10,7 +10,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -27,6 +29,9 @@ public class IdeaTestListener implements TestListener {
   private final TestFileScope myTestFileScope;
   private final TestPathFactory myTestPathFactory;
   private final Set<FileLoadError> myDryRunErrors = new HashSet<>();
+  private final List<TestPath> myRegisteredTestPaths = new ArrayList<>();
+  private final Set<String> myCompletedBrowserNames = new HashSet<>();
+  private boolean myFileLoadErrors = false;
 
   public IdeaTestListener(@NotNull TreeManager treeManager,
                           @NotNull File jstdConfigFile,
@@ -49,6 +54,7 @@ public class IdeaTestListener implements TestListener {
       FileSource jsFileSource = fileResult.getFileSource();
       String jsFilePath = jsFileSource != null ? jsFileSource.getBasePath() : null;
       FileLoadError error = new FileLoadError(browserInfo, jsFilePath, fileResult.getMessage());
+      myFileLoadErrors = true;
       final boolean reportError;
       if (myDryRun) {
         myDryRunErrors.add(error);
@@ -81,6 +87,7 @@ public class IdeaTestListener implements TestListener {
           testCase.getName(),
           testName
         );
+        myRegisteredTestPaths.add(testPath);
         myTreeManager.onTestRegistered(testPath);
       }
     }
@@ -90,10 +97,31 @@ public class IdeaTestListener implements TestListener {
   public void onTestComplete(TestResult testResult) {
     synchronized (MONITOR) {
       TestPath testPath = myTestPathFactory.createTestPath(testResult);
+      myCompletedBrowserNames.add(testPath.getBrowserDisplayName());
       myTreeManager.onTestCompleted(testPath, testResult);
     }
   }
 
+  public boolean hasFileLoadErrors() {
+    synchronized (MONITOR) {
+      return myFileLoadErrors;
+    }
+  }
+
+  @NotNull
+  public List<TestPath> getRegisteredTestPaths() {
+    synchronized (MONITOR) {
+      return new ArrayList<>(myRegisteredTestPaths);
+    }
+  }
+
+  @NotNull
+  public Set<String> getCompletedBrowserNames() {
+    synchronized (MONITOR) {
+      return new HashSet<>(myCompletedBrowserNames);
+    }
+  }
+
   @Override
   public void finish() {
   }
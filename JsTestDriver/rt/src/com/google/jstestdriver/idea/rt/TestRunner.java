@@ -32,6 +32,8 @@ import com.google.jstestdriver.hooks.TestListener;
 import com.google.jstestdriver.idea.rt.coverage.CoverageReport;
 import com.google.jstestdriver.idea.rt.coverage.CoverageSerializationUtils;
 import com.google.jstestdriver.idea.rt.coverage.CoverageSession;
+import com.google.jstestdriver.idea.rt.execution.SequentialOutput;
+import com.google.jstestdriver.idea.rt.execution.TestPath;
 import com.google.jstestdriver.idea.rt.execution.tree.TreeManager;
 import com.google.jstestdriver.idea.rt.util.EscapeUtils;
 import com.google.jstestdriver.idea.rt.util.JstdConfigParsingUtils;
@@ -44,6 +46,13 @@ import org.joda.time.DateTime;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Main class of JsTestDriver test runner, that runs tests in a separate process and streams messages
@@ -68,6 +77,9 @@ public class TestRunner {
   private final JstdSettings mySettings;
   private final TreeManager myTreeManager;
   private final CoverageSession myCoverageSession;
+  private final DryRunCache myDryRunCache = DryRunCache.createDefault();
+  /** Held exclusively by runs resetting the captured browsers, shared by other runs */
+  private final ReadWriteLock myBrowsersLock = new ReentrantReadWriteLock(true);
 
   public TestRunner(@NotNull JstdSettings settings, @NotNull TreeManager treeManager) {
     mySettings = settings;
@@ -81,24 +93,112 @@ public class TestRunner {
   }
 
   public void executeAll() {
-    for (File config : mySettings.getConfigFiles()) {
-      executeTests(config);
+    List<File> configFiles = mySettings.getConfigFiles();
+    PrintStream nullSystemOut = new PrintStream(new NullOutputStream());
+    try {
+      System.setOut(nullSystemOut);
+      if (configFiles.size() > 1 && !mySettings.isDebug()) {
+        executeConcurrently(configFiles);
+      }
+      else {
+        for (File config : configFiles) {
+          if (!executeTests(config, myTreeManager)) {
+            System.exit(1);
+          }
+        }
+      }
+    }
+    finally {
+      nullSystemOut.close();
+      System.setOut(myTreeManager.getSystemOutStream());
     }
     if (myCoverageSession != null) {
       myCoverageSession.finish();
     }
   }
 
-  private void executeTests(@NotNull File config) {
+  /**
+   * Runs configs concurrently against the captured browsers. Each config reports to its own tree manager,
+   * whose output is printed in the order of the configs.
+   */
+  private void executeConcurrently(@NotNull List<File> configFiles) {
+    SequentialOutput output = new SequentialOutput(myTreeManager.getSystemOutStream(),
+                                                   myTreeManager.getSystemErrStream(),
+                                                   configFiles.size());
+    int threadCount = Math.min(configFiles.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<Boolean>> futures = Lists.newArrayListWithCapacity(configFiles.size());
+      for (int i = 0; i < configFiles.size(); i++) {
+        final File config = configFiles.get(i);
+        final SequentialOutput.Channel channel = output.getChannel(i);
+        final TreeManager treeManager = myTreeManager.createConfigTreeManager(channel.getOutStream(), channel.getErrStream());
+        futures.add(executor.submit(() -> {
+          try {
+            return executeTests(config, treeManager);
+          }
+          finally {
+            channel.finish();
+          }
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        boolean proceed;
+        try {
+          proceed = future.get();
+        }
+        catch (ExecutionException e) {
+          myTreeManager.printThrowable(e.getCause());
+          proceed = true;
+        }
+        if (!proceed) {
+          System.exit(1);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return false if testing should be halted, e.g. there is no running server
+   */
+  private boolean executeTests(@NotNull File config, @NotNull TreeManager treeManager) {
     Exception exception = null;
-    PrintStream nullSystemOut = new PrintStream(new NullOutputStream());
     try {
-      System.setOut(nullSystemOut);
-      myTreeManager.onJstdConfigRunningStarted(config);
+      treeManager.onJstdConfigRunningStarted(config);
       String runScope = mySettings.getTestFileScope().toJstdStr();
-      runTests(config, new String[]{"--dryRunFor", runScope}, true);
-      myTreeManager.reportTotalTestCount();
-      runTests(config, new String[]{"--tests", runScope}, false);
+      ParsedConfiguration parsedConfiguration = parseConfigurationQuietly(config);
+      String dryRunStamp = parsedConfiguration != null ? computeDryRunStamp(config, parsedConfiguration) : null;
+      List<TestPath> cachedTestPaths = dryRunStamp != null ? myDryRunCache.load(config, dryRunStamp) : null;
+      if (cachedTestPaths != null) {
+        File singleBasePath = JstdConfigParsingUtils.getSingleBasePath(parsedConfiguration.getBasePaths(), config);
+        treeManager.setCurrentBasePath(singleBasePath.getAbsolutePath());
+        for (TestPath testPath : cachedTestPaths) {
+          treeManager.onTestRegistered(testPath);
+        }
+      }
+      else {
+        IdeaTestListener dryRunListener = runTests(config, treeManager, new String[]{"--dryRunFor", runScope}, true);
+        if (dryRunStamp != null) {
+          if (dryRunListener.hasFileLoadErrors()) {
+            myDryRunCache.invalidate(config);
+          }
+          else {
+            myDryRunCache.save(config, dryRunStamp, dryRunListener.getRegisteredTestPaths());
+          }
+        }
+      }
+      treeManager.reportTotalTestCount();
+      IdeaTestListener listener = runTests(config, treeManager, new String[]{"--tests", runScope}, false);
+      if (cachedTestPaths != null && !getBrowserNames(cachedTestPaths).equals(listener.getCompletedBrowserNames())) {
+        // browsers were captured or closed since the cached dry run
+        myDryRunCache.invalidate(config);
+      }
     }
     catch (ConfigurationException ce) {
       exception = ce;
@@ -109,27 +209,63 @@ public class TestRunner {
         haltErrorMessage = getErrorMessageIfNoCapturedBrowsersFound(re, mySettings);
       }
       if (haltErrorMessage != null) {
-        myTreeManager.onJstdConfigRunningFinished(haltErrorMessage, mySettings.getTestFileScope());
-        System.exit(1);
+        treeManager.onJstdConfigRunningFinished(haltErrorMessage, mySettings.getTestFileScope());
+        return false;
       }
       exception = new Exception("Can't run tests.", re);
     }
     catch (Exception e) {
       exception = new Exception("Can't run tests.", e);
     }
-    finally {
-      String errorMessage = null;
-      if (exception != null) {
-        errorMessage = TreeManager.formatMessage(exception.getMessage(), exception.getCause());
+    String errorMessage = null;
+    if (exception != null) {
+      errorMessage = TreeManager.formatMessage(exception.getMessage(), exception.getCause());
+    }
+    treeManager.onJstdConfigRunningFinished(errorMessage, mySettings.getTestFileScope());
+    return true;
+  }
+
+  @Nullable
+  private static ParsedConfiguration parseConfigurationQuietly(@NotNull File configFile) {
+    try {
+      return JstdConfigParsingUtils.parseConfiguration(configFile);
+    }
+    catch (Exception e) {
+      // reported by the run itself
+      return null;
+    }
+  }
+
+  @Nullable
+  private String computeDryRunStamp(@NotNull File configFile, @NotNull ParsedConfiguration parsedConfiguration) {
+    try {
+      String serverUrl = mySettings.getServerUrl();
+      List<String> capturedBrowsers = DryRunCache.fetchCapturedBrowsers(serverUrl);
+      if (capturedBrowsers == null) {
+        return null;
       }
-      myTreeManager.onJstdConfigRunningFinished(errorMessage, mySettings.getTestFileScope());
-      nullSystemOut.close();
-      System.setOut(myTreeManager.getSystemOutStream());
+      return DryRunCache.computeStamp(configFile, parsedConfiguration, serverUrl, capturedBrowsers, mySettings.getTestFileScope());
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  @NotNull
+  private static Set<String> getBrowserNames(@NotNull List<TestPath> testPaths) {
+    Set<String> browserNames = new HashSet<>();
+    for (TestPath testPath : testPaths) {
+      browserNames.add(testPath.getBrowserDisplayName());
     }
+    return browserNames;
   }
 
   @SuppressWarnings("deprecation")
-  private void runTests(@NotNull final File configFile, @NotNull String[] extraArgs, final boolean dryRun) throws ConfigurationException {
+  @NotNull
+  private IdeaTestListener runTests(@NotNull final File configFile,
+                                    @NotNull TreeManager treeManager,
+                                    @NotNull String[] extraArgs,
+                                    final boolean dryRun) throws ConfigurationException {
     JsTestDriverBuilder builder = new JsTestDriverBuilder();
 
     final ParsedConfiguration parsedConfiguration;
@@ -141,9 +277,16 @@ public class TestRunner {
                                        "Details:", e);
     }
     final File singleBasePath = JstdConfigParsingUtils.getSingleBasePath(parsedConfiguration.getBasePaths(), configFile);
-    myTreeManager.setCurrentBasePath(singleBasePath.getAbsolutePath());
+    treeManager.setCurrentBasePath(singleBasePath.getAbsolutePath());
     JstdConfigParsingUtils.wipeCoveragePlugin(parsedConfiguration);
     builder.setDefaultConfiguration(parsedConfiguration);
+    final IdeaTestListener ideaTestListener = new IdeaTestListener(
+      treeManager,
+      configFile,
+      singleBasePath,
+      dryRun,
+      mySettings.getTestFileScope()
+    );
     builder.withPluginInitializer(new PluginInitializer() {
       @Override
       public Module initializeModule(Flags flags, Configuration config) {
@@ -152,13 +295,7 @@ public class TestRunner {
           public void configure() {
             Multibinder<TestListener> testListeners = Multibinder.newSetBinder(binder(), TestListener.class);
             testListeners.addBinding().to(TestResultHolder.class);
-            testListeners.addBinding().toInstance(new IdeaTestListener(
-              myTreeManager,
-              configFile,
-              singleBasePath,
-              dryRun,
-              mySettings.getTestFileScope()
-            ));
+            testListeners.addBinding().toInstance(ideaTestListener);
           }
         };
       }
@@ -169,7 +306,8 @@ public class TestRunner {
 
     List<String> flagArgs = Lists.newArrayList("--captureConsole", "--server", mySettings.getServerUrl());
     ResolvedConfiguration resolvedConfiguration = JstdConfigParsingUtils.resolveConfiguration(parsedConfiguration);
-    if (dryRun && JstdUtils.isJasmineTests(resolvedConfiguration)) {
+    boolean reset = dryRun && JstdUtils.isJasmineTests(resolvedConfiguration);
+    if (reset) {
       // https://github.com/ibolmo/jasmine-jstd-adapter/pull/21
       flagArgs.add("--reset");
     }
@@ -197,7 +335,15 @@ public class TestRunner {
     builder.setFlags(toStringArray(flagArgs));
     builder.setFlagsParser(new IntelliJFlagParser(mySettings, dryRun));
     JsTestDriver jstd = builder.build();
-    jstd.runConfiguration();
+    // --reset reloads the captured browsers, so it must not overlap with runs of other configs
+    Lock browsersLock = reset ? myBrowsersLock.writeLock() : myBrowsersLock.readLock();
+    browsersLock.lock();
+    try {
+      jstd.runConfiguration();
+    }
+    finally {
+      browsersLock.unlock();
+    }
     if (runCoverage) {
       File[] coverageReportFiles = emptyOutputDir.listFiles((dir, name) -> name.endsWith("-coverage.dat"));
       if (coverageReportFiles != null && coverageReportFiles.length == 1) {
@@ -209,10 +355,11 @@ public class TestRunner {
           myCoverageSession.mergeReport(coverageReport);
         }
         catch (Exception e) {
-          myTreeManager.printThrowable(e);
+          treeManager.printThrowable(e);
         }
       }
     }
+    return ideaTestListener;
   }
 
   @NotNull
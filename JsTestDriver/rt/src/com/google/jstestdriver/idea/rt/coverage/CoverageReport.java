@@ -1,193 +1,170 @@
 package com.google.jstestdriver.idea.rt.coverage;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.jstestdriver.idea.rt.util.PathConverter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Map;
 
 /**
  * @author Sergey Simonchik
  */
 public class CoverageReport {
 
-  private final Map<String, List<LineHits>> myInfo = Maps.newHashMap();
+  private final Map<String, LineHits> myInfo = Maps.newHashMap();
 
   @NotNull
-  public Map<String, List<LineHits>> getInfo() {
+  public Map<String, LineHits> getInfo() {
     return myInfo;
   }
 
   public void mergeReport(@NotNull CoverageReport report) {
-    for (Map.Entry<String, List<LineHits>> entry : report.getInfo().entrySet()) {
+    for (Map.Entry<String, LineHits> entry : report.getInfo().entrySet()) {
       mergeFileReport(entry.getKey(), entry.getValue());
     }
   }
 
-  public void mergeFileReport(@NotNull String filePath, @NotNull List<LineHits> report) {
+  /**
+   * Adds hits of the file to this report, {@code report} isn't retained and can be reused by the caller.
+   */
+  public void mergeFileReport(@NotNull String filePath, @NotNull LineHits report) {
     String normalizedFilePath = PathConverter.getNormalizedPath(new File(filePath));
-    normalizeLineHitsList(report);
-    List<LineHits> old = myInfo.get(normalizedFilePath);
-    if (old != null) {
-      doMerge(old, report);
-    } else {
-      myInfo.put(normalizedFilePath, report);
+    LineHits old = myInfo.get(normalizedFilePath);
+    if (old == null) {
+      old = new LineHits(report.getSize());
+      myInfo.put(normalizedFilePath, old);
     }
+    old.merge(report);
   }
 
   public void clearReportByFilePath(@NotNull String filePath) {
     myInfo.remove(filePath);
   }
 
-  private static List<LineHits> doMerge(@NotNull List<LineHits> aList, @NotNull List<LineHits> bList) {
-    PeekingIterator<LineHits> ai = new PeekingIterator<>(aList.iterator());
-    PeekingIterator<LineHits> bi = new PeekingIterator<>(bList.iterator());
-    List<LineHits> out = Lists.newArrayList();
-    while (ai.hasNext() && bi.hasNext()) {
-      final LineHits x;
-      LineHits a = ai.peek();
-      LineHits b = bi.peek();
-      if (a.getLineNumber() < b.getLineNumber()) {
-        x = ai.next();
-      }
-      else if (a.getLineNumber() > b.getLineNumber()) {
-        x = bi.next();
-      }
-      else {
-        a.addHits(b.getHits());
-        x = a;
-        ai.next();
-        bi.next();
-      }
-      out.add(x);
-    }
-    addRestItems(out, ai);
-    addRestItems(out, bi);
-    return out;
-  }
+  /**
+   * Hits of the lines of a file, stored as parallel arrays sorted by line number with unique line numbers.
+   */
+  public static class LineHits {
+    private int[] myLineNumbers;
+    private int[] myHits;
+    private int mySize;
 
-  private static <T> void addRestItems(@NotNull List<T> out, Iterator<T> iterator) {
-    while (iterator.hasNext()) {
-      out.add(iterator.next());
+    public LineHits() {
+      this(16);
     }
-  }
-
-  private static void normalizeLineHitsList(@NotNull List<LineHits> lineHitsList) {
-    makeSortedByLineNumber(lineHitsList);
-    makeUniqueByLineNumber(lineHitsList);
-  }
 
-  private static void makeSortedByLineNumber(@NotNull List<LineHits> report) {
-    LineHits prev = null;
-    for (LineHits cur : report) {
-      if (prev != null && prev.getLineNumber() > cur.getLineNumber()) {
-        Collections.sort(report);
-        return;
-      }
-      prev = cur;
+    public LineHits(int capacity) {
+      myLineNumbers = new int[capacity];
+      myHits = new int[capacity];
     }
-  }
 
-  private static void makeUniqueByLineNumber(@NotNull List<LineHits> report) {
-    boolean unique = checkForLineUniqueness(report);
-    if (unique) {
-      return;
-    }
-    List<LineHits> out = new ArrayList<>(report.size());
-    LineHits prev = null;
-    for (LineHits cur : report) {
-      if (prev != null && prev.getLineNumber() == cur.getLineNumber()) {
-        prev.addHits(cur.getHits());
-      } else {
-        out.add(cur);
-        prev = cur;
-      }
+    public int getSize() {
+      return mySize;
     }
-    report.clear();
-    report.addAll(out);
-  }
-
-  private static boolean checkForLineUniqueness(@NotNull List<LineHits> lineHitsList) {
-    LineHits prev = null;
-    for (LineHits cur : lineHitsList) {
-      if (prev != null && prev.getLineNumber() == cur.getLineNumber()) {
-        return false;
-      }
-      prev = cur;
-    }
-    return true;
-  }
-
-  public static class LineHits implements Comparable<LineHits> {
-    private final int myLineNumber;
-    private int myHits;
 
-    public LineHits(int lineNumber, int hits) {
-      myLineNumber = lineNumber;
-      myHits = hits;
+    public int getLineNumber(int index) {
+      return myLineNumbers[index];
     }
 
-    public int getLineNumber() {
-      return myLineNumber;
+    public int getHits(int index) {
+      return myHits[index];
     }
 
-    public int getHits() {
-      return myHits;
+    public int getMaxLineNumber() {
+      return mySize == 0 ? 0 : myLineNumbers[mySize - 1];
     }
 
-    @Override
-    public int compareTo(LineHits o) {
-      return myLineNumber - o.myLineNumber;
+    public void clear() {
+      mySize = 0;
     }
 
-    public void addHits(int hitCount) {
-      myHits += hitCount;
-    }
-  }
-
-  private static class PeekingIterator<T> implements Iterator<T> {
-
-    private final Iterator<T> myIterator;
-    private T myValue = null;
-    private boolean myValidValue = false;
-
-    private PeekingIterator(Iterator<T> iterator) {
-      myIterator = iterator;
-      advance();
-    }
-
-    @Override
-    public boolean hasNext() {
-      return myValidValue;
-    }
-
-    @Override
-    public T next() {
-      if (myValidValue) {
-        T save = myValue;
-        advance();
-        return save;
+    /**
+     * Adds hits of the line. Lines are expected in ascending order as they come in LCOV records,
+     * but unordered and repeated lines are handled too.
+     */
+    public void addHits(int lineNumber, int hitCount) {
+      if (mySize == 0 || myLineNumbers[mySize - 1] < lineNumber) {
+        ensureCapacity(mySize + 1);
+        myLineNumbers[mySize] = lineNumber;
+        myHits[mySize] = hitCount;
+        mySize++;
+        return;
       }
-      throw new NoSuchElementException();
-    }
-
-    public T peek() {
-      if (myValidValue) {
-        return myValue;
+      int index = Arrays.binarySearch(myLineNumbers, 0, mySize, lineNumber);
+      if (index >= 0) {
+        myHits[index] += hitCount;
+        return;
       }
-      throw new NoSuchElementException();
-    }
-
-    @Override
-    public void remove() {
-      throw new UnsupportedOperationException();
+      index = -index - 1;
+      ensureCapacity(mySize + 1);
+      System.arraycopy(myLineNumbers, index, myLineNumbers, index + 1, mySize - index);
+      System.arraycopy(myHits, index, myHits, index + 1, mySize - index);
+      myLineNumbers[index] = lineNumber;
+      myHits[index] = hitCount;
+      mySize++;
+    }
+
+    /**
+     * Adds hits of {@code other} in a single pass over both arrays: they are merged from the end,
+     * so no temporary arrays are needed.
+     */
+    public void merge(@NotNull LineHits other) {
+      int newSize = countMergedSize(other);
+      ensureCapacity(newSize);
+      int i = mySize - 1;
+      int j = other.mySize - 1;
+      int k = newSize - 1;
+      while (j >= 0) {
+        int otherLine = other.myLineNumbers[j];
+        if (i >= 0 && myLineNumbers[i] > otherLine) {
+          myLineNumbers[k] = myLineNumbers[i];
+          myHits[k] = myHits[i];
+          i--;
+        }
+        else if (i >= 0 && myLineNumbers[i] == otherLine) {
+          myLineNumbers[k] = otherLine;
+          myHits[k] = myHits[i] + other.myHits[j];
+          i--;
+          j--;
+        }
+        else {
+          myLineNumbers[k] = otherLine;
+          myHits[k] = other.myHits[j];
+          j--;
+        }
+        k--;
+      }
+      mySize = newSize;
+    }
+
+    private int countMergedSize(@NotNull LineHits other) {
+      int i = 0;
+      int j = 0;
+      int common = 0;
+      while (i < mySize && j < other.mySize) {
+        int a = myLineNumbers[i];
+        int b = other.myLineNumbers[j];
+        if (a <= b) {
+          i++;
+        }
+        if (a >= b) {
+          j++;
+        }
+        if (a == b) {
+          common++;
+        }
+      }
+      return mySize + other.mySize - common;
     }
 
-    private void advance() {
-      myValidValue = myIterator.hasNext();
-      myValue = myValidValue ? myIterator.next() : null;
+    private void ensureCapacity(int capacity) {
+      if (myLineNumbers.length < capacity) {
+        int newCapacity = Math.max(capacity, myLineNumbers.length * 3 / 2 + 1);
+        myLineNumbers = Arrays.copyOf(myLineNumbers, newCapacity);
+        myHits = Arrays.copyOf(myHits, newCapacity);
+      }
     }
   }
 }
@@ -1,12 +1,10 @@
 package com.google.jstestdriver.idea.rt.coverage;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.jstestdriver.idea.rt.coverage.CoverageReport;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,28 +16,33 @@ public class CoverageSerializationUtils {
   private static final String LINE_HIT_PREFIX = "DA:";
   private static final String END_OF_RECORD = "end_of_record";
 
+  /**
+   * Reads LCOV records one by one: hits of a record are collected in a reused buffer and merged into the report
+   * at its end, so several records of the same file (e.g. from different browsers) don't produce extra objects.
+   */
   public static CoverageReport readLCOV(@NotNull File file) throws IOException {
     BufferedReader reader = new BufferedReader(new FileReader(file));
     try {
       String currentFileName = null;
       String line;
-      List<CoverageReport.LineHits> lineDataList = null;
+      CoverageReport.LineHits buffer = new CoverageReport.LineHits();
+      CoverageReport.LineHits lineDataList = null;
       CoverageReport report = new CoverageReport();
       while ((line = reader.readLine()) != null) {
         if (line.startsWith(SOURCE_FILE_PREFIX)) {
           currentFileName = line.substring(SOURCE_FILE_PREFIX.length());
-          lineDataList = Lists.newArrayList();
+          buffer.clear();
+          lineDataList = buffer;
         }
         else if (line.startsWith(LINE_HIT_PREFIX)) {
           if (lineDataList == null) {
             throw new RuntimeException("lineDataList is null!");
           }
-          String[] values = line.substring(LINE_HIT_PREFIX.length()).split(",");
-          Preconditions.checkState(values.length == 2);
-          int lineNum = Integer.parseInt(values[0]);
-          int hitCount = Integer.parseInt(values[1]);
-          CoverageReport.LineHits lineHits = new CoverageReport.LineHits(lineNum, hitCount);
-          lineDataList.add(lineHits);
+          int commaInd = line.indexOf(',', LINE_HIT_PREFIX.length());
+          Preconditions.checkState(commaInd >= 0 && line.indexOf(',', commaInd + 1) < 0);
+          int lineNum = Integer.parseInt(line.substring(LINE_HIT_PREFIX.length(), commaInd));
+          int hitCount = Integer.parseInt(line.substring(commaInd + 1));
+          lineDataList.addHits(lineNum, hitCount);
         }
         else if (END_OF_RECORD.equals(line)) {
           if (lineDataList == null) {
@@ -61,14 +64,15 @@ public class CoverageSerializationUtils {
   public static void writeLCOV(@NotNull CoverageReport report, @NotNull File outputFile) throws IOException {
     PrintWriter out = new PrintWriter(outputFile);
     try {
-      for (Map.Entry<String, List<CoverageReport.LineHits>> entry : report.getInfo().entrySet()) {
+      for (Map.Entry<String, CoverageReport.LineHits> entry : report.getInfo().entrySet()) {
         out.print(SOURCE_FILE_PREFIX);
         out.println(entry.getKey());
-        for (CoverageReport.LineHits lineHits : entry.getValue()) {
+        CoverageReport.LineHits lineHits = entry.getValue();
+        for (int i = 0; i < lineHits.getSize(); i++) {
           out.print(LINE_HIT_PREFIX);
-          out.print(lineHits.getLineNumber());
+          out.print(lineHits.getLineNumber(i));
           out.print(',');
-          out.println(lineHits.getHits());
+          out.println(lineHits.getHits(i));
         }
         out.println(END_OF_RECORD);
       }
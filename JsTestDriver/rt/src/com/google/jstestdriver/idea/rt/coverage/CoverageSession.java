@@ -20,7 +20,7 @@ public class CoverageSession {
     myCoverageReport = new CoverageReport();
   }
 
-  public void finish() {
+  public synchronized void finish() {
     try {
       CoverageSerializationUtils.writeLCOV(myCoverageReport, myIdeCoverageFile);
     }
@@ -29,7 +29,7 @@ public class CoverageSession {
     }
   }
 
-  public void mergeReport(@NotNull CoverageReport report) {
+  public synchronized void mergeReport(@NotNull CoverageReport report) {
     myCoverageReport.mergeReport(report);
   }
 }
@@ -0,0 +1,130 @@
+package com.google.jstestdriver.idea.rt.execution;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Keeps output of concurrently running jstd configs in the order of the configs: output of the first unfinished
+ * config is printed right away, output of the next ones is buffered until all previous configs are finished.
+ *
+ * @author Sergey Simonchik
+ */
+public class SequentialOutput {
+
+  private final PrintStream myOutStream;
+  private final PrintStream myErrStream;
+  private final List<Channel> myChannels;
+  private int myActiveChannelInd = 0;
+
+  public SequentialOutput(@NotNull PrintStream outStream, @NotNull PrintStream errStream, int channelCount) {
+    myOutStream = outStream;
+    myErrStream = errStream;
+    myChannels = Lists.newArrayListWithCapacity(channelCount);
+    for (int i = 0; i < channelCount; i++) {
+      myChannels.add(new Channel(i));
+    }
+  }
+
+  @NotNull
+  public Channel getChannel(int index) {
+    return myChannels.get(index);
+  }
+
+  public class Channel {
+    private final int myIndex;
+    private final PrintStream myChannelOutStream;
+    private final PrintStream myChannelErrStream;
+    private final List<Chunk> myBuffer = Lists.newArrayList();
+    private boolean myFinished = false;
+
+    private Channel(int index) {
+      myIndex = index;
+      myChannelOutStream = new PrintStream(new ChannelStream(this, false));
+      myChannelErrStream = new PrintStream(new ChannelStream(this, true));
+    }
+
+    @NotNull
+    public PrintStream getOutStream() {
+      return myChannelOutStream;
+    }
+
+    @NotNull
+    public PrintStream getErrStream() {
+      return myChannelErrStream;
+    }
+
+    /**
+     * Marks the output of the config as complete, buffered output of the next configs is printed if they are due.
+     */
+    public void finish() {
+      myChannelOutStream.flush();
+      myChannelErrStream.flush();
+      synchronized (SequentialOutput.this) {
+        myFinished = true;
+        while (myActiveChannelInd < myChannels.size() && myChannels.get(myActiveChannelInd).myFinished) {
+          myActiveChannelInd++;
+          if (myActiveChannelInd < myChannels.size()) {
+            myChannels.get(myActiveChannelInd).printBuffer();
+          }
+        }
+      }
+    }
+
+    private void write(boolean err, @NotNull byte[] b, int off, int len) {
+      synchronized (SequentialOutput.this) {
+        if (myIndex == myActiveChannelInd) {
+          (err ? myErrStream : myOutStream).write(b, off, len);
+          return;
+        }
+        Chunk last = myBuffer.isEmpty() ? null : myBuffer.get(myBuffer.size() - 1);
+        if (last == null || last.myErr != err) {
+          last = new Chunk(err);
+          myBuffer.add(last);
+        }
+        last.write(b, off, len);
+      }
+    }
+
+    private void printBuffer() {
+      for (Chunk chunk : myBuffer) {
+        PrintStream stream = chunk.myErr ? myErrStream : myOutStream;
+        stream.write(chunk.toByteArray(), 0, chunk.size());
+        stream.flush();
+      }
+      myBuffer.clear();
+    }
+  }
+
+  private static class ChannelStream extends OutputStream {
+    private final Channel myChannel;
+    private final boolean myErr;
+
+    private ChannelStream(@NotNull Channel channel, boolean err) {
+      myChannel = channel;
+      myErr = err;
+    }
+
+    @Override
+    public void write(int b) {
+      myChannel.write(myErr, new byte[]{(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) {
+      myChannel.write(myErr, b, off, len);
+    }
+  }
+
+  private static class Chunk extends ByteArrayOutputStream {
+    private final boolean myErr;
+
+    private Chunk(boolean err) {
+      myErr = err;
+    }
+  }
+}
@@ -22,9 +22,21 @@ public class TestPath {
                   @Nullable File jsTestFile,
                   @NotNull String testCaseName,
                   @NotNull String testName) {
+    this(jstdConfigFileAbsolutePath,
+         browserInfo.toString(),
+         jsTestFile != null ? jsTestFile.getAbsolutePath() : null,
+         testCaseName,
+         testName);
+  }
+
+  public TestPath(@NotNull String jstdConfigFileAbsolutePath,
+                  @NotNull String browserDisplayName,
+                  @Nullable String jsTestFileAbsolutePath,
+                  @NotNull String testCaseName,
+                  @NotNull String testName) {
     myJstdConfigFileAbsolutePath = jstdConfigFileAbsolutePath;
-    myBrowserDisplayName = browserInfo.toString();
-    myJsTestFileAbsolutePath = jsTestFile != null ? jsTestFile.getAbsolutePath() : null;
+    myBrowserDisplayName = browserDisplayName;
+    myJsTestFileAbsolutePath = jsTestFileAbsolutePath;
     myTestCaseName = testCaseName;
     myTestName = testName;
   }
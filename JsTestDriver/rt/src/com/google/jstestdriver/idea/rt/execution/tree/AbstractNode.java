@@ -44,7 +44,7 @@ public abstract class AbstractNode<T extends AbstractNodeWithParent> {
     }
     map.put(child.getName(), child);
     TCMessage startedMessage = child.createStartedMessage();
-    myTreeManager.printTCMessage(startedMessage);
+    child.getTreeManager().printTCMessage(startedMessage);
   }
 
   @Nullable
@@ -13,7 +13,11 @@ public abstract class AbstractNodeWithParent<T extends AbstractNodeWithParent> e
   private final String myName;
 
   public AbstractNodeWithParent(@NotNull String name, @NotNull AbstractNode parent) {
-    super(parent.getTreeManager());
+    this(name, parent, parent.getTreeManager());
+  }
+
+  public AbstractNodeWithParent(@NotNull String name, @NotNull AbstractNode parent, @NotNull TreeManager treeManager) {
+    super(treeManager);
     myName = name;
     //noinspection unchecked
     myParent = (AbstractNode<AbstractNodeWithParent<T>>) parent;
@@ -12,6 +12,10 @@ public abstract class AbstractSuiteNode<T extends AbstractNodeWithParent> extend
     super(name, parent);
   }
 
+  public AbstractSuiteNode(@NotNull String name, @NotNull AbstractNode parent, @NotNull TreeManager treeManager) {
+    super(name, parent, treeManager);
+  }
+
   @NotNull
   @Override
   public TCMessage createStartedMessage() {
@@ -12,8 +12,11 @@ public class ConfigNode extends AbstractSuiteNode<BrowserNode> {
   private final File myConfigFile;
   private String myAbsoluteBasePath;
 
-  public ConfigNode(@NotNull String name, @NotNull File configFile, @NotNull RootNode parent) {
-    super(name, parent);
+  public ConfigNode(@NotNull String name,
+                    @NotNull File configFile,
+                    @NotNull RootNode parent,
+                    @NotNull TreeManager treeManager) {
+    super(name, parent, treeManager);
     myConfigFile = configFile;
   }
 
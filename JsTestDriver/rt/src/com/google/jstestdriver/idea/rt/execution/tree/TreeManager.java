@@ -16,6 +16,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Sergey Simonchik
@@ -26,21 +27,41 @@ public class TreeManager {
   private final PrintStream myOutStream;
   private final PrintStream myErrStream;
   private final RootNode myRootNode;
+  private final AtomicInteger myNextNodeId;
   private ConfigNode myCurrentJstdConfigNode;
-  private int myNextNodeId = 1;
 
   @SuppressWarnings("UseOfSystemOutOrSystemErr")
   public TreeManager(@Nullable File runAllConfigsInDirectory) {
     myRunAllConfigsInDirectory = runAllConfigsInDirectory;
     myOutStream = System.out;
     myErrStream = System.err;
+    myNextNodeId = new AtomicInteger(1);
     myRootNode = new RootNode(this);
   }
 
+  private TreeManager(@NotNull TreeManager rootTreeManager, @NotNull PrintStream outStream, @NotNull PrintStream errStream) {
+    myRunAllConfigsInDirectory = rootTreeManager.myRunAllConfigsInDirectory;
+    myOutStream = outStream;
+    myErrStream = errStream;
+    myNextNodeId = rootTreeManager.myNextNodeId;
+    myRootNode = rootTreeManager.myRootNode;
+  }
+
+  /**
+   * Creates a tree manager for running a single jstd config concurrently with others: it shares the tree
+   * and node ids with this manager, but has its own current config and prints messages to the given streams.
+   */
+  @NotNull
+  public TreeManager createConfigTreeManager(@NotNull PrintStream outStream, @NotNull PrintStream errStream) {
+    return new TreeManager(this, outStream, errStream);
+  }
+
   public void onJstdConfigRunningStarted(@NotNull File jstdConfigFile) {
     String jstdConfigNodeDisplayName = buildJstdConfigDisplayName(jstdConfigFile);
-    myCurrentJstdConfigNode = new ConfigNode(jstdConfigNodeDisplayName, jstdConfigFile, myRootNode);
-    myRootNode.addChild(myCurrentJstdConfigNode);
+    myCurrentJstdConfigNode = new ConfigNode(jstdConfigNodeDisplayName, jstdConfigFile, myRootNode, this);
+    synchronized (myRootNode) {
+      myRootNode.addChild(myCurrentJstdConfigNode);
+    }
   }
 
   public void setCurrentBasePath(@NotNull String absoluteBasePath) {
@@ -172,6 +193,11 @@ public class TreeManager {
     return myOutStream;
   }
 
+  @NotNull
+  public PrintStream getSystemErrStream() {
+    return myErrStream;
+  }
+
   public void onJstdConfigRunningFinished(@Nullable String errorMessage, @NotNull TestFileScope testFileScope) {
     ConfigNode configNode = getCurrentConfigNode();
     for (BrowserNode browserNode : configNode.getChildren()) {
@@ -222,7 +248,7 @@ public class TreeManager {
   }
 
   public int getNextNodeId() {
-    return myNextNodeId++;
+    return myNextNodeId.getAndIncrement();
   }
 
   public void printTCMessage(@NotNull TCMessage message) {
@@ -27,7 +27,6 @@ import com.intellij.psi.PsiFile;
 import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
-import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -169,8 +168,7 @@ public class JstdCoverageEngine extends CoverageEngine {
         for (Map.Entry<String, ClassData> classDataEntry : classDataMap.entrySet()) {
           String fileName = classDataEntry.getKey();
           ClassData classData = classDataEntry.getValue();
-          List<CoverageReport.LineHits> lineHitsList = convertClassDataToLineHits(classData);
-          coverageReport.mergeFileReport(fileName, lineHitsList);
+          coverageReport.mergeFileReport(fileName, convertClassDataToLineHits(classData));
         }
       }
     }
@@ -212,20 +210,16 @@ public class JstdCoverageEngine extends CoverageEngine {
     return name.toString();
   }
 
-  private static List<CoverageReport.LineHits> convertClassDataToLineHits(@NotNull ClassData classData) {
+  private static CoverageReport.LineHits convertClassDataToLineHits(@NotNull ClassData classData) {
     int lineCount = classData.getLines().length;
-    List<CoverageReport.LineHits> lineHitsList = ContainerUtil.newArrayListWithCapacity(lineCount);
+    CoverageReport.LineHits lineHits = new CoverageReport.LineHits(lineCount);
     for (int lineInd = 0; lineInd < lineCount; lineInd++) {
       LineData lineData = classData.getLineData(lineInd);
       if (lineData != null) {
-        CoverageReport.LineHits lineHits = new CoverageReport.LineHits(
-          lineData.getLineNumber(),
-          lineData.getHits()
-        );
-        lineHitsList.add(lineHits);
+        lineHits.addHits(lineData.getLineNumber(), lineData.getHits());
       }
     }
-    return lineHitsList;
+    return lineHits;
   }
 
   @Override
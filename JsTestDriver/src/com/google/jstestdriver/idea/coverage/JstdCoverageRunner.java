@@ -15,7 +15,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,20 +39,16 @@ public class JstdCoverageRunner extends CoverageRunner {
   private static ProjectData readProjectData(@NotNull File dataFile) throws IOException {
     CoverageReport report = CoverageSerializationUtils.readLCOV(dataFile);
     ProjectData projectData = new ProjectData();
-    for (Map.Entry<String, List<CoverageReport.LineHits>> entry : report.getInfo().entrySet()) {
+    for (Map.Entry<String, CoverageReport.LineHits> entry : report.getInfo().entrySet()) {
       String filePath = SimpleCoverageAnnotator.getFilePath(entry.getKey());
       ClassData classData = projectData.getOrCreateClassData(filePath);
-      int max = 0;
-      List<CoverageReport.LineHits> lineHitsList = entry.getValue();
-      if (lineHitsList.size() > 0) {
-        CoverageReport.LineHits lastLineHits = lineHitsList.get(lineHitsList.size() - 1);
-        max = lastLineHits.getLineNumber();
-      }
-      LineData[] lines = new LineData[max + 1];
-      for (CoverageReport.LineHits lineHits : lineHitsList) {
-        LineData lineData = new LineData(lineHits.getLineNumber(), null);
-        lineData.setHits(lineHits.getHits());
-        lines[lineHits.getLineNumber()] = lineData;
+      CoverageReport.LineHits lineHits = entry.getValue();
+      LineData[] lines = new LineData[lineHits.getMaxLineNumber() + 1];
+      for (int i = 0; i < lineHits.getSize(); i++) {
+        int lineNumber = lineHits.getLineNumber(i);
+        LineData lineData = new LineData(lineNumber, null);
+        lineData.setHits(lineHits.getHits(i));
+        lines[lineNumber] = lineData;
       }
       classData.setLines(lines);
     }
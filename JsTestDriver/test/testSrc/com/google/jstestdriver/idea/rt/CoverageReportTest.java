@@ -0,0 +1,75 @@
+package com.google.jstestdriver.idea.rt;
+
+import com.google.jstestdriver.idea.rt.coverage.CoverageReport;
+import com.google.jstestdriver.idea.rt.coverage.CoverageSerializationUtils;
+import com.google.jstestdriver.idea.rt.util.PathConverter;
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class CoverageReportTest extends TestCase {
+
+  public void testUnorderedHits() throws Exception {
+    CoverageReport.LineHits lineHits = new CoverageReport.LineHits(1);
+    lineHits.addHits(5, 1);
+    lineHits.addHits(2, 3);
+    lineHits.addHits(5, 2);
+    lineHits.addHits(7, 0);
+    lineHits.addHits(2, 1);
+    assertHits(lineHits, 2, 4, 5, 3, 7, 0);
+  }
+
+  public void testMerge() throws Exception {
+    CoverageReport.LineHits a = createHits(1, 1, 3, 1, 5, 1, 9, 2);
+    CoverageReport.LineHits b = createHits(2, 1, 3, 4, 9, 1, 12, 1);
+    a.merge(b);
+    assertHits(a, 1, 1, 2, 1, 3, 5, 5, 1, 9, 3, 12, 1);
+    assertEquals(12, a.getMaxLineNumber());
+
+    a.merge(createHits(3, 1));
+    assertHits(a, 1, 1, 2, 1, 3, 6, 5, 1, 9, 3, 12, 1);
+
+    CoverageReport.LineHits empty = new CoverageReport.LineHits();
+    empty.merge(b);
+    assertHits(empty, 2, 1, 3, 4, 9, 1, 12, 1);
+  }
+
+  public void testReadMergedRecords() throws Exception {
+    File file = FileUtil.createTempFile("coverage", ".dat");
+    try {
+      FileUtil.writeToFile(file, "SF:/src/a.js\nDA:1,1\nDA:3,2\nend_of_record\n" +
+                                 "SF:/src/b.js\nDA:2,1\nend_of_record\n" +
+                                 "SF:/src/a.js\nDA:2,1\nDA:3,1\nDA:4,0\nend_of_record\n");
+      CoverageReport report = CoverageSerializationUtils.readLCOV(file);
+      assertEquals(2, report.getInfo().size());
+      assertHits(report.getInfo().get(PathConverter.getNormalizedPath(new File("/src/a.js"))), 1, 1, 2, 1, 3, 3, 4, 0);
+      assertHits(report.getInfo().get(PathConverter.getNormalizedPath(new File("/src/b.js"))), 2, 1);
+
+      CoverageSerializationUtils.writeLCOV(report, file);
+      CoverageReport reread = CoverageSerializationUtils.readLCOV(file);
+      reread.mergeReport(report);
+      assertHits(reread.getInfo().get(PathConverter.getNormalizedPath(new File("/src/a.js"))), 1, 2, 2, 2, 3, 6, 4, 0);
+    }
+    finally {
+      FileUtil.delete(file);
+    }
+  }
+
+  private static CoverageReport.LineHits createHits(int... lineAndHits) {
+    CoverageReport.LineHits lineHits = new CoverageReport.LineHits();
+    for (int i = 0; i < lineAndHits.length; i += 2) {
+      lineHits.addHits(lineAndHits[i], lineAndHits[i + 1]);
+    }
+    return lineHits;
+  }
+
+  private static void assertHits(CoverageReport.LineHits lineHits, int... expectedLineAndHits) {
+    assertNotNull(lineHits);
+    assertEquals(expectedLineAndHits.length / 2, lineHits.getSize());
+    for (int i = 0; i < lineHits.getSize(); i++) {
+      assertEquals(expectedLineAndHits[2 * i], lineHits.getLineNumber(i));
+      assertEquals(expectedLineAndHits[2 * i + 1], lineHits.getHits(i));
+    }
+  }
+}
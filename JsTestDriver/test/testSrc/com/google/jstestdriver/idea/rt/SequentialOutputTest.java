@@ -0,0 +1,62 @@
+package com.google.jstestdriver.idea.rt;
+
+import com.google.jstestdriver.idea.rt.execution.SequentialOutput;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class SequentialOutputTest extends TestCase {
+
+  private ByteArrayOutputStream myOut;
+  private ByteArrayOutputStream myErr;
+  private SequentialOutput myOutput;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myOut = new ByteArrayOutputStream();
+    myErr = new ByteArrayOutputStream();
+    myOutput = new SequentialOutput(new PrintStream(myOut, true), new PrintStream(myErr, true), 3);
+  }
+
+  public void testFirstChannelIsPrintedRightAway() throws Exception {
+    myOutput.getChannel(0).getOutStream().print("first\n");
+    myOutput.getChannel(0).getErrStream().print("error\n");
+    assertEquals("first\n", myOut.toString());
+    assertEquals("error\n", myErr.toString());
+  }
+
+  public void testNextChannelsAreBufferedUntilPreviousFinish() throws Exception {
+    SequentialOutput.Channel first = myOutput.getChannel(0);
+    SequentialOutput.Channel second = myOutput.getChannel(1);
+    SequentialOutput.Channel third = myOutput.getChannel(2);
+
+    third.getOutStream().print("3a\n");
+    third.finish();
+    second.getOutStream().print("2a\n");
+    first.getOutStream().print("1a\n");
+    assertEquals("1a\n", myOut.toString());
+
+    first.getOutStream().print("1b\n");
+    first.finish();
+    assertEquals("1a\n1b\n2a\n", myOut.toString());
+
+    second.getOutStream().print("2b\n");
+    assertEquals("1a\n1b\n2a\n2b\n", myOut.toString());
+    second.finish();
+    assertEquals("1a\n1b\n2a\n2b\n3a\n", myOut.toString());
+  }
+
+  public void testErrorsKeepTheirStream() throws Exception {
+    SequentialOutput.Channel second = myOutput.getChannel(1);
+    second.getOutStream().print("out\n");
+    second.getErrStream().print("err\n");
+    assertEquals("", myOut.toString());
+    assertEquals("", myErr.toString());
+
+    myOutput.getChannel(0).finish();
+    assertEquals("out\n", myOut.toString());
+    assertEquals("err\n", myErr.toString());
+  }
+}
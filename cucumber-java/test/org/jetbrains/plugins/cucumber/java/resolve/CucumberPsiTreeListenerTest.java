@@ -19,6 +19,21 @@ public class CucumberPsiTreeListenerTest extends BaseCucumberJavaResolveTest {
     doTestDeletion("treeListener", "my change sh<caret>ould be 4", "my_change_should_be_");
   }
 
+  public void testEditingOfStepDefinition() throws Exception {
+    init("treeListener");
+
+    final String step = "my change sh<caret>ould be 4";
+    checkReference(step, "my_change_should_be_");
+
+    replaceStepDefinition("my_change_should_be_", "@cucumber.api.java.en.Then(\"^my change should be (\\\\d+)$\")\npublic void my_change_is(int change) {}");
+    CucumberStepsIndex.getInstance(getProject()).flush();
+    checkReference(step, "my_change_is");
+
+    replaceStepDefinition("my_change_is", "@cucumber.api.java.en.Then(\"^my change should be (\\\\d+) cents$\")\npublic void my_change_is(int change) {}");
+    CucumberStepsIndex.getInstance(getProject()).flush();
+    checkReference(step, null);
+  }
+
   private PsiClass getStepDefClass() {
     final PsiFile stepDefFile = findPsiFileInTempDirBy("ShoppingStepdefs.java");
     final PsiJavaFile javaFile = (PsiJavaFile)stepDefFile;
@@ -65,6 +80,24 @@ public class CucumberPsiTreeListenerTest extends BaseCucumberJavaResolveTest {
     }.execute();
   }
 
+  private void replaceStepDefinition(@NotNull final String stepDefName, @NotNull final String stepDef) {
+    final PsiClass psiClass = getStepDefClass();
+    final PsiFile psiFile = psiClass.getContainingFile();
+
+    new WriteCommandAction(getProject(), psiFile) {
+      @Override
+      protected void run(@NotNull Result result) throws Throwable {
+        final PsiElementFactory factory = JavaPsiFacade.getInstance(getProject()).getElementFactory();
+        for (PsiMethod method : psiClass.getMethods()) {
+          if (method.getName().equals(stepDefName)) {
+            method.replace(factory.createMethodFromText(stepDef, psiClass));
+            break;
+          }
+        }
+      }
+    }.execute();
+  }
+
   private void doTestCreation(@NotNull final String folder, @NotNull final String step, @NotNull final String stepDefinitionContent)
     throws Exception {
     init(folder);
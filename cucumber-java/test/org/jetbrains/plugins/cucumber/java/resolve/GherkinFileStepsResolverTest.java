@@ -0,0 +1,77 @@
+package org.jetbrains.plugins.cucumber.java.resolve;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.plugins.cucumber.psi.GherkinFile;
+import org.jetbrains.plugins.cucumber.psi.GherkinStep;
+import org.jetbrains.plugins.cucumber.steps.GherkinFileStepsResolver;
+import org.jetbrains.plugins.cucumber.steps.GherkinFileStepsResolver.StepResolveResult;
+
+import java.util.Map;
+
+public class GherkinFileStepsResolverTest extends BaseCucumberJavaResolveTest {
+  private static final int STEPS_COUNT = 40;
+
+  public void testScenarioOutlineExampleRows() throws Exception {
+    init("fileStepsResolver");
+
+    checkReference("I p<caret>ay <amount>", "i_pay");
+    checkReference("my change sh<caret>ould be <change>", "my_change_should_be_");
+    checkReference("I p<caret>ay <sum>", null);
+  }
+
+  public void testParallelResolve() throws Exception {
+    init("fileStepsResolver");
+    final GherkinFile file = createLargeFeature();
+
+    final Map<GherkinStep, StepResolveResult> results = GherkinFileStepsResolver.resolveFile(file, true);
+    assertEquals(STEPS_COUNT, results.size());
+    for (Map.Entry<GherkinStep, StepResolveResult> entry : results.entrySet()) {
+      final StepResolveResult result = entry.getValue();
+      if (entry.getKey().getStepName().startsWith("I pay")) {
+        assertSize(1, result.getElements());
+        assertEquals("i_pay", ((PsiMethod)result.getElements().get(0)).getName());
+        assertSize(1, result.getDefinitions());
+      }
+      else {
+        assertEmpty(result.getElements());
+        assertEmpty(result.getDefinitions());
+      }
+    }
+    assertSame(results, GherkinFileStepsResolver.resolveFile(file, false));
+  }
+
+  public void testResultKeptOnChangeInsideMethodBody() throws Exception {
+    init("fileStepsResolver");
+    final PsiFile calculator = myFixture.addFileToProject("Calculator.java", "public class Calculator {\n  void add() {\n  }\n}");
+    final GherkinFile file = createLargeFeature();
+    final Map<GherkinStep, StepResolveResult> results = GherkinFileStepsResolver.resolveFile(file, false);
+
+    insert(calculator, "void add() {\n", "    int sum = 1;\n");
+    assertSame(results, GherkinFileStepsResolver.resolveFile(file, false));
+
+    final PsiFile stepDefinitions = findPsiFileInTempDirBy("ShoppingStepdefs.java");
+    assertNotNull(stepDefinitions);
+    insert(stepDefinitions, "public void i_pay(int amount) {\n", "    int sum = amount;\n");
+    assertNotSame(results, GherkinFileStepsResolver.resolveFile(file, false));
+  }
+
+  private GherkinFile createLargeFeature() {
+    final StringBuilder text = new StringBuilder("Feature: Shopping\n\n  Scenario: Pay many times\n");
+    for (int i = 0; i < STEPS_COUNT; i++) {
+      text.append(i % 2 == 0 ? "    When I pay " : "    When I sell ").append(i).append('\n');
+    }
+    return (GherkinFile)myFixture.addFileToProject("large.feature", text.toString());
+  }
+
+  private void insert(PsiFile file, String after, String text) {
+    final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    final int offset = document.getText().indexOf(after) + after.length();
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(offset, text));
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+  }
+}
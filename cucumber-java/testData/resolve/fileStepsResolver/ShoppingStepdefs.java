@@ -0,0 +1,12 @@
+import cucumber.api.java.en.Then;
+import cucumber.api.java.en.When;
+
+public class ShoppingStepdefs {
+  @When("^I pay (\\d+)$")
+  public void i_pay(int amount) {
+  }
+
+  @Then("^my change should be (\\d+)$")
+  public void my_change_should_be_(int change) {
+  }
+}
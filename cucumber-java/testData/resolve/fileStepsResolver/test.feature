@@ -0,0 +1,16 @@
+Feature: Shopping
+
+  Scenario Outline: Pay with examples
+    When I pay <amount>
+    Then my change should be <change>
+
+    Examples:
+      | amount | change |
+      | 25     | 4      |
+
+  Scenario Outline: Pay with wrong examples
+    When I pay <sum>
+
+    Examples:
+      | sum  |
+      | cash |
@@ -26,6 +26,6 @@ public class GherkinLiveTemplateContextType extends TemplateContextType {
   }
 
   public SyntaxHighlighter createHighlighter() {
-    return new GherkinSyntaxHighlighter(new PlainGherkinKeywordProvider());
+    return new GherkinSyntaxHighlighter(PlainGherkinKeywordProvider.INSTANCE);
   }
 }
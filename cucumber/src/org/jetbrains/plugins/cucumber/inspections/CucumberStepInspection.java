@@ -4,15 +4,18 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.codeInspection.ex.UnfairLocalInspectionTool;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.plugins.cucumber.CucumberBundle;
 import org.jetbrains.plugins.cucumber.psi.GherkinElementVisitor;
+import org.jetbrains.plugins.cucumber.psi.GherkinFile;
 import org.jetbrains.plugins.cucumber.psi.GherkinStep;
 import org.jetbrains.plugins.cucumber.psi.GherkinStepsHolder;
 import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
 import org.jetbrains.plugins.cucumber.steps.CucumberStepsIndex;
+import org.jetbrains.plugins.cucumber.steps.GherkinFileStepsResolver;
 import org.jetbrains.plugins.cucumber.steps.reference.CucumberStepReference;
 
 /**
@@ -38,6 +41,12 @@ public class CucumberStepInspection extends GherkinInspection implements UnfairL
   @NotNull
   @Override
   public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+    final PsiFile file = holder.getFile();
+    if (!isOnTheFly && file instanceof GherkinFile && file.isPhysical()) {
+      // batch "Inspect Code": resolve all steps of the file at once, references below will take results from cache
+      GherkinFileStepsResolver.resolveFile((GherkinFile)file, true);
+    }
+
     return new GherkinElementVisitor() {
       @Override
       public void visitStep(GherkinStep step) {
@@ -88,7 +88,7 @@ public class GherkinColorsPage implements ColorSettingsPage {
 
   @NotNull
   public SyntaxHighlighter getHighlighter() {
-    return new GherkinSyntaxHighlighter(new PlainGherkinKeywordProvider());
+    return new GherkinSyntaxHighlighter(PlainGherkinKeywordProvider.INSTANCE);
   }
 
   @NotNull
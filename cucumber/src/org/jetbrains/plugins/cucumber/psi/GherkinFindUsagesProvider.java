@@ -12,7 +12,7 @@ import org.jetbrains.plugins.cucumber.CucumberBundle;
 public class GherkinFindUsagesProvider implements FindUsagesProvider {
   @Override
   public WordsScanner getWordsScanner() {
-    return new DefaultWordsScanner(new GherkinLexer(new PlainGherkinKeywordProvider()), TokenSet.EMPTY, TokenSet.EMPTY, TokenSet.EMPTY);
+    return new DefaultWordsScanner(new GherkinLexer(PlainGherkinKeywordProvider.INSTANCE), TokenSet.EMPTY, TokenSet.EMPTY, TokenSet.EMPTY);
   }
 
   @Override
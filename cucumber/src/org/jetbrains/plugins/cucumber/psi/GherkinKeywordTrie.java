@@ -0,0 +1,148 @@
+package org.jetbrains.plugins.cucumber.psi;
+
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Prefix tree of all keywords of one language. Lets {@link GherkinLexer} find the longest keyword at a position
+ * in one pass over the text instead of trying every keyword of the language.
+ * Tries are immutable, built once per keyword provider and language and shared by all lexer instances.
+ * Any text typed after {@code # language:} is a language for the lexer, so at most {@link #MAX_CACHED_LANGUAGES}
+ * tries are kept per provider.
+ */
+public final class GherkinKeywordTrie {
+  private static final int MAX_CACHED_LANGUAGES = 64;
+  private static final ConcurrentMap<GherkinKeywordProvider, ConcurrentMap<String, GherkinKeywordTrie>> ourTries =
+    ContainerUtil.createConcurrentWeakMap();
+
+  private final Node myRoot = new Node();
+
+  @NotNull
+  public static GherkinKeywordTrie getInstance(@NotNull final GherkinKeywordProvider provider, @NotNull final String language) {
+    final ConcurrentMap<String, GherkinKeywordTrie> tries = ourTries.computeIfAbsent(provider, p -> ContainerUtil.newConcurrentMap());
+    GherkinKeywordTrie trie = tries.get(language);
+    if (trie == null) {
+      if (tries.size() >= MAX_CACHED_LANGUAGES) {
+        tries.clear();
+      }
+      trie = ContainerUtil.concurrentMapPutIfAbsent(tries, language, new GherkinKeywordTrie(provider, language));
+    }
+    return trie;
+  }
+
+  private GherkinKeywordTrie(@NotNull final GherkinKeywordProvider provider, @NotNull final String language) {
+    for (String keyword : provider.getAllKeywords(language)) {
+      if (keyword.isEmpty()) continue;
+      Node node = myRoot;
+      for (int i = 0; i < keyword.length(); i++) {
+        node = node.getOrCreateChild(keyword.charAt(i));
+      }
+      node.myKeyword = new Keyword(keyword, provider.getTokenType(language, keyword), provider.isSpaceAfterKeyword(language, keyword));
+    }
+    myRoot.linkShorterKeywords(null);
+  }
+
+  /**
+   * Finds the longest keyword starting at {@code start}. Keywords which require a space after them are skipped
+   * if they are immediately followed by a letter or a digit.
+   *
+   * @return matched keyword or null if there is no keyword at the position
+   */
+  @Nullable
+  public Keyword findKeyword(@NotNull final CharSequence buffer, final int start, final int end) {
+    Node node = myRoot;
+    Node longest = null;
+    for (int i = start; i < end; i++) {
+      node = node.getChild(buffer.charAt(i));
+      if (node == null) break;
+      if (node.myKeyword != null) {
+        longest = node;
+      }
+    }
+
+    while (longest != null) {
+      final Keyword keyword = longest.myKeyword;
+      final int keywordEnd = start + keyword.getLength();
+      if (!keyword.mySpaceAfter || keywordEnd >= end || !Character.isLetterOrDigit(buffer.charAt(keywordEnd))) {
+        return keyword;
+      }
+      longest = longest.myShorterKeyword;
+    }
+    return null;
+  }
+
+  public static final class Keyword {
+    private final String myText;
+    private final IElementType myTokenType;
+    private final boolean mySpaceAfter;
+
+    private Keyword(@NotNull String text, IElementType tokenType, boolean spaceAfter) {
+      myText = text;
+      myTokenType = tokenType;
+      mySpaceAfter = spaceAfter;
+    }
+
+    @NotNull
+    public String getText() {
+      return myText;
+    }
+
+    public int getLength() {
+      return myText.length();
+    }
+
+    public IElementType getTokenType() {
+      return myTokenType;
+    }
+  }
+
+  private static final class Node {
+    private char[] myChars = ArrayUtil.EMPTY_CHAR_ARRAY;
+    private Node[] myChildren = new Node[0];
+    private Keyword myKeyword;
+    // the nearest ancestor which ends a keyword, i.e. the next shorter keyword on the same path
+    private Node myShorterKeyword;
+
+    @Nullable
+    private Node getChild(char c) {
+      final int index = Arrays.binarySearch(myChars, c);
+      return index >= 0 ? myChildren[index] : null;
+    }
+
+    @NotNull
+    private Node getOrCreateChild(char c) {
+      int index = Arrays.binarySearch(myChars, c);
+      if (index >= 0) {
+        return myChildren[index];
+      }
+
+      index = -index - 1;
+      final Node child = new Node();
+      final char[] chars = new char[myChars.length + 1];
+      final Node[] children = new Node[myChildren.length + 1];
+      System.arraycopy(myChars, 0, chars, 0, index);
+      System.arraycopy(myChildren, 0, children, 0, index);
+      chars[index] = c;
+      children[index] = child;
+      System.arraycopy(myChars, index, chars, index + 1, myChars.length - index);
+      System.arraycopy(myChildren, index, children, index + 1, myChildren.length - index);
+      myChars = chars;
+      myChildren = children;
+      return child;
+    }
+
+    private void linkShorterKeywords(@Nullable Node shorterKeyword) {
+      myShorterKeyword = shorterKeyword;
+      final Node nearest = myKeyword != null ? this : shorterKeyword;
+      for (Node child : myChildren) {
+        child.linkShorterKeywords(nearest);
+      }
+    }
+  }
+}
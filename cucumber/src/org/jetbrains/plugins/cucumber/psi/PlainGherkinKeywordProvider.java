@@ -14,6 +14,11 @@ public class PlainGherkinKeywordProvider implements GherkinKeywordProvider {
   public static Map<String, IElementType> DEFAULT_KEYWORDS = new HashMap<>();
   private static final Set<String> ourKeywordsWithNoSpaceAfter = new HashSet<>();
 
+  /**
+   * Shared instance, so that keyword tries built for it are reused by all lexers
+   */
+  public static final PlainGherkinKeywordProvider INSTANCE = new PlainGherkinKeywordProvider();
+
   static {
     DEFAULT_KEYWORD_TABLE.put(GherkinTokenTypes.FEATURE_KEYWORD, "Feature");
     DEFAULT_KEYWORD_TABLE.put(GherkinTokenTypes.BACKGROUND_KEYWORD, "Background");
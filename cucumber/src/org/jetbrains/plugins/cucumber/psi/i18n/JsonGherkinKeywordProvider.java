@@ -34,7 +34,7 @@ public class JsonGherkinKeywordProvider implements GherkinKeywordProvider {
       }
 
       if (myKeywordProvider == null) {
-        myKeywordProvider = new PlainGherkinKeywordProvider();
+        myKeywordProvider = PlainGherkinKeywordProvider.INSTANCE;
       }
     }
     return myKeywordProvider;
@@ -21,9 +21,15 @@ public abstract class AbstractCucumberExtension implements CucumberJvmExtensionP
       return Collections.emptyList();
     }
 
-    final Set<String> stepVariants = getAllPossibleStepVariants(element);
+    return resolveStep(element, loadStepsFor(element.getContainingFile(), module));
+  }
 
-    final List<AbstractStepDefinition> stepDefinitions = loadStepsFor(element.getContainingFile(), module);
+  /**
+   * Resolves step against already loaded step definitions, so several steps of one file can share a single
+   * {@link #loadStepsFor(com.intellij.psi.PsiFile, Module)} call.
+   */
+  protected List<PsiElement> resolveStep(@NotNull final PsiElement element, @NotNull final List<AbstractStepDefinition> stepDefinitions) {
+    final Set<String> stepVariants = getAllPossibleStepVariants(element);
     final List<PsiElement> result = new ArrayList<>();
 
     for (final AbstractStepDefinition stepDefinition : stepDefinitions) {
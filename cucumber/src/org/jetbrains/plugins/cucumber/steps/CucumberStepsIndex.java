@@ -112,9 +112,22 @@ public class CucumberStepsIndex {
       return Collections.emptyList();
     }
 
+    return findStepDefinitions(step, loadStepsFor(featureFile, module));
+  }
+
+  /**
+   * Same as {@link #findStepDefinitions(com.intellij.psi.PsiFile, org.jetbrains.plugins.cucumber.psi.GherkinStep)}
+   * but matches step against already loaded step definitions.
+   *
+   * @param step     step itself
+   * @param allSteps step definitions available from the step's feature file
+   * @return definitions
+   */
+  @NotNull
+  public static Collection<AbstractStepDefinition> findStepDefinitions(@NotNull final GherkinStep step,
+                                                                       @NotNull final List<AbstractStepDefinition> allSteps) {
     Map<Class<? extends AbstractStepDefinition>, AbstractStepDefinition> definitionsByClass =
       new java.util.HashMap<>();
-    List<AbstractStepDefinition> allSteps = loadStepsFor(featureFile, module);
     for (AbstractStepDefinition stepDefinition : allSteps) {
       if (stepDefinition.matches(step.getSubstitutedName()) && stepDefinition.supportsStep(step)) {
         final Pattern currentLongestPattern = getPatternByDefinition(definitionsByClass.get(stepDefinition.getClass()));
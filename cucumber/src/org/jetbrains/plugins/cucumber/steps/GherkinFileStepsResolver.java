@@ -0,0 +1,215 @@
+package org.jetbrains.plugins.cucumber.steps;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicatorProvider;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.cucumber.CucumberJvmExtensionPoint;
+import org.jetbrains.plugins.cucumber.psi.GherkinFile;
+import org.jetbrains.plugins.cucumber.psi.GherkinStep;
+
+import java.util.*;
+
+/**
+ * Resolves all steps of a feature file in one pass against a single snapshot of step definitions
+ * (one {@link CucumberJvmExtensionPoint#loadStepsFor} call per extension instead of one per step).
+ * Results are kept in the file until the feature file, a file with the loaded step definitions or anything outside
+ * of code blocks is changed, and are shared by
+ * {@link org.jetbrains.plugins.cucumber.steps.reference.CucumberStepReference} and the undefined step inspection.
+ * Typing inside of method bodies of unrelated files (e.g. production code) keeps the results, so a step definition
+ * created inside of a method body of a file without step definitions (a Java 8 lambda step) is found after the next change
+ * outside of code blocks.
+ */
+public class GherkinFileStepsResolver {
+  private static final Key<FileResolveResult> RESOLVE_RESULT_KEY = Key.create("cucumber.file.steps.resolve.result");
+
+  /**
+   * Feature files with fewer steps are resolved on the calling thread even in parallel mode
+   */
+  private static final int PARALLEL_THRESHOLD = 32;
+
+  private GherkinFileStepsResolver() {
+  }
+
+  public static class StepResolveResult {
+    private final List<PsiElement> myElements;
+    private final Collection<AbstractStepDefinition> myDefinitions;
+
+    private StepResolveResult(@NotNull List<PsiElement> elements, @NotNull Collection<AbstractStepDefinition> definitions) {
+      myElements = elements;
+      myDefinitions = definitions;
+    }
+
+    /**
+     * @return elements the step is resolved to, as returned by {@link CucumberJvmExtensionPoint#resolveStep(PsiElement)}
+     */
+    @NotNull
+    public List<PsiElement> getElements() {
+      return myElements;
+    }
+
+    /**
+     * @return definitions as returned by {@link CucumberStepsIndex#findStepDefinitions(PsiFile, GherkinStep)}
+     */
+    @NotNull
+    public Collection<AbstractStepDefinition> getDefinitions() {
+      return myDefinitions;
+    }
+  }
+
+  private static class FileResolveResult {
+    private final long myOutOfCodeBlockModificationCount;
+    private final long myFileModificationStamp;
+    private final Map<PsiFile, Long> myDefinitionFileStamps;
+    private final Map<GherkinStep, StepResolveResult> myResults;
+
+    private FileResolveResult(long outOfCodeBlockModificationCount,
+                              long fileModificationStamp,
+                              @NotNull Map<PsiFile, Long> definitionFileStamps,
+                              @NotNull Map<GherkinStep, StepResolveResult> results) {
+      myOutOfCodeBlockModificationCount = outOfCodeBlockModificationCount;
+      myFileModificationStamp = fileModificationStamp;
+      myDefinitionFileStamps = definitionFileStamps;
+      myResults = results;
+    }
+
+    private boolean isUpToDate(long outOfCodeBlockModificationCount, @NotNull GherkinFile file) {
+      if (myOutOfCodeBlockModificationCount != outOfCodeBlockModificationCount ||
+          myFileModificationStamp != file.getModificationStamp()) {
+        return false;
+      }
+      for (Map.Entry<PsiFile, Long> entry : myDefinitionFileStamps.entrySet()) {
+        final PsiFile definitionFile = entry.getKey();
+        if (!definitionFile.isValid() || definitionFile.getModificationStamp() != entry.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * @return cached resolve result of the step or null if the step does not belong to a physical feature file
+   */
+  @Nullable
+  public static StepResolveResult getResolveResult(@NotNull final GherkinStep step) {
+    final PsiFile file = step.getContainingFile();
+    if (!(file instanceof GherkinFile) || !file.isPhysical()) {
+      return null;
+    }
+    return resolveFile((GherkinFile)file, false).get(step);
+  }
+
+  /**
+   * Resolves all steps of the file (or takes them from cache if nothing was changed since the last resolve).
+   *
+   * @param parallel resolve steps concurrently, should be used by batch inspections only
+   *                 because on-the-fly highlighting is already parallelized by files
+   */
+  @NotNull
+  public static Map<GherkinStep, StepResolveResult> resolveFile(@NotNull final GherkinFile file, final boolean parallel) {
+    final long modificationCount = PsiManager.getInstance(file.getProject()).getModificationTracker().getOutOfCodeBlockModificationCount();
+    final FileResolveResult cached = file.getUserData(RESOLVE_RESULT_KEY);
+    if (cached != null && cached.isUpToDate(modificationCount, file)) {
+      return cached.myResults;
+    }
+
+    final long fileModificationStamp = file.getModificationStamp();
+    final FileResolveResult result = doResolveFile(file, parallel, modificationCount, fileModificationStamp);
+    file.putUserData(RESOLVE_RESULT_KEY, result);
+    return result.myResults;
+  }
+
+  @NotNull
+  private static FileResolveResult doResolveFile(@NotNull final GherkinFile file,
+                                                 final boolean parallel,
+                                                 final long outOfCodeBlockModificationCount,
+                                                 final long fileModificationStamp) {
+    final List<GherkinStep> steps = new ArrayList<>(PsiTreeUtil.findChildrenOfType(file, GherkinStep.class));
+    if (steps.isEmpty()) {
+      return new FileResolveResult(outOfCodeBlockModificationCount, fileModificationStamp, Collections.emptyMap(),
+                                   Collections.emptyMap());
+    }
+
+    final Module module = ModuleUtilCore.findModuleForPsiElement(file);
+    final CucumberJvmExtensionPoint[] extensions = Extensions.getExtensions(CucumberJvmExtensionPoint.EP_NAME);
+    final Map<CucumberJvmExtensionPoint, List<AbstractStepDefinition>> stepDefinitions = new HashMap<>();
+    final List<AbstractStepDefinition> allStepDefinitions = new ArrayList<>();
+    if (module != null) {
+      for (CucumberJvmExtensionPoint extension : extensions) {
+        stepDefinitions.put(extension, extension.loadStepsFor(file, module));
+      }
+      // the same order CucumberStepsIndex uses to find definitions
+      for (CucumberJvmExtensionPoint extension : CucumberStepsIndex.getInstance(file.getProject()).getExtensionMap().values()) {
+        final List<AbstractStepDefinition> definitions = stepDefinitions.get(extension);
+        if (definitions != null) {
+          allStepDefinitions.addAll(definitions);
+        }
+      }
+    }
+
+    final Map<PsiFile, Long> definitionFileStamps = new HashMap<>();
+    for (AbstractStepDefinition definition : allStepDefinitions) {
+      final PsiElement element = definition.getElement();
+      final PsiFile definitionFile = element != null ? element.getContainingFile() : null;
+      if (definitionFile != null) {
+        definitionFileStamps.put(definitionFile, definitionFile.getModificationStamp());
+      }
+    }
+
+    final Map<GherkinStep, StepResolveResult> results = ContainerUtil.newConcurrentMap();
+    if (parallel && steps.size() >= PARALLEL_THRESHOLD) {
+      ProgressIndicator indicator = ProgressIndicatorProvider.getGlobalProgressIndicator();
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(steps, indicator, false, step -> {
+        results.put(step, resolveStep(step, extensions, stepDefinitions, allStepDefinitions));
+        return true;
+      });
+    }
+    else {
+      for (GherkinStep step : steps) {
+        ProgressManager.checkCanceled();
+        results.put(step, resolveStep(step, extensions, stepDefinitions, allStepDefinitions));
+      }
+    }
+    return new FileResolveResult(outOfCodeBlockModificationCount, fileModificationStamp, definitionFileStamps, results);
+  }
+
+  @NotNull
+  private static StepResolveResult resolveStep(@NotNull final GherkinStep step,
+                                               @NotNull final CucumberJvmExtensionPoint[] extensions,
+                                               @NotNull final Map<CucumberJvmExtensionPoint, List<AbstractStepDefinition>> stepDefinitions,
+                                               @NotNull final List<AbstractStepDefinition> allStepDefinitions) {
+    final List<PsiElement> elements = new ArrayList<>();
+    for (CucumberJvmExtensionPoint extension : extensions) {
+      final List<AbstractStepDefinition> definitions = stepDefinitions.get(extension);
+      final List<PsiElement> extensionResult;
+      if (extension instanceof AbstractCucumberExtension && definitions != null) {
+        extensionResult = ((AbstractCucumberExtension)extension).resolveStep(step, definitions);
+      }
+      else {
+        extensionResult = extension.resolveStep(step);
+      }
+      for (PsiElement element : extensionResult) {
+        if (element != null && !elements.contains(element)) {
+          elements.add(element);
+        }
+      }
+    }
+
+    final Collection<AbstractStepDefinition> definitions = allStepDefinitions.isEmpty()
+                                                           ? Collections.emptyList()
+                                                           : CucumberStepsIndex.findStepDefinitions(step, allStepDefinitions);
+    return new StepResolveResult(elements, new ArrayList<>(definitions));
+  }
+}
@@ -10,9 +10,11 @@ import com.intellij.util.IncorrectOperationException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.cucumber.CucumberJvmExtensionPoint;
+import org.jetbrains.plugins.cucumber.psi.GherkinStep;
 import org.jetbrains.plugins.cucumber.psi.impl.GherkinStepImpl;
 import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
 import org.jetbrains.plugins.cucumber.steps.CucumberStepsIndex;
+import org.jetbrains.plugins.cucumber.steps.GherkinFileStepsResolver;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -80,30 +82,46 @@ public class CucumberStepReference implements PsiPolyVariantReference {
   @Override
   public ResolveResult[] multiResolve(boolean incompleteCode) {
     final List<ResolveResult> result = new ArrayList<>();
-    final List<PsiElement> resolvedElements = new ArrayList<>();
+    for (final PsiElement element : resolveElements()) {
+      result.add(new ResolveResult() {
+        @Override
+        public PsiElement getElement() {
+          return element;
+        }
+
+        @Override
+        public boolean isValidResult() {
+          return true;
+        }
+      });
+    }
+
+    return result.toArray(new ResolveResult[result.size()]);
+  }
 
+  @NotNull
+  private List<PsiElement> resolveElements() {
+    final GherkinFileStepsResolver.StepResolveResult fileResult = getFileResolveResult();
+    if (fileResult != null) {
+      return fileResult.getElements();
+    }
+
+    final List<PsiElement> resolvedElements = new ArrayList<>();
     final CucumberJvmExtensionPoint[] extensionList = Extensions.getExtensions(CucumberJvmExtensionPoint.EP_NAME);
     for (CucumberJvmExtensionPoint e : extensionList) {
       final List<PsiElement> extensionResult = e.resolveStep(myStep);
       for (final PsiElement element : extensionResult) {
         if (element != null && !resolvedElements.contains(element)) {
           resolvedElements.add(element);
-          result.add(new ResolveResult() {
-            @Override
-            public PsiElement getElement() {
-              return element;
-            }
-
-            @Override
-            public boolean isValidResult() {
-              return true;
-            }
-          });
         }
       }
     }
+    return resolvedElements;
+  }
 
-    return result.toArray(new ResolveResult[result.size()]);
+  @Nullable
+  private GherkinFileStepsResolver.StepResolveResult getFileResolveResult() {
+    return myStep instanceof GherkinStep ? GherkinFileStepsResolver.getResolveResult((GherkinStep)myStep) : null;
   }
 
   /**
@@ -122,6 +140,10 @@ public class CucumberStepReference implements PsiPolyVariantReference {
    */
   @NotNull
   public Collection<AbstractStepDefinition> resolveToDefinitions() {
+    final GherkinFileStepsResolver.StepResolveResult fileResult = getFileResolveResult();
+    if (fileResult != null) {
+      return fileResult.getDefinitions();
+    }
     final CucumberStepsIndex index = CucumberStepsIndex.getInstance(myStep.getProject());
     return index.findStepDefinitions(myStep.getContainingFile(), ((GherkinStepImpl)myStep));
   }
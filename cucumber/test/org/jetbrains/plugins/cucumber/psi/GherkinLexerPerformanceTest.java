@@ -0,0 +1,51 @@
+package org.jetbrains.plugins.cucumber.psi;
+
+import com.intellij.lexer.Lexer;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.plugins.cucumber.CucumberTestUtil;
+import org.jetbrains.plugins.cucumber.psi.i18n.JsonGherkinKeywordProvider;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexer throughput on a large corpus of feature files written in different languages
+ */
+public class GherkinLexerPerformanceTest extends UsefulTestCase {
+  private static final String[] LANGUAGES = {"en", "ru", "de", "fr", "es", "ja", "zh-CN", "uk", "pl", "cs", "en-pirate", "sr-Cyrl"};
+
+  public void testMultilingualCorpus() throws Exception {
+    final GherkinKeywordProvider provider =
+      new JsonGherkinKeywordProvider(new File(CucumberTestUtil.getTestDataPath() + "/keywords", "i18n.json"));
+    final String corpus = buildCorpus(provider, 2000);
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3000, () -> {
+      final Lexer lexer = new GherkinLexer(provider);
+      lexer.start(corpus);
+      int tokens = 0;
+      while (lexer.getTokenType() != null) {
+        tokens++;
+        lexer.advance();
+      }
+      assertTrue(tokens > 0);
+    }).attempts(3).assertTiming();
+  }
+
+  private static String buildCorpus(GherkinKeywordProvider provider, int scenariosPerLanguage) {
+    final StringBuilder result = new StringBuilder();
+    for (String language : LANGUAGES) {
+      final List<String> keywords = new ArrayList<>(provider.getAllKeywords(language));
+      result.append("# language: ").append(language).append('\n');
+      for (int i = 0; i < scenariosPerLanguage; i++) {
+        for (int j = 0; j < 6; j++) {
+          final String keyword = keywords.get((i * 7 + j * 13) % keywords.size());
+          result.append("  ").append(keyword).append(" step number ").append(i).append(" with <param> and text\n");
+        }
+        result.append("    | a | b |\n    | ").append(i).append(" | ").append(i * 31 % 97).append(" |\n");
+      }
+    }
+    return result.toString();
+  }
+}
@@ -1,5 +1,6 @@
 package com.dmarcotte.handlebars.completion;
 
+import com.dmarcotte.handlebars.index.HbTemplateNamesIndex;
 import com.dmarcotte.handlebars.parsing.HbTokenTypes;
 import com.dmarcotte.handlebars.psi.HbMustacheName;
 import com.intellij.codeInsight.completion.*;
@@ -10,6 +11,10 @@ import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ProcessingContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import static com.intellij.patterns.PlatformPatterns.psiElement;
 
 public class HbKeywordCompletionContributor extends CompletionContributor {
@@ -28,6 +33,16 @@ public class HbKeywordCompletionContributor extends CompletionContributor {
                  result.addElement(LookupElementBuilder.create("each"));
                  result.addElement(LookupElementBuilder.create("unless"));
                  result.addElement(LookupElementBuilder.create("with"));
+
+                 // block helpers used in other templates; the name being typed is skipped since it's already indexed for this file
+                 final Set<String> helperNames =
+                   new HashSet<>(Arrays.asList("if", "each", "unless", "with", result.getPrefixMatcher().getPrefix()));
+                 HbTemplateNamesIndex.processBlockHelperNames(position.getProject(), name -> {
+                   if (helperNames.add(name)) {
+                     result.addElement(LookupElementBuilder.create(name));
+                   }
+                   return true;
+                 });
                }
              }
            });
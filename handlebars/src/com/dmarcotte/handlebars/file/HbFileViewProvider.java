@@ -53,9 +53,14 @@ public class HbFileViewProvider extends MultiplePsiFilesPerDocumentFileViewProvi
     myTemplateLanguage = templateLanguage;
   }
 
+  /**
+   * Handlebars blocks are reparsed incrementally (see {@link com.dmarcotte.handlebars.parsing.HbTokenTypes#BLOCK_WRAPPER}).
+   * The template data tree is built from the text between the mustaches, so it is always reparsed as a whole
+   * and then merged into the existing tree, which keeps unchanged elements.
+   */
   @Override
   public boolean supportsIncrementalReparse(@NotNull Language rootLanguage) {
-    return false;
+    return rootLanguage.isKindOf(myBaseLanguage);
   }
 
   @NotNull
@@ -0,0 +1,64 @@
+package com.dmarcotte.handlebars.index;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.dmarcotte.handlebars.file.HbFileType;
+import com.dmarcotte.handlebars.psi.HbPartialName;
+import com.dmarcotte.handlebars.psi.impl.HbPartialReference;
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds usages of a partial template in the templates which use a partial with its name according to {@link HbTemplateNamesIndex},
+ * so that only these templates are parsed.
+ */
+public class HbPartialReferencesSearcher extends QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters> {
+  public HbPartialReferencesSearcher() {
+    super(true);
+  }
+
+  @Override
+  public void processQuery(@NotNull ReferencesSearch.SearchParameters queryParameters, @NotNull Processor<PsiReference> consumer) {
+    final PsiElement target = queryParameters.getElementToSearch();
+    if (!(target instanceof PsiFile)) return;
+    final VirtualFile partialFile = ((PsiFile)target).getVirtualFile();
+    if (partialFile == null || partialFile.getFileType() != HbFileType.INSTANCE) return;
+
+    final String fileName = partialFile.getNameWithoutExtension();
+    final SearchScope scope = queryParameters.getEffectiveSearchScope();
+    final GlobalSearchScope indexScope = scope instanceof GlobalSearchScope
+                                         ? (GlobalSearchScope)scope
+                                         : GlobalSearchScope.allScope(target.getProject());
+    final Set<VirtualFile> files = new LinkedHashSet<>(HbTemplateNamesIndex.getFilesWithPartialUsages(fileName, indexScope));
+    if (fileName.startsWith("_")) {
+      files.addAll(HbTemplateNamesIndex.getFilesWithPartialUsages(StringUtil.trimStart(fileName, "_"), indexScope));
+    }
+
+    final PsiManager manager = target.getManager();
+    for (VirtualFile file : files) {
+      if (!scope.contains(file)) continue;
+      final PsiFile psiFile = manager.findFile(file);
+      if (psiFile == null) continue;
+      final PsiFile hbFile = psiFile.getViewProvider().getPsi(HbLanguage.INSTANCE);
+      if (hbFile == null) continue;
+
+      for (HbPartialName partialName : PsiTreeUtil.findChildrenOfType(hbFile, HbPartialName.class)) {
+        for (PsiReference reference : partialName.getReferences()) {
+          if (reference instanceof HbPartialReference && reference.isReferenceTo(target) && !consumer.process(reference)) {
+            return;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.dmarcotte.handlebars.index;
+
+import com.dmarcotte.handlebars.file.HbFileType;
+import com.dmarcotte.handlebars.parsing.HbLexer;
+import com.dmarcotte.handlebars.parsing.HbTokenTypes;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Names of partials and block helpers used in a template, built from the lexer so that indexing doesn't parse templates.
+ * <p/>
+ * Keys are prefixed with the kind of the name:
+ * <ul>
+ * <li>{@link #PARTIAL_USAGE} and the last segment of a partial name ({@code {{> shared/header}}} is {@code >header}),
+ * so that usages of a partial template can be found by its file name</li>
+ * <li>{@link #INLINE_PARTIAL} and the name of an inline partial ({@code {{#*inline "row"}}} is {@code *row})</li>
+ * <li>{@link #BLOCK_HELPER} and the name of a block helper ({@code {{#each items}}} is {@code #each})</li>
+ * </ul>
+ */
+public class HbTemplateNamesIndex extends ScalarIndexExtension<String> {
+  public static final ID<String, Void> NAME = ID.create("handlebars.template.names");
+
+  public static final char PARTIAL_USAGE = '>';
+  public static final char INLINE_PARTIAL = '*';
+  public static final char BLOCK_HELPER = '#';
+
+  @NotNull
+  @Override
+  public ID<String, Void> getName() {
+    return NAME;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return inputData -> {
+      final Map<String, Void> result = new HashMap<>();
+      final Lexer lexer = new HbLexer();
+      lexer.start(inputData.getContentAsText());
+      while (lexer.getTokenType() != null) {
+        final IElementType tokenType = lexer.getTokenType();
+        if (tokenType == HbTokenTypes.OPEN_PARTIAL || tokenType == HbTokenTypes.OPEN_PARTIAL_BLOCK) {
+          lexer.advance();
+          final String name = readName(lexer);
+          if (name != null) {
+            result.put(PARTIAL_USAGE + getLastSegment(name), null);
+          }
+        }
+        else if (tokenType == HbTokenTypes.OPEN_BLOCK) {
+          final boolean decorator = StringUtil.endsWithChar(lexer.getTokenText(), '*');
+          lexer.advance();
+          final String name = readName(lexer);
+          if (decorator && "inline".equals(name)) {
+            final String inlineName = readName(lexer);
+            if (inlineName != null) {
+              result.put(INLINE_PARTIAL + inlineName, null);
+            }
+          }
+          else if (!decorator && name != null) {
+            result.put(BLOCK_HELPER + name, null);
+          }
+        }
+        else {
+          lexer.advance();
+        }
+      }
+      return result;
+    };
+  }
+
+  /**
+   * Reads a path ({@code shared/header}) or a string literal after the whitespace at the current position of the lexer.
+   * The lexer is left at the first token after the name.
+   */
+  @Nullable
+  private static String readName(@NotNull Lexer lexer) {
+    while (lexer.getTokenType() == HbTokenTypes.WHITE_SPACE) {
+      lexer.advance();
+    }
+    if (lexer.getTokenType() == HbTokenTypes.STRING) {
+      final String name = StringUtil.unquoteString(lexer.getTokenText());
+      lexer.advance();
+      return name;
+    }
+
+    final StringBuilder name = new StringBuilder();
+    while (lexer.getTokenType() == HbTokenTypes.ID || lexer.getTokenType() == HbTokenTypes.SEP) {
+      name.append(lexer.getTokenSequence());
+      lexer.advance();
+    }
+    return name.length() > 0 ? name.toString() : null;
+  }
+
+  @NotNull
+  public static String getLastSegment(@NotNull String partialName) {
+    return partialName.substring(partialName.lastIndexOf('/') + 1);
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(HbFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  /**
+   * @return templates which use a partial whose name ends with {@code partialFileName}
+   */
+  @NotNull
+  public static Collection<VirtualFile> getFilesWithPartialUsages(@NotNull String partialFileName, @NotNull GlobalSearchScope scope) {
+    return FileBasedIndex.getInstance().getContainingFiles(NAME, PARTIAL_USAGE + partialFileName, scope);
+  }
+
+  /**
+   * @return true if the template defines an inline partial with the given name
+   */
+  public static boolean hasInlinePartial(@NotNull Project project, @NotNull VirtualFile file, @NotNull String name) {
+    return !FileBasedIndex.getInstance().getContainingFiles(NAME, INLINE_PARTIAL + name, GlobalSearchScope.fileScope(project, file)).isEmpty();
+  }
+
+  /**
+   * Processes names of block helpers used in the templates of the project, possibly with duplicates
+   */
+  public static boolean processBlockHelperNames(@NotNull Project project, @NotNull Processor<String> processor) {
+    return FileBasedIndex.getInstance().processAllKeys(NAME, key -> {
+      if (key.isEmpty() || key.charAt(0) != BLOCK_HELPER) return true;
+      return processor.process(key.substring(1));
+    }, GlobalSearchScope.projectScope(project), null);
+  }
+}
@@ -0,0 +1,36 @@
+package com.dmarcotte.handlebars.inspections;
+
+import com.dmarcotte.handlebars.HbBundle;
+import com.dmarcotte.handlebars.psi.HbPartialName;
+import com.dmarcotte.handlebars.psi.impl.HbPartialReference;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiReference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reports partials which are neither inline partials of the template nor templates of the project.
+ * Partials registered from code aren't known, so the inspection is off by default.
+ */
+public class HbUnresolvedPartialInspection extends LocalInspectionTool {
+  @NotNull
+  @Override
+  public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+    return new PsiElementVisitor() {
+      @Override
+      public void visitElement(PsiElement element) {
+        if (!(element instanceof HbPartialName)) return;
+        for (PsiReference reference : element.getReferences()) {
+          if (reference instanceof HbPartialReference && ((HbPartialReference)reference).multiResolve(false).length == 0) {
+            holder.registerProblem(reference,
+                                   HbBundle.message("hb.inspection.unresolved.partial", ((HbPartialReference)reference).getPartialName()),
+                                   ProblemHighlightType.LIKE_UNKNOWN_SYMBOL);
+          }
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,123 @@
+package com.dmarcotte.handlebars.parsing;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.lang.ParserDefinition;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.impl.source.tree.LazyParseableElement;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IReparseableElementType;
+import com.intellij.psi.tree.TokenSet;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.dmarcotte.handlebars.parsing.HbTokenTypes.*;
+
+/**
+ * Element type of {@link HbTokenTypes#BLOCK_WRAPPER}. A block is bounded by its open and close mustaches,
+ * so typing inside of it only reparses the innermost block which is still well-formed instead of the whole file.
+ */
+class HbBlockWrapperElementType extends IReparseableElementType {
+  private static final TokenSet BLOCK_OPEN_TOKENS = TokenSet.create(OPEN_BLOCK, OPEN_INVERSE, OPEN_RAW_BLOCK, OPEN_PARTIAL_BLOCK);
+  private static final TokenSet BLOCK_CLOSE_TOKENS = TokenSet.create(CLOSE, CLOSE_RAW_BLOCK);
+
+  public HbBlockWrapperElementType(@NotNull @NonNls String debugName) {
+    super(debugName, HbLanguage.INSTANCE);
+  }
+
+  @Override
+  public ASTNode createNode(CharSequence text) {
+    return new LazyParseableElement(this, text);
+  }
+
+  /**
+   * The text is reparsed on its own only if it is exactly one block which leaves the lexer in its initial state
+   * and whose nested open and close tags pair up by name, so that neither the tree around the block nor the tokens
+   * after it can change. A block with parse errors is left to the enclosing block, its errors may depend on context.
+   */
+  @Override
+  public boolean isParsable(CharSequence buffer, Language fileLanguage, Project project) {
+    final Lexer lexer = new HbLexer();
+    lexer.start(buffer);
+    if (!BLOCK_OPEN_TOKENS.contains(lexer.getTokenType()) || !hasBalancedTags(lexer)) {
+      return false;
+    }
+
+    final ParserDefinition parserDefinition = LanguageParserDefinitions.INSTANCE.forLanguage(HbLanguage.INSTANCE);
+    final PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(parserDefinition, new HbLexer(), buffer);
+    final PsiBuilder.Marker root = builder.mark();
+    final boolean parsed = new HbParsing(builder).parseStatement() && builder.eof();
+    root.done(STATEMENTS);
+    return parsed && !hasErrors(builder.getTreeBuilt());
+  }
+
+  /**
+   * Checks that every open tag has a close tag with the same name, that the first open tag is closed by the last
+   * close tag, and that the lexer ends in its initial state after a closing mustache.
+   */
+  private static boolean hasBalancedTags(@NotNull Lexer lexer) {
+    final Deque<String> openNames = new ArrayDeque<>();
+    IElementType pendingTag = null;
+    IElementType lastToken = null;
+    boolean closed = false;
+    for (; lexer.getTokenType() != null; lexer.advance()) {
+      final IElementType tokenType = lexer.getTokenType();
+      lastToken = tokenType;
+      if (pendingTag != null) {
+        if (tokenType == WHITE_SPACE) {
+          continue;
+        }
+        final String name = tokenType == ID ? lexer.getBufferSequence().subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString() : "";
+        if (pendingTag == OPEN_ENDBLOCK || pendingTag == END_RAW_BLOCK) {
+          if (openNames.isEmpty() || !openNames.pop().equals(name)) {
+            return false;
+          }
+          closed = openNames.isEmpty();
+        }
+        else if (!(pendingTag == OPEN_INVERSE && tokenType == CLOSE)) {
+          // "{{^}}" is a simple inverse, not a block
+          openNames.push(name);
+        }
+        pendingTag = null;
+      }
+      else if (BLOCK_OPEN_TOKENS.contains(tokenType) || tokenType == OPEN_ENDBLOCK || tokenType == END_RAW_BLOCK) {
+        if (closed) {
+          return false;
+        }
+        pendingTag = tokenType;
+      }
+    }
+    return closed && BLOCK_CLOSE_TOKENS.contains(lastToken) && lexer.getState() == 0;
+  }
+
+  private static boolean hasErrors(@NotNull ASTNode node) {
+    if (node.getElementType() == TokenType.ERROR_ELEMENT) {
+      return true;
+    }
+    for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+      if (hasErrors(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected ASTNode doParseContents(@NotNull ASTNode chameleon, @NotNull PsiElement psi) {
+    final PsiBuilder builder =
+      PsiBuilderFactory.getInstance().createBuilder(psi.getProject(), chameleon, new HbLexer(), HbLanguage.INSTANCE, chameleon.getChars());
+    // isParsable() guarantees that the only statement is this block, so it becomes the root of the built tree
+    new HbParsing(builder).parseStatement();
+    return builder.getTreeBuilt().getFirstChildNode();
+  }
+}
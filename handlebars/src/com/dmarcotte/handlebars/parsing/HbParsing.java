@@ -70,6 +70,16 @@ public class HbParsing {
     }
   }
 
+  /**
+   * Parses a single statement, used to reparse a {@link HbTokenTypes#BLOCK_WRAPPER} on its own
+   * (see {@link HbBlockWrapperElementType})
+   *
+   * @return false if there is no statement at the current position
+   */
+  public boolean parseStatement() {
+    return parseStatement(builder);
+  }
+
   /**
    * root
    * : program EOF
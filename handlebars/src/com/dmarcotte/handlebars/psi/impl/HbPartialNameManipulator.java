@@ -0,0 +1,39 @@
+package com.dmarcotte.handlebars.psi.impl;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.dmarcotte.handlebars.psi.HbPartialName;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.AbstractElementManipulator;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.IncorrectOperationException;
+import org.jetbrains.annotations.NotNull;
+
+public class HbPartialNameManipulator extends AbstractElementManipulator<HbPartialName> {
+  @Override
+  public HbPartialName handleContentChange(@NotNull HbPartialName element, @NotNull TextRange range, String newContent)
+    throws IncorrectOperationException {
+    final String newText = range.replace(element.getText(), newContent);
+    final PsiFile dummyFile =
+      PsiFileFactory.getInstance(element.getProject()).createFileFromText("dummy.hbs", HbLanguage.INSTANCE, "{{> " + newText + "}}");
+    final HbPartialName newElement = PsiTreeUtil.findChildOfType(dummyFile, HbPartialName.class);
+    if (newElement == null) {
+      throw new IncorrectOperationException("Invalid partial name: " + newText);
+    }
+    return (HbPartialName)element.replace(newElement);
+  }
+
+  /**
+   * @return the range of the name without quotes
+   */
+  @NotNull
+  @Override
+  public TextRange getRangeInElement(@NotNull HbPartialName element) {
+    final String text = element.getText();
+    if (text.length() >= 2 && (text.charAt(0) == '"' || text.charAt(0) == '\'') && text.charAt(text.length() - 1) == text.charAt(0)) {
+      return new TextRange(1, text.length() - 1);
+    }
+    return TextRange.allOf(text);
+  }
+}
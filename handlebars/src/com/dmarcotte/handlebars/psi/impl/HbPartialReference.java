@@ -0,0 +1,124 @@
+package com.dmarcotte.handlebars.psi.impl;
+
+import com.dmarcotte.handlebars.file.HbFileType;
+import com.dmarcotte.handlebars.index.HbTemplateNamesIndex;
+import com.dmarcotte.handlebars.psi.HbOpenBlockMustache;
+import com.dmarcotte.handlebars.psi.HbPartialName;
+import com.dmarcotte.handlebars.psi.HbStringLiteral;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.source.resolve.ResolveCache;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.IncorrectOperationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reference from a partial name ({@code {{> shared/header}}}) to the inline partials of the template with this name
+ * and to the partial templates, i.e. {@code shared/header.hbs} or {@code shared/_header.hbs} in any directory.
+ */
+public class HbPartialReference extends PsiPolyVariantReferenceBase<HbPartialName> {
+  private static final ResolveCache.PolyVariantResolver<HbPartialReference> RESOLVER =
+    (reference, incompleteCode) -> reference.doResolve();
+
+  public HbPartialReference(@NotNull HbPartialName element) {
+    super(element, ElementManipulators.getValueTextRange(element));
+  }
+
+  @NotNull
+  public String getPartialName() {
+    return getValue();
+  }
+
+  @NotNull
+  @Override
+  public ResolveResult[] multiResolve(boolean incompleteCode) {
+    return ResolveCache.getInstance(getElement().getProject()).resolveWithCaching(this, RESOLVER, false, incompleteCode);
+  }
+
+  @NotNull
+  private ResolveResult[] doResolve() {
+    final String name = getPartialName();
+    final List<ResolveResult> results = new ArrayList<>();
+
+    final PsiFile file = getElement().getContainingFile();
+    final VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+    if (virtualFile == null || HbTemplateNamesIndex.hasInlinePartial(file.getProject(), virtualFile, name)) {
+      for (HbOpenBlockMustache mustache : PsiTreeUtil.findChildrenOfType(file, HbOpenBlockMustache.class)) {
+        final HbStringLiteral definition = getInlinePartialName(mustache);
+        if (definition != null && name.equals(StringUtil.unquoteString(definition.getText()))) {
+          results.add(new PsiElementResolveResult(definition));
+        }
+      }
+    }
+
+    for (PsiFile partialFile : findPartialFiles(file.getProject(), name)) {
+      results.add(new PsiElementResolveResult(partialFile));
+    }
+    return results.toArray(new ResolveResult[results.size()]);
+  }
+
+  @NotNull
+  @Override
+  public Object[] getVariants() {
+    return ArrayUtil.EMPTY_OBJECT_ARRAY;
+  }
+
+  /**
+   * Renames the last segment of the partial name after its template, keeping the name without the '_' prefix
+   */
+  @Override
+  public PsiElement handleElementRename(String newElementName) throws IncorrectOperationException {
+    String newName = FileUtil.getNameWithoutExtension(newElementName);
+    final String oldName = getPartialName();
+    if (!HbTemplateNamesIndex.getLastSegment(oldName).startsWith("_")) {
+      newName = StringUtil.trimStart(newName, "_");
+    }
+    final TextRange range = getRangeInElement();
+    final TextRange lastSegment = new TextRange(range.getStartOffset() + oldName.lastIndexOf('/') + 1, range.getEndOffset());
+    return ElementManipulators.getManipulator(getElement()).handleContentChange(getElement(), lastSegment, newName);
+  }
+
+  /**
+   * @return the name of the inline partial if the mustache defines one, i.e. {@code "row"} in {@code {{#*inline "row"}}}
+   */
+  private static HbStringLiteral getInlinePartialName(@NotNull HbOpenBlockMustache mustache) {
+    final PsiElement open = mustache.getFirstChild();
+    if (open == null || !StringUtil.endsWithChar(open.getText(), '*') || !"inline".equals(mustache.getName())) {
+      return null;
+    }
+    return PsiTreeUtil.findChildOfType(mustache, HbStringLiteral.class);
+  }
+
+  @NotNull
+  private static List<PsiFile> findPartialFiles(@NotNull Project project, @NotNull String partialName) {
+    final String fileName = HbTemplateNamesIndex.getLastSegment(partialName);
+    final String directory = "/" + partialName.substring(0, partialName.length() - fileName.length());
+    final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    final PsiManager manager = PsiManager.getInstance(project);
+
+    final List<PsiFile> result = new ArrayList<>();
+    for (String extension : StringUtil.split(HbFileType.DEFAULT_EXTENSION, ";")) {
+      for (String prefix : new String[]{"", "_"}) {
+        for (VirtualFile file : FilenameIndex.getVirtualFilesByName(project, prefix + fileName + "." + extension, scope)) {
+          final VirtualFile parent = file.getParent();
+          if (parent == null || !(parent.getPath() + "/").endsWith(directory)) continue;
+          final PsiFile psiFile = manager.findFile(file);
+          if (psiFile != null) {
+            result.add(psiFile);
+          }
+        }
+      }
+    }
+    return result;
+  }
+}
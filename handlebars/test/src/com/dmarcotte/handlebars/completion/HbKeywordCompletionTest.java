@@ -16,4 +16,12 @@ public class HbKeywordCompletionTest extends LightPlatformCodeInsightFixtureTest
   public void testSimple() {
     doBasicTest("{{#<caret>}}", "if", "each");
   }
+
+  public void testBlockHelpersOfOtherTemplates() {
+    myFixture.addFileToProject("list.hbs", "{{#eachSorted items}}{{name}}{{/eachSorted}}{{#*inline \"row\"}}{{/inline}}");
+    myFixture.configureByText(HbFileType.INSTANCE, "{{#<caret>}}");
+    myFixture.complete(CompletionType.BASIC);
+    assertContainsElements(myFixture.getLookupElementStrings(), "if", "eachSorted");
+    assertDoesntContain(myFixture.getLookupElementStrings(), "inline");
+  }
 }
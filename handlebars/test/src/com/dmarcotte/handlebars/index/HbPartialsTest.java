@@ -0,0 +1,60 @@
+package com.dmarcotte.handlebars.index;
+
+import com.dmarcotte.handlebars.inspections.HbUnresolvedPartialInspection;
+import com.dmarcotte.handlebars.psi.HbStringLiteral;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+public class HbPartialsTest extends LightPlatformCodeInsightFixtureTestCase {
+
+  public void testIndexedNames() {
+    myFixture.addFileToProject("page.hbs", "{{> shared/header}}{{#> \"layout\"}}{{/layout}}{{#each items}}{{/each}}" +
+                                           "{{#*inline \"row\"}}{{/inline}}");
+    final GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertSize(1, HbTemplateNamesIndex.getFilesWithPartialUsages("header", scope));
+    assertSize(1, HbTemplateNamesIndex.getFilesWithPartialUsages("layout", scope));
+    assertEmpty(HbTemplateNamesIndex.getFilesWithPartialUsages("shared", scope));
+    assertEmpty(HbTemplateNamesIndex.getFilesWithPartialUsages("row", scope));
+  }
+
+  public void testResolveToPartialTemplate() {
+    myFixture.addFileToProject("shared/_header.hbs", "<h1>{{title}}</h1>");
+    myFixture.addFileToProject("other/header.hbs", "<h2>{{title}}</h2>");
+    myFixture.configureByText("page.hbs", "{{> shared/hea<caret>der}}");
+    final PsiElement resolved = myFixture.getReferenceAtCaretPositionWithAssertion().resolve();
+    assertInstanceOf(resolved, PsiFile.class);
+    assertEquals("_header.hbs", ((PsiFile)resolved).getName());
+  }
+
+  public void testResolveToInlinePartial() {
+    myFixture.configureByText("page.hbs", "{{#*inline \"row\"}}<td></td>{{/inline}}{{> r<caret>ow}}");
+    final PsiElement resolved = myFixture.getReferenceAtCaretPositionWithAssertion().resolve();
+    assertInstanceOf(resolved, HbStringLiteral.class);
+    assertEquals("\"row\"", resolved.getText());
+  }
+
+  public void testFindUsages() {
+    final PsiFile header = myFixture.addFileToProject("shared/_header.hbs", "<h1>{{title}}</h1>");
+    myFixture.addFileToProject("page1.hbs", "{{> shared/header}}");
+    myFixture.addFileToProject("page2.hbs", "{{> header}}{{> shared/header}}");
+    myFixture.addFileToProject("page3.hbs", "{{> other/header}}{{> footer}}");
+    assertSize(3, myFixture.findUsages(header));
+  }
+
+  public void testRenamePartialTemplate() {
+    final PsiFile header = myFixture.addFileToProject("shared/_header.hbs", "<h1>{{title}}</h1>");
+    myFixture.configureByText("page.hbs", "{{> shared/header}}");
+    myFixture.renameElement(header, "_title.hbs");
+    myFixture.checkResult("{{> shared/title}}");
+  }
+
+  public void testUnresolvedPartial() {
+    myFixture.enableInspections(HbUnresolvedPartialInspection.class);
+    myFixture.addFileToProject("header.hbs", "<h1>{{title}}</h1>");
+    myFixture.configureByText("page.hbs", "{{> header}}{{> <warning descr=\"Cannot resolve partial 'missing'\">missing</warning>}}" +
+                                          "{{> (dynamicPartial)}}");
+    myFixture.checkHighlighting(true, false, false);
+  }
+}
@@ -0,0 +1,164 @@
+package com.dmarcotte.handlebars.parsing;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.dmarcotte.handlebars.config.HbConfig;
+import com.dmarcotte.handlebars.file.HbFileType;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.SyntaxTraverser;
+import com.intellij.psi.impl.DebugUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class HbIncrementalReparseTest extends LightPlatformCodeInsightFixtureTestCase {
+
+  public void testTypingInsideBlock() {
+    doTest("{{#if a}}\n  <div>{{b}}<caret></div>\n{{/if}}\n", " {{c}}");
+  }
+
+  public void testTypingInsideNestedBlock() {
+    doTest("{{#each items}}\n  {{#if a}}<caret>{{else}}x{{/if}}\n{{/each}}\n", "<b>{{name}}</b>");
+  }
+
+  public void testTypingInsideInverseBlock() {
+    doTest("{{^if a}}\n  <caret>\n{{/if}}\n{{b}}", "text");
+  }
+
+  public void testOpeningNestedBlock() {
+    doTest("{{#if a}}\n  <caret>\n{{/if}}\n{{b}}", "{{#each c}}");
+  }
+
+  public void testBreakingCloseMustache() {
+    doTest("{{#if a}}\n  x\n{{/if<caret>}}\n<div>{{b}}</div>", "}", false);
+  }
+
+  public void testTypingInsideRawBlock() {
+    doTest("{{{{raw}}}}\n  {{x<caret>}}\n{{{{/raw}}}}\n{{b}}", "y");
+  }
+
+  public void testUnbalancedOpenWithoutAutoClose() {
+    doInsertTest("{{#if a}}\n  <caret>\n{{/if}}\n{{b}}", "{{#each c}}");
+  }
+
+  public void testUnbalancedNestedOpenWithoutAutoClose() {
+    doInsertTest("{{#with x}}\n{{#if a}}\n  <caret>\n{{/if}}\n{{/with}}\n{{b}}", "{{#each c}}");
+  }
+
+  public void testStrayCloseWithoutAutoClose() {
+    doInsertTest("{{#if a}}\n  <caret>\n{{/if}}\n{{b}}", "{{/each}}");
+  }
+
+  public void testMismatchedCloseNameWithoutAutoClose() {
+    doInsertTest("{{#if a}}\n  {{#each c}}x{{/each<caret>}}\n{{/if}}\n{{b}}", "Item");
+  }
+
+  public void testTypingLatencyInLargeTemplate() {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append("{{#if item").append(i).append("}}\n")
+        .append("  <div class=\"item\">{{name").append(i).append("}}").append(i == 1000 ? "<caret>" : "").append("</div>\n")
+        .append("{{else}}\n  <span>none</span>\n{{/if}}\n");
+    }
+    myFixture.configureByText(HbFileType.INSTANCE, text.toString());
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 2000, () -> {
+      for (int i = 0; i < 20; i++) {
+        myFixture.type("{{x}}");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+      }
+    }).attempts(1).assertTiming();
+  }
+
+  /**
+   * Collects Handlebars leaves which are not inside the innermost block containing the offset, with their start offsets.
+   * The end offset of the block is stored by {@code null} key.
+   */
+  private static Map<PsiElement, Integer> getLeavesOutsideBlock(PsiFile file, int offset) {
+    final PsiFile hbFile = file.getViewProvider().getPsi(HbLanguage.INSTANCE);
+    PsiElement block = hbFile.findElementAt(offset);
+    while (block != null && block.getNode().getElementType() != HbTokenTypes.BLOCK_WRAPPER) {
+      block = block.getParent();
+    }
+    assertNotNull("No block at " + offset, block);
+
+    final Map<PsiElement, Integer> leaves = new HashMap<>();
+    for (PsiElement leaf : SyntaxTraverser.psiTraverser(hbFile).filter(e -> e.getFirstChild() == null)) {
+      if (!PsiTreeUtil.isAncestor(block, leaf, false)) {
+        leaves.put(leaf, leaf.getTextRange().getStartOffset());
+      }
+    }
+    leaves.put(null, block.getTextRange().getEndOffset());
+    return leaves;
+  }
+
+  /**
+   * Inserts the text right into the document with auto-insertion of close tags off,
+   * so that the block is left unbalanced as it is after the insertion
+   */
+  private void doInsertTest(String text, String inserted) {
+    final boolean autoClose = HbConfig.isAutoGenerateCloseTagEnabled();
+    HbConfig.setAutoGenerateCloseTagEnabled(false);
+    try {
+      myFixture.configureByText(HbFileType.INSTANCE, text);
+      PsiFile file = myFixture.getFile();
+      DebugUtil.psiToString(file, false);
+
+      final Document document = myFixture.getEditor().getDocument();
+      final int offset = myFixture.getCaretOffset();
+      WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(offset, inserted));
+      PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+      assertEquals(text.replace("<caret>", inserted), file.getText());
+      String reparsed = DebugUtil.psiToString(file, false);
+
+      myFixture.configureByText(HbFileType.INSTANCE, file.getText());
+      assertEquals(DebugUtil.psiToString(myFixture.getFile(), false), reparsed);
+    }
+    finally {
+      HbConfig.setAutoGenerateCloseTagEnabled(autoClose);
+    }
+  }
+
+  private void doTest(String text, String typed) {
+    doTest(text, typed, true);
+  }
+
+  /**
+   * @param blockReparsed whether the block around the caret stays well-formed, so that only the block is reparsed
+   *                      and Handlebars PSI outside of it must be kept
+   */
+  private void doTest(String text, String typed, boolean blockReparsed) {
+    myFixture.configureByText(HbFileType.INSTANCE, text);
+    PsiFile file = myFixture.getFile();
+    // make sure the tree is built before typing so that the change is reparsed incrementally
+    DebugUtil.psiToString(file, false);
+
+    final Document document = myFixture.getEditor().getDocument();
+    final int oldLength = document.getTextLength();
+    final Map<PsiElement, Integer> outsideLeaves = blockReparsed ? getLeavesOutsideBlock(file, myFixture.getCaretOffset()) : null;
+
+    myFixture.type(typed);
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+    String reparsed = DebugUtil.psiToString(file, false);
+
+    if (outsideLeaves != null) {
+      final int shift = document.getTextLength() - oldLength;
+      final int blockEnd = outsideLeaves.remove(null);
+      for (Map.Entry<PsiElement, Integer> entry : outsideLeaves.entrySet()) {
+        final PsiElement leaf = entry.getKey();
+        final int offset = entry.getValue();
+        assertTrue(leaf + " at " + offset + " was replaced", leaf.isValid());
+        assertEquals(offset >= blockEnd ? offset + shift : offset, leaf.getTextRange().getStartOffset());
+      }
+    }
+
+    myFixture.configureByText(HbFileType.INSTANCE, file.getText());
+    assertEquals(DebugUtil.psiToString(myFixture.getFile(), false), reparsed);
+  }
+}
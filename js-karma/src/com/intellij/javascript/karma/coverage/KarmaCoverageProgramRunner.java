@@ -4,6 +4,8 @@ import com.intellij.coverage.CoverageDataManager;
 import com.intellij.coverage.CoverageExecutor;
 import com.intellij.coverage.CoverageHelper;
 import com.intellij.coverage.CoverageRunnerData;
+import com.intellij.coverage.CoverageSuite;
+import com.intellij.coverage.CoverageSuitesBundle;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
 import com.intellij.execution.configurations.ConfigurationInfoProvider;
@@ -19,6 +21,7 @@ import com.intellij.javascript.karma.execution.KarmaConsoleView;
 import com.intellij.javascript.karma.execution.KarmaRunConfiguration;
 import com.intellij.javascript.karma.server.KarmaServer;
 import com.intellij.javascript.karma.util.KarmaUtil;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileChooser.FileChooser;
 import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
@@ -34,6 +37,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.Set;
 
 public class KarmaCoverageProgramRunner extends GenericProgramRunner {
 
@@ -126,18 +130,43 @@ public class KarmaCoverageProgramRunner extends GenericProgramRunner {
                                           @NotNull ExecutionEnvironment env,
                                           @NotNull KarmaServer karmaServer,
                                           @NotNull KarmaRunConfiguration runConfiguration) {
-    try {
-      FileUtil.copy(lcovInfoFile, new File(toCoverageFilePath));
-    }
-    catch (IOException e) {
-      LOG.error("Cannot copy " + lcovInfoFile.getAbsolutePath() + " to " + toCoverageFilePath, e);
-      return;
-    }
-    RunnerSettings runnerSettings = env.getRunnerSettings();
-    if (runnerSettings != null) {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      File coverageFile = new File(toCoverageFilePath);
+      try {
+        FileUtil.copy(lcovInfoFile, coverageFile);
+      }
+      catch (IOException e) {
+        LOG.error("Cannot copy " + lcovInfoFile.getAbsolutePath() + " to " + toCoverageFilePath, e);
+        return;
+      }
       KarmaCoverageRunner coverageRunner = KarmaCoverageRunner.getInstance();
       coverageRunner.setKarmaServer(karmaServer);
-      CoverageDataManager.getInstance(env.getProject()).processGatheredCoverage(runConfiguration, runnerSettings);
+      Set<String> changedFiles = coverageRunner.loadChanges(env.getProject(), coverageFile);
+      UIUtil.invokeLaterIfNeeded(() -> {
+        Project project = env.getProject();
+        if (project.isDisposed()) return;
+        CoverageDataManager coverageDataManager = CoverageDataManager.getInstance(project);
+        if (changedFiles != null && changedFiles.isEmpty() && isShown(coverageDataManager, coverageFile)) {
+          LOG.debug("Karma coverage hasn't changed, keeping shown coverage");
+          return;
+        }
+        RunnerSettings runnerSettings = env.getRunnerSettings();
+        if (runnerSettings != null) {
+          coverageDataManager.processGatheredCoverage(runConfiguration, runnerSettings);
+        }
+      });
+    });
+  }
+
+  private static boolean isShown(@NotNull CoverageDataManager coverageDataManager, @NotNull File coverageFile) {
+    CoverageSuitesBundle bundle = coverageDataManager.getCurrentSuitesBundle();
+    if (bundle != null) {
+      for (CoverageSuite suite : bundle.getSuites()) {
+        if (FileUtil.pathsEqual(suite.getCoverageDataFileName(), coverageFile.getPath())) {
+          return true;
+        }
+      }
     }
+    return false;
   }
 }
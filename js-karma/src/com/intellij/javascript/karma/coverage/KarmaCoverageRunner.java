@@ -9,6 +9,8 @@ import com.intellij.javascript.karma.server.KarmaServer;
 import com.intellij.javascript.testFramework.coverage.CoverageSerializationUtils;
 import com.intellij.javascript.testFramework.coverage.LcovCoverageReport;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
@@ -17,14 +19,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class KarmaCoverageRunner extends CoverageRunner {
 
   private static final Logger LOG = Logger.getInstance(KarmaCoverageRunner.class);
-  private KarmaServer myKarmaServer;
+  /** Coverage data loaded last time by data file path, kept per project so that it goes away with the project */
+  private static final Key<Map<String, LoadedCoverage>> LOADED_COVERAGE = Key.create("karma.loaded.coverage");
+  private volatile KarmaServer myKarmaServer;
+  private final Object myLock = new Object();
 
   @NotNull
   public static KarmaCoverageRunner getInstance() {
@@ -33,23 +36,86 @@ public class KarmaCoverageRunner extends CoverageRunner {
 
   @Override
   public ProjectData loadCoverageData(@NotNull File sessionDataFile, @Nullable CoverageSuite baseCoverageSuite) {
-    KarmaConfig karmaConfig = null;
-    if (myKarmaServer != null) {
-      karmaConfig = myKarmaServer.getKarmaConfig();
+    Project project = baseCoverageSuite != null ? baseCoverageSuite.getProject() : null;
+    if (project == null) {
+      File basePathDir = getBasePathDir();
+      return basePathDir != null ? readProjectData(sessionDataFile, basePathDir, null, new HashSet<>()) : null;
     }
-    String basePath = null;
-    if (karmaConfig != null) {
-      basePath = karmaConfig.getBasePath();
+    String key = sessionDataFile.getAbsolutePath();
+    synchronized (myLock) {
+      LoadedCoverage loaded = getLoadedCoverage(project).get(key);
+      if (loaded == null || !loaded.isUpToDate(sessionDataFile, getBasePathDir())) {
+        if (loadChanges(project, sessionDataFile) == null) {
+          return null;
+        }
+        loaded = getLoadedCoverage(project).get(key);
+      }
+      return loaded.myProjectData;
+    }
+  }
+
+  /**
+   * Reads the coverage data file into new project data which shares line data of files with unchanged hits
+   * with the data read from the same file last time.
+   *
+   * @return paths of files whose coverage has changed, or null if the coverage data can't be read
+   */
+  @Nullable
+  public Set<String> loadChanges(@NotNull Project project, @NotNull File sessionDataFile) {
+    File basePathDir = getBasePathDir();
+    if (basePathDir == null) {
+      return null;
+    }
+    synchronized (myLock) {
+      Map<String, LoadedCoverage> loadedCoverage = getLoadedCoverage(project);
+      String key = sessionDataFile.getAbsolutePath();
+      LoadedCoverage previous = loadedCoverage.remove(key);
+      long lastModified = sessionDataFile.lastModified();
+      long length = sessionDataFile.length();
+      ProjectData previousProjectData = previous != null && previous.myBasePathDir.equals(basePathDir) ? previous.myProjectData : null;
+      Set<String> changedFiles = new HashSet<>();
+      ProjectData projectData = readProjectData(sessionDataFile, basePathDir, previousProjectData, changedFiles);
+      if (projectData == null) {
+        return null;
+      }
+      loadedCoverage.put(key, new LoadedCoverage(basePathDir, lastModified, length, projectData));
+      return changedFiles;
+    }
+  }
+
+  @NotNull
+  private static Map<String, LoadedCoverage> getLoadedCoverage(@NotNull Project project) {
+    Map<String, LoadedCoverage> loadedCoverage = project.getUserData(LOADED_COVERAGE);
+    if (loadedCoverage == null) {
+      loadedCoverage = new HashMap<>();
+      project.putUserData(LOADED_COVERAGE, loadedCoverage);
     }
+    return loadedCoverage;
+  }
+
+  @Nullable
+  private static ProjectData readProjectData(@NotNull File dataFile,
+                                             @NotNull File basePathDir,
+                                             @Nullable ProjectData previous,
+                                             @NotNull Set<String> changedFiles) {
+    try {
+      return applyReport(previous, CoverageSerializationUtils.readLCOV(basePathDir, dataFile), changedFiles);
+    }
+    catch (Exception e) {
+      LOG.warn("Can't read coverage data", e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private File getBasePathDir() {
+    KarmaServer karmaServer = myKarmaServer;
+    KarmaConfig karmaConfig = karmaServer != null ? karmaServer.getKarmaConfig() : null;
+    String basePath = karmaConfig != null ? karmaConfig.getBasePath() : null;
     if (basePath != null) {
       File basePathDir = new File(basePath);
       if (basePathDir.isAbsolute() && basePathDir.isDirectory()) {
-        try {
-          return readProjectData(sessionDataFile, basePathDir);
-        }
-        catch (Exception e) {
-          LOG.warn("Can't read coverage data", e);
-        }
+        return basePathDir;
       }
     }
     return null;
@@ -59,30 +125,98 @@ public class KarmaCoverageRunner extends CoverageRunner {
     myKarmaServer = karmaServer;
   }
 
+  /**
+   * Creates new project data from the report, so the data which may be shown already is never modified.
+   * Files whose hits are the same as in {@code previous} share its line data, line data is created only for changed files.
+   * Paths of changed, added and removed files are added to {@code changedFiles}.
+   */
   @NotNull
-  private static ProjectData readProjectData(@NotNull File dataFile, @NotNull File basePath) throws IOException {
+  static ProjectData applyReport(@Nullable ProjectData previous,
+                                 @NotNull LcovCoverageReport report,
+                                 @NotNull Set<String> changedFiles) {
+    Map<String, List<LcovCoverageReport.LineHits>> info = report.getInfo();
     ProjectData projectData = new ProjectData();
-    LcovCoverageReport report = CoverageSerializationUtils.readLCOV(basePath, dataFile);
-    for (Map.Entry<String, List<LcovCoverageReport.LineHits>> entry : report.getInfo().entrySet()) {
+    if (previous != null) {
+      for (String filePath : previous.getClasses().keySet()) {
+        if (!info.containsKey(filePath)) {
+          changedFiles.add(filePath);
+        }
+      }
+    }
+    for (Map.Entry<String, List<LcovCoverageReport.LineHits>> entry : info.entrySet()) {
       String filePath = entry.getKey();
-      ClassData classData = projectData.getOrCreateClassData(filePath);
-      int max = 0;
       List<LcovCoverageReport.LineHits> lineHitsList = entry.getValue();
-      if (lineHitsList.size() > 0) {
-        LcovCoverageReport.LineHits lastLineHits = lineHitsList.get(lineHitsList.size() - 1);
-        max = lastLineHits.getLineNumber();
+      ClassData previousClassData = previous != null ? previous.getClassData(filePath) : null;
+      ClassData classData = projectData.getOrCreateClassData(filePath);
+      if (previousClassData != null && hasSameHits(previousClassData, lineHitsList)) {
+        classData.setLines((LineData[])previousClassData.getLines());
       }
-      LineData[] lines = new LineData[max + 1];
-      for (LcovCoverageReport.LineHits lineHits : lineHitsList) {
-        LineData lineData = new LineData(lineHits.getLineNumber(), null);
-        lineData.setHits(lineHits.getHits());
-        lines[lineHits.getLineNumber()] = lineData;
+      else {
+        classData.setLines(createLines(lineHitsList));
+        changedFiles.add(filePath);
       }
-      classData.setLines(lines);
     }
     return projectData;
   }
 
+  @NotNull
+  private static LineData[] createLines(@NotNull List<LcovCoverageReport.LineHits> lineHitsList) {
+    int max = 0;
+    if (lineHitsList.size() > 0) {
+      LcovCoverageReport.LineHits lastLineHits = lineHitsList.get(lineHitsList.size() - 1);
+      max = lastLineHits.getLineNumber();
+    }
+    LineData[] lines = new LineData[max + 1];
+    for (LcovCoverageReport.LineHits lineHits : lineHitsList) {
+      LineData lineData = new LineData(lineHits.getLineNumber(), null);
+      lineData.setHits(lineHits.getHits());
+      lines[lineHits.getLineNumber()] = lineData;
+    }
+    return lines;
+  }
+
+  private static boolean hasSameHits(@NotNull ClassData classData, @NotNull List<LcovCoverageReport.LineHits> lineHitsList) {
+    Object[] lines = classData.getLines();
+    if (lines == null) {
+      return false;
+    }
+    int lineCount = 0;
+    for (Object line : lines) {
+      if (line != null) {
+        lineCount++;
+      }
+    }
+    if (lineCount != lineHitsList.size()) {
+      return false;
+    }
+    for (LcovCoverageReport.LineHits lineHits : lineHitsList) {
+      int lineNumber = lineHits.getLineNumber();
+      LineData lineData = lineNumber < lines.length ? classData.getLineData(lineNumber) : null;
+      if (lineData == null || lineData.getHits() != lineHits.getHits()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static class LoadedCoverage {
+    private final File myBasePathDir;
+    private final long myLastModified;
+    private final long myLength;
+    private final ProjectData myProjectData;
+
+    private LoadedCoverage(@NotNull File basePathDir, long lastModified, long length, @NotNull ProjectData projectData) {
+      myBasePathDir = basePathDir;
+      myLastModified = lastModified;
+      myLength = length;
+      myProjectData = projectData;
+    }
+
+    private boolean isUpToDate(@NotNull File dataFile, @Nullable File basePathDir) {
+      return myBasePathDir.equals(basePathDir) && myLastModified == dataFile.lastModified() && myLength == dataFile.length();
+    }
+  }
+
   @Override
   public String getPresentableName() {
     return "KarmaPresentableName";
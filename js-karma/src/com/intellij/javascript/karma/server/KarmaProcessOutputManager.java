@@ -9,8 +9,11 @@ import com.intellij.javascript.karma.util.StreamEventListener;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.Consumer;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.text.CharArrayUtil;
+import com.intellij.util.text.CharSequenceSubSequence;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayDeque;
@@ -21,6 +24,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class KarmaProcessOutputManager {
 
   private static final int MAX_ARCHIVED_TEXTS_LENGTH = 1024 * 16;
+  private static final int MAX_RETAINED_LINE_CAPACITY = 1024 * 64;
 
   private static final char NEW_LINE = '\n';
   private static final String PREFIX = "##intellij-event[";
@@ -32,7 +36,9 @@ public class KarmaProcessOutputManager {
   private boolean myArchiveTextsTruncated = false;
   private final List<ArchivedOutputListener> myOutputListeners = new CopyOnWriteArrayList<>();
   private final List<StreamEventListener> myStdOutStreamEventListeners = new CopyOnWriteArrayList<>();
-  private final List<Pair<String, Key>> myStdOutCurrentLineChunks = ContainerUtil.newArrayList();
+  /** Start offsets of chunks of different output types in the current line */
+  private final List<Pair<Integer, Key>> myStdOutCurrentLineChunks = ContainerUtil.newArrayList();
+  private StringBuilder myStdOutCurrentLine = new StringBuilder();
   private final Consumer<String> myStdOutLineConsumer;
 
   public KarmaProcessOutputManager(@NotNull ProcessHandler processHandler, @NotNull Consumer<String> stdOutLineConsumer) {
@@ -56,46 +62,63 @@ public class KarmaProcessOutputManager {
     myProcessHandler.startNotify();
   }
 
-  private void processStandardOutput(@NotNull String text, @NotNull Key type) {
+  /**
+   * Splits the output into lines and extracts events from them. Lines split across reads are collected in a reused
+   * buffer, events are passed to listeners as views of the output, without copying their bodies.
+   */
+  void processStandardOutput(@NotNull String text, @NotNull Key type) {
     int lineStartInd = 0;
     int newLineInd = text.indexOf(NEW_LINE, lineStartInd);
     while (newLineInd != -1) {
-      String line = text.substring(lineStartInd, newLineInd + 1); // always not empty
-      if (!myStdOutCurrentLineChunks.isEmpty()) {
-        myStdOutCurrentLineChunks.add(Pair.create(line, type));
-        line = concatCurrentLineChunks();
-      }
-      if (!handleLineAsEvent(line)) {
-        onStandardOutputLineAvailable(line);
-        if (!myStdOutCurrentLineChunks.isEmpty()) {
-          for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-            addText(chunk.getFirst(), chunk.getSecond());
-          }
-        }
-        else {
+      int lineEndInd = newLineInd + 1; // line is always not empty
+      if (myStdOutCurrentLine.length() == 0) {
+        if (!handleLineAsEvent(text, lineStartInd, lineEndInd)) {
+          String line = text.substring(lineStartInd, lineEndInd);
+          onStandardOutputLineAvailable(line);
           addText(line, type);
         }
       }
-      myStdOutCurrentLineChunks.clear();
-      lineStartInd = newLineInd + 1;
+      else {
+        appendToCurrentLine(text, lineStartInd, lineEndInd, type);
+        if (!handleLineAsEvent(myStdOutCurrentLine, 0, myStdOutCurrentLine.length())) {
+          onStandardOutputLineAvailable(myStdOutCurrentLine.toString());
+          addCurrentLineChunks();
+        }
+        clearCurrentLine();
+      }
+      lineStartInd = lineEndInd;
       newLineInd = text.indexOf(NEW_LINE, lineStartInd);
     }
     if (lineStartInd < text.length()) {
-      myStdOutCurrentLineChunks.add(Pair.create(text.substring(lineStartInd), type));
+      appendToCurrentLine(text, lineStartInd, text.length(), type);
     }
   }
 
-  @NotNull
-  private String concatCurrentLineChunks() {
-    int size = 0;
-    for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-      size += chunk.getFirst().length();
+  private void appendToCurrentLine(@NotNull String text, int startInd, int endInd, @NotNull Key type) {
+    if (myStdOutCurrentLineChunks.isEmpty() || myStdOutCurrentLineChunks.get(myStdOutCurrentLineChunks.size() - 1).getSecond() != type) {
+      myStdOutCurrentLineChunks.add(Pair.create(myStdOutCurrentLine.length(), type));
+    }
+    myStdOutCurrentLine.append(text, startInd, endInd);
+  }
+
+  private void addCurrentLineChunks() {
+    int chunkCount = myStdOutCurrentLineChunks.size();
+    for (int i = 0; i < chunkCount; i++) {
+      int chunkStartInd = myStdOutCurrentLineChunks.get(i).getFirst();
+      int chunkEndInd = i + 1 < chunkCount ? myStdOutCurrentLineChunks.get(i + 1).getFirst() : myStdOutCurrentLine.length();
+      addText(myStdOutCurrentLine.substring(chunkStartInd, chunkEndInd), myStdOutCurrentLineChunks.get(i).getSecond());
+    }
+  }
+
+  private void clearCurrentLine() {
+    myStdOutCurrentLineChunks.clear();
+    if (myStdOutCurrentLine.capacity() > MAX_RETAINED_LINE_CAPACITY) {
+      // don't hold memory of a huge event till the end of the process
+      myStdOutCurrentLine = new StringBuilder();
     }
-    StringBuilder result = new StringBuilder(size);
-    for (Pair<String, Key> chunk : myStdOutCurrentLineChunks) {
-      result.append(chunk.getFirst());
+    else {
+      myStdOutCurrentLine.setLength(0);
     }
-    return result.toString();
   }
 
   private void addText(@NotNull String text, @NotNull Key outputType) {
@@ -117,14 +140,17 @@ public class KarmaProcessOutputManager {
     myStdOutLineConsumer.consume(line);
   }
 
-  private boolean handleLineAsEvent(@NotNull String line) {
-    if (line.startsWith(PREFIX) && line.endsWith(SUFFIX)) {
-      int colonInd = line.indexOf(':');
+  private boolean handleLineAsEvent(@NotNull CharSequence text, int lineStartInd, int lineEndInd) {
+    int bodyEndInd = lineEndInd - SUFFIX.length();
+    if (bodyEndInd - lineStartInd >= PREFIX.length() &&
+        CharArrayUtil.regionMatches(text, lineStartInd, PREFIX) &&
+        CharArrayUtil.regionMatches(text, bodyEndInd, SUFFIX)) {
+      int colonInd = StringUtil.indexOf(text, ':', lineStartInd + PREFIX.length(), bodyEndInd);
       if (colonInd == -1) {
         return false;
       }
-      String eventType = line.substring(PREFIX.length(), colonInd);
-      String eventBody = line.substring(colonInd + 1, line.length() - SUFFIX.length());
+      String eventType = text.subSequence(lineStartInd + PREFIX.length(), colonInd).toString();
+      CharSequence eventBody = new CharSequenceSubSequence(text, colonInd + 1, bodyEndInd);
       for (StreamEventListener listener : myStdOutStreamEventListeners) {
         listener.on(eventType, eventBody);
       }
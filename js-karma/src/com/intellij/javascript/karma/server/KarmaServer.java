@@ -2,6 +2,7 @@ package com.intellij.javascript.karma.server;
 
 import com.google.common.collect.Lists;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.configurations.GeneralCommandLine;
@@ -19,6 +20,7 @@ import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.text.CharSequenceReader;
 import com.intellij.util.ui.UIUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -32,6 +34,7 @@ import java.util.Map;
 public class KarmaServer {
 
   private static final Logger LOG = Logger.getInstance(KarmaServer.class);
+  private static final int MAX_LOGGED_EVENT_BODY_LENGTH = 1024;
 
   private final KarmaProcessOutputManager myProcessOutputManager;
   private final KarmaJsSourcesLocator myKarmaJsSourcesLocator;
@@ -75,29 +78,40 @@ public class KarmaServer {
 
     myProcessOutputManager.addStreamEventListener(new StreamEventListener() {
       @Override
-      public void on(@NotNull String eventType, @NotNull String eventBody) {
-        LOG.info("Processing Karma event " + eventType + " " + eventBody);
+      public void on(@NotNull String eventType, @NotNull CharSequence eventBody) {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Processing Karma event " + eventType + " " + shorten(eventBody));
+        }
+        StreamEventHandler handler = myHandlers.get(eventType);
+        if (handler == null) {
+          LOG.warn("Cannot find handler for " + eventType);
+          return;
+        }
         JsonElement jsonElement;
         try {
-          JsonParser jsonParser = new JsonParser();
-          jsonElement = jsonParser.parse(eventBody);
+          jsonElement = new JsonParser().parse(new CharSequenceReader(eventBody));
         }
-        catch (Exception e) {
+        catch (JsonParseException e) {
           LOG.warn("Cannot parse message from karma server:" +
-                   " (eventType: " + eventType + ", eventBody: " + eventBody + ")");
+                   " (eventType: " + eventType + ", eventBody: " + shorten(eventBody) + ")", e);
           return;
         }
-        StreamEventHandler handler = myHandlers.get(eventType);
-        if (handler != null) {
-          handler.handle(jsonElement);
-        }
-        else {
-          LOG.warn("Cannot find handler for " + eventType);
-        }
+        handler.handle(jsonElement);
       }
     });
   }
 
+  /**
+   * Event bodies can take megabytes, only their beginning is logged.
+   */
+  @NotNull
+  private static String shorten(@NotNull CharSequence eventBody) {
+    if (eventBody.length() <= MAX_LOGGED_EVENT_BODY_LENGTH) {
+      return eventBody.toString();
+    }
+    return eventBody.subSequence(0, MAX_LOGGED_EVENT_BODY_LENGTH) + "... (" + eventBody.length() + " chars)";
+  }
+
   @NotNull
   public KarmaServerSettings getServerSettings() {
     return myServerSettings;
@@ -6,5 +6,8 @@ import org.jetbrains.annotations.NotNull;
  * @author Sergey Simonchik
  */
 public interface StreamEventListener {
-  void on(@NotNull String eventType, @NotNull String eventBody);
+  /**
+   * @param eventBody view of the process output, valid only during the call
+   */
+  void on(@NotNull String eventType, @NotNull CharSequence eventBody);
 }
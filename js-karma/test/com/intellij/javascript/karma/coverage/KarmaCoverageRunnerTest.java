@@ -0,0 +1,86 @@
+package com.intellij.javascript.karma.coverage;
+
+import com.intellij.javascript.testFramework.coverage.CoverageSerializationUtils;
+import com.intellij.javascript.testFramework.coverage.LcovCoverageReport;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.rt.coverage.data.ClassData;
+import com.intellij.rt.coverage.data.LineData;
+import com.intellij.rt.coverage.data.ProjectData;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class KarmaCoverageRunnerTest {
+
+  @Rule
+  public TemporaryFolder myTempDir = new TemporaryFolder();
+
+  @Test
+  public void testApplyChangedReport() throws IOException {
+    for (String name : Arrays.asList("a.js", "b.js", "c.js")) {
+      myTempDir.newFile(name);
+    }
+    Set<String> changedFiles = new HashSet<>();
+    ProjectData first = KarmaCoverageRunner.applyReport(null, readReport("SF:a.js\nDA:1,1\nDA:2,0\nend_of_record\n" +
+                                                                         "SF:b.js\nDA:1,3\nend_of_record\n" +
+                                                                         "SF:c.js\nDA:1,1\nend_of_record\n"), changedFiles);
+    String a = findPath(first, "a.js");
+    String b = findPath(first, "b.js");
+    String c = findPath(first, "c.js");
+    Assert.assertEquals(new HashSet<>(Arrays.asList(a, b, c)), changedFiles);
+
+    changedFiles.clear();
+    ProjectData second = KarmaCoverageRunner.applyReport(first, readReport("SF:a.js\nDA:1,1\nDA:2,0\nend_of_record\n" +
+                                                                           "SF:b.js\nDA:1,3\nDA:2,1\nend_of_record\n"), changedFiles);
+    Assert.assertEquals(new HashSet<>(Arrays.asList(b, c)), changedFiles);
+    Assert.assertNotSame(first, second);
+
+    Assert.assertSame(first.getClassData(a).getLines(), second.getClassData(a).getLines());
+    Assert.assertEquals(0, getHits(second.getClassData(a), 2));
+
+    Assert.assertEquals(1, getHits(second.getClassData(b), 2));
+    Assert.assertEquals(2, first.getClassData(b).getLines().length);
+    Assert.assertNull(second.getClassData(c));
+    Assert.assertNotNull(first.getClassData(c));
+  }
+
+  @Test
+  public void testApplySameReport() throws IOException {
+    myTempDir.newFile("a.js");
+    String text = "SF:a.js\nDA:1,1\nDA:3,2\nend_of_record\n";
+    ProjectData first = KarmaCoverageRunner.applyReport(null, readReport(text), new HashSet<>());
+    Set<String> changedFiles = new HashSet<>();
+    ProjectData second = KarmaCoverageRunner.applyReport(first, readReport(text), changedFiles);
+    Assert.assertTrue(changedFiles.isEmpty());
+    String a = findPath(second, "a.js");
+    Assert.assertEquals(2, getHits(second.getClassData(a), 3));
+  }
+
+  private LcovCoverageReport readReport(String text) throws IOException {
+    File lcovFile = myTempDir.newFile();
+    FileUtil.writeToFile(lcovFile, text);
+    return CoverageSerializationUtils.readLCOV(myTempDir.getRoot(), lcovFile);
+  }
+
+  private static String findPath(ProjectData projectData, String fileName) {
+    for (String path : projectData.getClasses().keySet()) {
+      if (path.endsWith(fileName)) {
+        return path;
+      }
+    }
+    throw new AssertionError("No coverage for " + fileName + " in " + projectData.getClasses().keySet());
+  }
+
+  private static int getHits(ClassData classData, int lineNumber) {
+    LineData lineData = classData.getLineData(lineNumber);
+    Assert.assertNotNull(lineData);
+    return lineData.getHits();
+  }
+}
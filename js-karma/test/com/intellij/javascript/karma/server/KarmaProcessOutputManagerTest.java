@@ -0,0 +1,66 @@
+package com.intellij.javascript.karma.server;
+
+import com.intellij.execution.process.NopProcessHandler;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KarmaProcessOutputManagerTest {
+
+  private final List<String> myLines = new ArrayList<>();
+  private final List<Pair<String, String>> myEvents = new ArrayList<>();
+  private KarmaProcessOutputManager myManager;
+
+  @Before
+  public void setUp() {
+    myManager = new KarmaProcessOutputManager(new NopProcessHandler(), myLines::add);
+    myManager.addStreamEventListener((eventType, eventBody) -> myEvents.add(Pair.create(eventType, eventBody.toString())));
+  }
+
+  @Test
+  public void testEventsAndLines() {
+    process("INFO started\n##intellij-event[configFile:{\"basePath\":\"/a\"}]\nINFO done\n");
+    Assert.assertEquals(Arrays.asList("INFO started\n", "INFO done\n"), myLines);
+    Assert.assertEquals(Arrays.asList(Pair.create("configFile", "{\"basePath\":\"/a\"}")), myEvents);
+  }
+
+  @Test
+  public void testEventSplitAcrossReads() {
+    String body = "\"" + StringUtil.repeat("x", 100000) + "\"";
+    String event = "##intellij-event[coverageFinished:" + body + "]\n";
+    for (int i = 0; i < event.length(); i += 8192) {
+      process(event.substring(i, Math.min(event.length(), i + 8192)));
+    }
+    Assert.assertEquals(Arrays.asList(Pair.create("coverageFinished", body)), myEvents);
+    Assert.assertTrue(myLines.isEmpty());
+  }
+
+  @Test
+  public void testLineSplitAcrossReads() {
+    process("INFO sta");
+    process("rted\n##intellij-event[br");
+    process("owserConnected:{}]\nINFO");
+    Assert.assertEquals(Arrays.asList("INFO started\n"), myLines);
+    Assert.assertEquals(Arrays.asList(Pair.create("browserConnected", "{}")), myEvents);
+    process("\n");
+    Assert.assertEquals(Arrays.asList("INFO started\n", "INFO\n"), myLines);
+  }
+
+  @Test
+  public void testMalformedEventIsLine() {
+    process("##intellij-event[noColon]\n##intellij-event[type:{}\n");
+    Assert.assertEquals(Arrays.asList("##intellij-event[noColon]\n", "##intellij-event[type:{}\n"), myLines);
+    Assert.assertTrue(myEvents.isEmpty());
+  }
+
+  private void process(String text) {
+    myManager.processStandardOutput(text, ProcessOutputTypes.STDOUT);
+  }
+}
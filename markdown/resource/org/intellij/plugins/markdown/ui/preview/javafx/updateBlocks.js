@@ -0,0 +1,47 @@
+if (window.__IntelliJTools === undefined) {
+  window.__IntelliJTools = {}
+}
+
+window.__IntelliJTools.updateBlocks = (function () {
+  var shiftSrcPos = function (node, attributeName, delta) {
+    var attrValue = node.getAttribute(attributeName);
+    if (!attrValue) {
+      return
+    }
+    var fromTo = attrValue.split('..');
+    node.setAttribute(attributeName, (parseInt(fromTo[0]) + delta) + '..' + (parseInt(fromTo[1]) + delta))
+  }
+
+  var updateBlocks = function (start, deleteCount, oldBlockCount, html, delta, textLength, attributeName) {
+    var body = document.body;
+    if (!body || body.children.length !== oldBlockCount) {
+      return false
+    }
+
+    var blocks = Array.prototype.slice.call(body.children);
+    var next = start + deleteCount < blocks.length ? blocks[start + deleteCount] : null;
+    for (var i = start; i < start + deleteCount; i++) {
+      body.removeChild(blocks[i])
+    }
+
+    var container = document.createElement('div');
+    container.innerHTML = html;
+    while (container.firstChild) {
+      body.insertBefore(container.firstChild, next)
+    }
+
+    if (delta !== 0) {
+      for (var j = start + deleteCount; j < blocks.length; j++) {
+        shiftSrcPos(blocks[j], attributeName, delta);
+        var nested = blocks[j].querySelectorAll('[' + attributeName + ']');
+        for (var k = 0; k < nested.length; k++) {
+          shiftSrcPos(nested[k], attributeName, delta)
+        }
+      }
+    }
+    body.setAttribute(attributeName, '0..' + textLength);
+    return true
+  }
+
+  return updateBlocks
+})()
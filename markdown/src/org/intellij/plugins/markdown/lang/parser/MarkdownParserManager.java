@@ -1,26 +1,97 @@
 package org.intellij.plugins.markdown.lang.parser;
 
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
 import org.intellij.markdown.MarkdownElementTypes;
 import org.intellij.markdown.ast.ASTNode;
 import org.intellij.markdown.flavours.gfm.GFMFlavourDescriptor;
 import org.intellij.markdown.parser.MarkdownParser;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Parses Markdown text without inlines and shares the results between threads, so that the highlighting lexer,
+ * the PSI parser and the preview parse the same text only once.
+ * <p/>
+ * A few last results are looked up by content. Results of documents are also looked up by their modification stamp,
+ * documents are weakly referenced.
+ */
 public class MarkdownParserManager {
+  private static final Logger LOG = Logger.getInstance(MarkdownParserManager.class);
+
   public static final GFMFlavourDescriptor FLAVOUR = new GFMFlavourDescriptor();
 
-  private static final ThreadLocal<ParsingInfo> ourLastParsingResult = new ThreadLocal<>();
+  private static final int MAX_RECENT_RESULTS = 8;
+
+  // guarded by itself, the most recently used result is the first one
+  private static final LinkedList<ParsingInfo> ourRecentResults = new LinkedList<>();
 
+  private static final Map<Document, ParsingInfo> ourDocumentResults = ContainerUtil.createConcurrentWeakMap();
+
+  @NotNull
   public static ASTNode parseContent(@NotNull CharSequence buffer) {
-    final ParsingInfo info = ourLastParsingResult.get();
-    if (info != null && info.myBufferHash == buffer.hashCode() && info.myBuffer.equals(buffer)) {
+    return getParsingInfo(buffer).myParseResult;
+  }
+
+  /**
+   * @param text text of the document at {@code modificationStamp}, both should be read in one read action
+   */
+  @NotNull
+  public static ASTNode parseContent(@NotNull Document document, @NotNull CharSequence text, long modificationStamp) {
+    final ParsingInfo info = ourDocumentResults.get(document);
+    if (info != null && info.myModificationStamp == modificationStamp) {
       return info.myParseResult;
     }
 
+    final ParsingInfo result = getParsingInfo(text);
+    ourDocumentResults.put(document, new ParsingInfo(result, modificationStamp));
+    return result.myParseResult;
+  }
+
+  @NotNull
+  private static ParsingInfo getParsingInfo(@NotNull CharSequence buffer) {
+    final int hash = StringUtil.stringHashCode(buffer);
+    final ParsingInfo cached = findRecentResult(buffer, hash);
+    if (cached != null) {
+      return cached;
+    }
+
+    final long start = System.nanoTime();
     final ASTNode parseResult = new MarkdownParser(FLAVOUR)
       .parse(MarkdownElementTypes.MARKDOWN_FILE, buffer.toString(), false);
-    ourLastParsingResult.set(new ParsingInfo(buffer, parseResult));
-    return parseResult;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Parsed " + buffer.length() + " chars in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    final ParsingInfo info = new ParsingInfo(buffer, hash, parseResult, -1);
+    synchronized (ourRecentResults) {
+      ourRecentResults.addFirst(info);
+      if (ourRecentResults.size() > MAX_RECENT_RESULTS) {
+        ourRecentResults.removeLast();
+      }
+    }
+    return info;
+  }
+
+  @Nullable
+  private static ParsingInfo findRecentResult(@NotNull CharSequence buffer, int hash) {
+    synchronized (ourRecentResults) {
+      for (Iterator<ParsingInfo> iterator = ourRecentResults.iterator(); iterator.hasNext(); ) {
+        final ParsingInfo info = iterator.next();
+        if (info.myBufferHash == hash && StringUtil.equals(info.myBuffer, buffer)) {
+          iterator.remove();
+          ourRecentResults.addFirst(info);
+          return info;
+        }
+      }
+    }
+    return null;
   }
 
   private static class ParsingInfo {
@@ -29,11 +100,17 @@ public class MarkdownParserManager {
     final int myBufferHash;
     @NotNull
     final ASTNode myParseResult;
+    final long myModificationStamp;
 
-    public ParsingInfo(@NotNull CharSequence buffer, @NotNull ASTNode parseResult) {
+    ParsingInfo(@NotNull CharSequence buffer, int bufferHash, @NotNull ASTNode parseResult, long modificationStamp) {
       myBuffer = buffer;
-      myBufferHash = myBuffer.hashCode();
+      myBufferHash = bufferHash;
       myParseResult = parseResult;
+      myModificationStamp = modificationStamp;
+    }
+
+    ParsingInfo(@NotNull ParsingInfo info, long modificationStamp) {
+      this(info.myBuffer, info.myBufferHash, info.myParseResult, modificationStamp);
     }
   }
 }
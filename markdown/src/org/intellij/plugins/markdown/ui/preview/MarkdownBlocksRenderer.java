@@ -0,0 +1,301 @@
+package org.intellij.plugins.markdown.ui.preview;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.intellij.markdown.IElementType;
+import org.intellij.markdown.MarkdownElementTypes;
+import org.intellij.markdown.MarkdownTokenTypes;
+import org.intellij.markdown.ast.ASTNode;
+import org.intellij.markdown.ast.CompositeASTNode;
+import org.intellij.markdown.flavours.gfm.GFMTokenTypes;
+import org.intellij.markdown.html.GeneratingProvider;
+import org.intellij.markdown.html.HtmlGenerator;
+import org.intellij.markdown.parser.LinkMap;
+import org.intellij.markdown.parser.MarkdownParser;
+import org.intellij.plugins.markdown.lang.parser.MarkdownParserManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the preview html by top-level blocks and remembers the blocks of the last rendering, so that after an edit
+ * only the blocks which intersect it are generated and sanitized again and the panel can replace just these blocks
+ * (see {@link MarkdownHtmlPanel#updateBlocks(Update)}). Every block is wrapped into a {@code div} with its source range.
+ * <p/>
+ * Blocks are reused while the link definitions of the document stay the same, because any block may refer to them.
+ */
+public class MarkdownBlocksRenderer {
+  private static final Logger LOG = Logger.getInstance(MarkdownBlocksRenderer.class);
+
+  private static final String SRC_ATTRIBUTE_NAME = HtmlGenerator.Companion.getSRC_ATTRIBUTE_NAME();
+  private static final Pattern SRC_POSITION = Pattern.compile(SRC_ATTRIBUTE_NAME + "=\"(\\d+)\\.\\.(\\d+)\"");
+
+  @Nullable
+  private final URI myBaseUri;
+
+  @NotNull
+  private List<Block> myBlocks = Collections.emptyList();
+  @NotNull
+  private String myText = "";
+  @NotNull
+  private String myHtml = "";
+  @Nullable
+  private String myLinkDefinitions = null;
+
+  MarkdownBlocksRenderer(@Nullable URI baseUri) {
+    myBaseUri = baseUri;
+  }
+
+  /**
+   * Forgets the last rendering, so that the next {@link #render(String)} generates all blocks
+   */
+  synchronized void reset() {
+    myBlocks = Collections.emptyList();
+    myText = "";
+    myHtml = "";
+    myLinkDefinitions = null;
+  }
+
+  @NotNull
+  Update render(@NotNull String text) {
+    return render(text, MarkdownParserManager.parseContent(text));
+  }
+
+  /**
+   * @param tree the tree of {@code text} without inlines (see {@link MarkdownParserManager}),
+   *             inlines are parsed only in the blocks which are generated again
+   */
+  @NotNull
+  synchronized Update render(@NotNull String text, @NotNull ASTNode tree) {
+    final long start = System.nanoTime();
+
+    final List<ASTNode> nodes = new ArrayList<>();
+    final StringBuilder linkDefinitions = new StringBuilder();
+    for (ASTNode child : tree.getChildren()) {
+      if (child.getType() == MarkdownTokenTypes.EOL || child.getType() == MarkdownTokenTypes.WHITE_SPACE) continue;
+      nodes.add(child);
+      if (child.getType() == MarkdownElementTypes.LINK_DEFINITION) {
+        linkDefinitions.append(text, child.getStartOffset(), child.getEndOffset()).append('\n');
+      }
+    }
+
+    final List<Block> oldBlocks = myBlocks;
+    final int delta = text.length() - myText.length();
+    int prefix = 0;
+    int suffix = 0;
+    final boolean full = !linkDefinitions.toString().equals(myLinkDefinitions);
+    if (!full) {
+      final int common = Math.min(oldBlocks.size(), nodes.size());
+      while (prefix < common && isSameBlock(oldBlocks.get(prefix), nodes.get(prefix), text, 0)) {
+        prefix++;
+      }
+      while (suffix < common - prefix &&
+             isSameBlock(oldBlocks.get(oldBlocks.size() - 1 - suffix), nodes.get(nodes.size() - 1 - suffix), text, delta)) {
+        suffix++;
+      }
+    }
+
+    Map<IElementType, GeneratingProvider> providers = null;
+    final List<Block> blocks = new ArrayList<>(nodes.size());
+    final StringBuilder insertedHtml = new StringBuilder();
+    for (int i = 0; i < nodes.size(); i++) {
+      final ASTNode node = nodes.get(i);
+      if (i < prefix) {
+        blocks.add(oldBlocks.get(i));
+      }
+      else if (i >= nodes.size() - suffix) {
+        final Block oldBlock = oldBlocks.get(oldBlocks.size() - nodes.size() + i);
+        blocks.add(delta == 0 ? oldBlock : new Block(node, shiftSrcPositions(oldBlock.myHtml, delta)));
+      }
+      else {
+        if (providers == null) {
+          providers = MarkdownParserManager.FLAVOUR.createHtmlGeneratingProviders(LinkMap.Builder.buildLinkMap(tree, text), myBaseUri);
+        }
+        final Block block = new Block(node, generateBlockHtml(text, parseInlines(text, node), providers));
+        blocks.add(block);
+        insertedHtml.append(block.myHtml);
+      }
+    }
+
+    final StringBuilder html = new StringBuilder("<html><head></head><body " + SRC_ATTRIBUTE_NAME + "=\"0.." + text.length() + "\">");
+    for (Block block : blocks) {
+      html.append(block.myHtml);
+    }
+    html.append("</body></html>");
+
+    final Update update = new Update(html.toString(), myHtml, full, prefix, oldBlocks.size() - prefix - suffix, oldBlocks.size(),
+                                     insertedHtml.toString(), delta, text.length());
+    myBlocks = blocks;
+    myText = text;
+    myHtml = update.getHtml();
+    myLinkDefinitions = linkDefinitions.toString();
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Generated " + (blocks.size() - prefix - suffix) + " of " + blocks.size() + " blocks" + (full ? " (full)" : "") +
+                " in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+    return update;
+  }
+
+  private boolean isSameBlock(@NotNull Block oldBlock, @NotNull ASTNode node, @NotNull String text, int delta) {
+    final int length = node.getEndOffset() - node.getStartOffset();
+    return oldBlock.myType == node.getType() &&
+           oldBlock.myStartOffset + delta == node.getStartOffset() &&
+           oldBlock.myEndOffset - oldBlock.myStartOffset == length &&
+           text.regionMatches(node.getStartOffset(), myText, oldBlock.myStartOffset, length);
+  }
+
+  @NotNull
+  private static String generateBlockHtml(@NotNull String text,
+                                          @NotNull ASTNode node,
+                                          @NotNull Map<IElementType, GeneratingProvider> providers) {
+    final String html = new HtmlGenerator(text, node, providers, true).generateHtml();
+    return "<div " + SRC_ATTRIBUTE_NAME + "=\"" + node.getStartOffset() + ".." + node.getEndOffset() + "\">" +
+           MarkdownPreviewFileEditor.SANITIZER_VALUE.getValue().sanitize(html) +
+           "</div>";
+  }
+
+  /**
+   * Replaces the leaves holding inline content with their inline trees, the same way {@link MarkdownParser} does
+   * when it parses the text with inlines
+   */
+  @NotNull
+  private static ASTNode parseInlines(@NotNull String text, @NotNull ASTNode node) {
+    final IElementType type = node.getType();
+    if (node.getChildren().isEmpty()) {
+      if (type == MarkdownElementTypes.PARAGRAPH || type == MarkdownTokenTypes.ATX_CONTENT ||
+          type == MarkdownTokenTypes.SETEXT_CONTENT || type == GFMTokenTypes.CELL) {
+        return new MarkdownParser(MarkdownParserManager.FLAVOUR).parseInline(type, text, node.getStartOffset(), node.getEndOffset());
+      }
+      return node;
+    }
+
+    final List<ASTNode> children = new ArrayList<>(node.getChildren().size());
+    for (ASTNode child : node.getChildren()) {
+      children.add(parseInlines(text, child));
+    }
+    return new CompositeASTNode(type, children);
+  }
+
+  @NotNull
+  static String shiftSrcPositions(@NotNull String html, int delta) {
+    final Matcher matcher = SRC_POSITION.matcher(html);
+    final StringBuffer result = new StringBuffer(html.length());
+    while (matcher.find()) {
+      final int from = Integer.parseInt(matcher.group(1)) + delta;
+      final int to = Integer.parseInt(matcher.group(2)) + delta;
+      matcher.appendReplacement(result, SRC_ATTRIBUTE_NAME + "=\"" + from + ".." + to + "\"");
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+
+  private static class Block {
+    @NotNull
+    private final IElementType myType;
+    private final int myStartOffset;
+    private final int myEndOffset;
+    @NotNull
+    private final String myHtml;
+
+    private Block(@NotNull ASTNode node, @NotNull String html) {
+      myType = node.getType();
+      myStartOffset = node.getStartOffset();
+      myEndOffset = node.getEndOffset();
+      myHtml = html;
+    }
+  }
+
+  /**
+   * Result of a rendering: the whole page and the difference from the previous rendering.
+   * The blocks {@code [start, start + deleteCount)} of the previous rendering are replaced with {@code insertedHtml}
+   * and source positions of the following blocks are shifted by {@code delta}.
+   * The difference may only be applied to the page with {@code previousHtml}.
+   */
+  public static class Update {
+    @NotNull
+    private final String myHtml;
+    @NotNull
+    private final String myPreviousHtml;
+    private final boolean myFull;
+    private final int myStart;
+    private final int myDeleteCount;
+    private final int myOldBlockCount;
+    @NotNull
+    private final String myInsertedHtml;
+    private final int myDelta;
+    private final int myTextLength;
+
+    private Update(@NotNull String html,
+                   @NotNull String previousHtml,
+                   boolean full,
+                   int start,
+                   int deleteCount,
+                   int oldBlockCount,
+                   @NotNull String insertedHtml,
+                   int delta,
+                   int textLength) {
+      myHtml = html;
+      myPreviousHtml = previousHtml;
+      myFull = full;
+      myStart = start;
+      myDeleteCount = deleteCount;
+      myOldBlockCount = oldBlockCount;
+      myInsertedHtml = insertedHtml;
+      myDelta = delta;
+      myTextLength = textLength;
+    }
+
+    @NotNull
+    public String getHtml() {
+      return myHtml;
+    }
+
+    @NotNull
+    public String getPreviousHtml() {
+      return myPreviousHtml;
+    }
+
+    /**
+     * @return true if there is no previous rendering to patch, all blocks are generated again
+     */
+    public boolean isFull() {
+      return myFull;
+    }
+
+    public boolean isEmpty() {
+      return !myFull && myDeleteCount == 0 && myInsertedHtml.isEmpty() && myDelta == 0;
+    }
+
+    public int getStart() {
+      return myStart;
+    }
+
+    public int getDeleteCount() {
+      return myDeleteCount;
+    }
+
+    public int getOldBlockCount() {
+      return myOldBlockCount;
+    }
+
+    @NotNull
+    public String getInsertedHtml() {
+      return myInsertedHtml;
+    }
+
+    public int getDelta() {
+      return myDelta;
+    }
+
+    public int getTextLength() {
+      return myTextLength;
+    }
+  }
+}
@@ -14,7 +14,7 @@ import java.util.Arrays;
 import java.util.List;
 
 public abstract class MarkdownHtmlPanel implements Disposable {
-  protected static final List<String> SCRIPTS = Arrays.asList("processLinks.js", "scrollToElement.js");
+  protected static final List<String> SCRIPTS = Arrays.asList("processLinks.js", "scrollToElement.js", "updateBlocks.js");
 
   protected static final List<String> STYLES = Arrays.asList("default.css", "darcula.css", PreviewStaticServer.INLINE_CSS_FILENAME);
 
@@ -23,6 +23,15 @@ public abstract class MarkdownHtmlPanel implements Disposable {
 
   public abstract void setHtml(@NotNull String html);
 
+  /**
+   * Replaces the changed top-level blocks of the rendered page. Panels which can't patch their content
+   * render the whole page of the update.
+   */
+  public void updateBlocks(@NotNull MarkdownBlocksRenderer.Update update) {
+    setHtml(update.getHtml());
+    render();
+  }
+
   public abstract void setCSS(@Nullable String inlineCss, @NotNull String... fileUris);
 
   public abstract void render();
@@ -5,6 +5,8 @@ import com.intellij.codeHighlighting.BackgroundEditorHighlighter;
 import com.intellij.ide.structureView.StructureViewBuilder;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.openapi.editor.event.DocumentListener;
@@ -15,16 +17,12 @@ import com.intellij.openapi.fileEditor.FileEditorState;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.NotNullLazyValue;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.Alarm;
 import com.intellij.util.messages.MessageBusConnection;
-import org.intellij.markdown.IElementType;
-import org.intellij.markdown.ast.ASTNode;
-import org.intellij.markdown.html.GeneratingProvider;
 import org.intellij.markdown.html.HtmlGenerator;
-import org.intellij.markdown.parser.LinkMap;
-import org.intellij.markdown.parser.MarkdownParser;
 import org.intellij.plugins.markdown.lang.parser.MarkdownParserManager;
 import org.intellij.plugins.markdown.settings.MarkdownApplicationSettings;
 import org.intellij.plugins.markdown.settings.MarkdownCssSettings;
@@ -40,10 +38,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.net.URI;
-import java.util.Map;
 
 public class MarkdownPreviewFileEditor extends UserDataHolderBase implements FileEditor {
+  private static final Logger LOG = Logger.getInstance(MarkdownPreviewFileEditor.class);
+
   private final static long PARSING_CALL_TIMEOUT_MS = 50L;
 
   private final static long RENDERING_DELAY_MS = 20L;
@@ -97,10 +95,14 @@ public class MarkdownPreviewFileEditor extends UserDataHolderBase implements Fil
   private volatile int myLastScrollOffset;
   @NotNull
   private String myLastRenderedHtml = "";
+  @NotNull
+  private final MarkdownBlocksRenderer myRenderer;
 
   public MarkdownPreviewFileEditor(@NotNull VirtualFile file) {
     myFile = file;
     myDocument = FileDocumentManager.getInstance().getDocument(myFile);
+    final VirtualFile parent = file.getParent();
+    myRenderer = new MarkdownBlocksRenderer(parent != null ? new File(parent.getPath()).toURI() : null);
 
     if (myDocument != null) {
       myDocument.addDocumentListener(new DocumentListener() {
@@ -228,7 +230,13 @@ public class MarkdownPreviewFileEditor extends UserDataHolderBase implements Fil
       return;
     }
 
-    final String html = generateMarkdownHtml(myFile, myDocument.getText());
+    final long start = System.nanoTime();
+    final Document document = myDocument;
+    final Pair<String, Long> snapshot =
+      ReadAction.compute(() -> Pair.create(document.getText(), document.getModificationStamp()));
+    final String text = snapshot.first;
+    final MarkdownBlocksRenderer.Update update =
+      myRenderer.render(text, MarkdownParserManager.parseContent(document, text, snapshot.second));
 
     // EA-75860: The lines to the top may be processed slowly; Since we're in pooled thread, we can be disposed already.
     if (!myFile.isValid() || Disposer.isDisposed(this)) {
@@ -240,17 +248,30 @@ public class MarkdownPreviewFileEditor extends UserDataHolderBase implements Fil
         mySwingAlarm.cancelRequest(myLastHtmlOrRefreshRequest);
       }
       myLastHtmlOrRefreshRequest = () -> {
-        final String currentHtml = "<html><head></head>" + SANITIZER_VALUE.getValue().sanitize(html) + "</html>";
-        if (!currentHtml.equals(myLastRenderedHtml)) {
-          myLastRenderedHtml = currentHtml;
-          myPanel.setHtml(myLastRenderedHtml);
-
-          if (preserveScrollOffset) {
-            myPanel.scrollToMarkdownSrcOffset(myLastScrollOffset);
+        if (!update.getHtml().equals(myLastRenderedHtml)) {
+          // the blocks may only be patched if the panel shows the rendering the update is based on,
+          // otherwise (e.g. the previous request was cancelled) the whole page is loaded
+          if (!update.isFull() && update.getPreviousHtml().equals(myLastRenderedHtml)) {
+            myLastRenderedHtml = update.getHtml();
+            myPanel.updateBlocks(update);
           }
+          else {
+            myLastRenderedHtml = update.getHtml();
+            myPanel.setHtml(myLastRenderedHtml);
+
+            if (preserveScrollOffset) {
+              myPanel.scrollToMarkdownSrcOffset(myLastScrollOffset);
+            }
+            myPanel.render();
+          }
+        }
+        else {
+          myPanel.render();
         }
 
-        myPanel.render();
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Preview updated in " + (System.nanoTime() - start) / 1000000 + " ms" + (update.isFull() ? " (full)" : ""));
+        }
         synchronized (REQUESTS_LOCK) {
           myLastHtmlOrRefreshRequest = null;
         }
@@ -294,18 +315,6 @@ public class MarkdownPreviewFileEditor extends UserDataHolderBase implements Fil
     Disposer.dispose(myPanel);
   }
 
-  @NotNull
-  private static String generateMarkdownHtml(@NotNull VirtualFile file, @NotNull String text) {
-    final VirtualFile parent = file.getParent();
-    final URI baseUri = parent != null ? new File(parent.getPath()).toURI() : null;
-
-    final ASTNode parsedTree = new MarkdownParser(MarkdownParserManager.FLAVOUR).buildMarkdownTreeFromString(text);
-    final Map<IElementType, GeneratingProvider> htmlGeneratingProviders =
-      MarkdownParserManager.FLAVOUR.createHtmlGeneratingProviders(LinkMap.Builder.buildLinkMap(parsedTree, text), baseUri);
-
-    return new HtmlGenerator(text, parsedTree, htmlGeneratingProviders, true).generateHtml();
-  }
-
   @Contract("_, null, null -> fail")
   @NotNull
   private static MarkdownHtmlPanel detachOldPanelAndCreateAndAttachNewOne(@NotNull JPanel panelWrapper,
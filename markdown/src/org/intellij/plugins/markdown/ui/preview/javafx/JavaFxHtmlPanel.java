@@ -4,6 +4,7 @@ import com.intellij.ide.IdeEventQueue;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.NotNullLazyValue;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.ui.JBColor;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.containers.ContainerUtil;
@@ -22,6 +23,7 @@ import javafx.scene.web.WebView;
 import netscape.javascript.JSObject;
 import org.intellij.markdown.html.HtmlGenerator;
 import org.intellij.plugins.markdown.settings.MarkdownApplicationSettings;
+import org.intellij.plugins.markdown.ui.preview.MarkdownBlocksRenderer;
 import org.intellij.plugins.markdown.ui.preview.MarkdownHtmlPanel;
 import org.intellij.plugins.markdown.ui.preview.PreviewStaticServer;
 import org.jetbrains.annotations.NotNull;
@@ -33,6 +35,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class JavaFxHtmlPanel extends MarkdownHtmlPanel {
+  private static final Logger LOG = Logger.getInstance(JavaFxHtmlPanel.class);
 
   private static final NotNullLazyValue<String> MY_SCRIPTING_LINES = new NotNullLazyValue<String>() {
     @NotNull
@@ -158,6 +161,37 @@ public class JavaFxHtmlPanel extends MarkdownHtmlPanel {
     runInPlatformWhenAvailable(() -> getWebViewGuaranteed().getEngine().loadContent(htmlToRender));
   }
 
+  /**
+   * Patches the loaded page in place, so that layout, scroll position and scripts are kept.
+   * Falls back to loading the whole page if it isn't loaded yet or doesn't match the previous rendering.
+   */
+  @Override
+  public void updateBlocks(@NotNull MarkdownBlocksRenderer.Update update) {
+    myLastRawHtml = update.getHtml();
+    final String htmlToRender = prepareHtml(update.getHtml());
+    final String script =
+      "'__IntelliJTools' in window && 'updateBlocks' in __IntelliJTools && __IntelliJTools.updateBlocks(" +
+      update.getStart() + ", " + update.getDeleteCount() + ", " + update.getOldBlockCount() + ", " +
+      "\"" + escapeJavaScriptString(ImageRefreshFix.setStamps(update.getInsertedHtml())) + "\", " +
+      update.getDelta() + ", " + update.getTextLength() + ", '" + HtmlGenerator.Companion.getSRC_ATTRIBUTE_NAME() + "')";
+
+    runInPlatformWhenAvailable(() -> {
+      final WebEngine engine = getWebViewGuaranteed().getEngine();
+      final long start = System.nanoTime();
+      if (engine.getLoadWorker().getState() != State.SUCCEEDED || !Boolean.TRUE.equals(engine.executeScript(script))) {
+        engine.loadContent(htmlToRender);
+      }
+      else if (LOG.isDebugEnabled()) {
+        LOG.debug("Patched " + update.getDeleteCount() + " preview blocks in " + (System.nanoTime() - start) / 1000000 + " ms");
+      }
+    });
+  }
+
+  @NotNull
+  private static String escapeJavaScriptString(@NotNull String s) {
+    return StringUtil.escapeStringCharacters(s).replace("\u2028", "\\u2028").replace("\u2029", "\\u2029");
+  }
+
   @NotNull
   private String prepareHtml(@NotNull String html) {
     return ImageRefreshFix.setStamps(html
@@ -0,0 +1,61 @@
+package org.intellij.plugins.markdown.parser;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+import org.intellij.markdown.ast.ASTNode;
+import org.intellij.plugins.markdown.lang.MarkdownFileType;
+import org.intellij.plugins.markdown.lang.parser.MarkdownParserManager;
+
+import java.util.concurrent.Future;
+
+public class MarkdownParserManagerTest extends LightPlatformCodeInsightFixtureTestCase {
+  private static final String TEXT = "# Title\n\nSome *text* with [a link][link]\n\n[link]: http://example.com\n";
+
+  public void testSameContent() {
+    final ASTNode tree = MarkdownParserManager.parseContent(TEXT);
+    assertSame(tree, MarkdownParserManager.parseContent(new StringBuilder(TEXT)));
+    assertNotSame(tree, MarkdownParserManager.parseContent(TEXT + "more\n"));
+  }
+
+  public void testSharedBetweenThreads() throws Exception {
+    final ASTNode tree = MarkdownParserManager.parseContent(TEXT);
+    final Future<ASTNode> future =
+      ApplicationManager.getApplication().executeOnPooledThread(() -> MarkdownParserManager.parseContent(new StringBuilder(TEXT)));
+    assertSame(tree, future.get());
+  }
+
+  public void testDocumentStamp() {
+    myFixture.configureByText(MarkdownFileType.INSTANCE, TEXT);
+    final Document document = myFixture.getEditor().getDocument();
+    final ASTNode tree = MarkdownParserManager.parseContent(document, document.getText(), document.getModificationStamp());
+    assertSame(tree, MarkdownParserManager.parseContent(TEXT));
+    assertSame(tree, MarkdownParserManager.parseContent(document, document.getText(), document.getModificationStamp()));
+
+    myFixture.type("changed");
+    final ASTNode changedTree = MarkdownParserManager.parseContent(document, document.getText(), document.getModificationStamp());
+    assertNotSame(tree, changedTree);
+    assertEquals(document.getTextLength(), changedTree.getEndOffset());
+  }
+
+  public void testTypingInLargeFile() {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append("## Section ").append(i).append("\n\n")
+        .append("Some *text* with `code` and [a link](http://example.com/").append(i).append(")").append(i == 1000 ? "<caret>" : "")
+        .append("\n\n* item\n* item\n\n");
+    }
+    myFixture.configureByText(MarkdownFileType.INSTANCE, text.toString());
+    myFixture.doHighlighting();
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 5000, () -> {
+      for (int i = 0; i < 20; i++) {
+        myFixture.type("x");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+        myFixture.doHighlighting();
+      }
+    }).attempts(1).assertTiming();
+  }
+}
@@ -0,0 +1,62 @@
+package org.intellij.plugins.markdown.ui.preview;
+
+import com.intellij.testFramework.UsefulTestCase;
+
+public class MarkdownBlocksRendererTest extends UsefulTestCase {
+  private static final String TEXT = "# Title\n\nFirst paragraph\n\nSecond paragraph\n\nThird paragraph\n";
+
+  public void testFirstRenderingIsFull() {
+    final MarkdownBlocksRenderer.Update update = new MarkdownBlocksRenderer(null).render(TEXT);
+    assertTrue(update.isFull());
+    assertEquals("", update.getPreviousHtml());
+    assertTrue(update.getHtml().contains("<h1"));
+  }
+
+  public void testEditInsideBlock() {
+    final MarkdownBlocksRenderer renderer = new MarkdownBlocksRenderer(null);
+    final MarkdownBlocksRenderer.Update first = renderer.render(TEXT);
+    final MarkdownBlocksRenderer.Update update = renderer.render(TEXT.replace("Second paragraph", "Second edited paragraph"));
+
+    assertFalse(update.isFull());
+    assertEquals(first.getHtml(), update.getPreviousHtml());
+    assertEquals(2, update.getStart());
+    assertEquals(1, update.getDeleteCount());
+    assertEquals(4, update.getOldBlockCount());
+    assertEquals(7, update.getDelta());
+    assertTrue(update.getInsertedHtml().contains("Second edited paragraph"));
+    assertFalse(update.getInsertedHtml().contains("Third paragraph"));
+    assertEquals(new MarkdownBlocksRenderer(null).render(TEXT.replace("Second paragraph", "Second edited paragraph")).getHtml(),
+                 update.getHtml());
+  }
+
+  public void testInlinesOfChangedBlock() {
+    final MarkdownBlocksRenderer renderer = new MarkdownBlocksRenderer(null);
+    renderer.render(TEXT);
+    final MarkdownBlocksRenderer.Update update = renderer.render(TEXT.replace("Second paragraph", "Second *emphasized* paragraph"));
+    assertTrue(update.getInsertedHtml().contains("<em"));
+  }
+
+  public void testSameText() {
+    final MarkdownBlocksRenderer renderer = new MarkdownBlocksRenderer(null);
+    renderer.render(TEXT);
+    assertTrue(renderer.render(TEXT).isEmpty());
+  }
+
+  public void testLinkDefinitionChangeIsFull() {
+    final MarkdownBlocksRenderer renderer = new MarkdownBlocksRenderer(null);
+    renderer.render(TEXT + "\n[link]: http://a.com\n");
+    assertTrue(renderer.render(TEXT + "\n[link]: http://b.com\n").isFull());
+  }
+
+  public void testReset() {
+    final MarkdownBlocksRenderer renderer = new MarkdownBlocksRenderer(null);
+    renderer.render(TEXT);
+    renderer.reset();
+    assertTrue(renderer.render(TEXT).isFull());
+  }
+
+  public void testShiftSrcPositions() {
+    assertEquals("<p md-src-pos=\"12..20\">a <em md-src-pos=\"14..16\">b</em></p>",
+                 MarkdownBlocksRenderer.shiftSrcPositions("<p md-src-pos=\"10..18\">a <em md-src-pos=\"12..14\">b</em></p>", 2));
+  }
+}
@@ -32,15 +32,24 @@ import aQute.service.reporter.Report;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.osgi.jps.model.LibraryBundlificationRule;
 import org.jetbrains.osgi.jps.util.OrderedProperties;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
@@ -53,6 +62,13 @@ import java.util.stream.Collectors;
  * @author <a href="mailto:janthomae@janthomae.de">Jan Thomä</a>
  */
 public class BndWrapper {
+  private static final String CACHE_DIR_NAME = "cache";
+  private static final int CACHE_VERSION = 2;
+  /** Cache entries not used for this long are deleted */
+  private static final long MAX_UNUSED_ENTRY_AGE = TimeUnit.DAYS.toMillis(30);
+  /** Guards marking cache entries as used against pruning them by concurrent launches */
+  private static final Object ourCacheLock = new Object();
+
   private final Reporter myReporter;
 
   public BndWrapper(Reporter reporter) {
@@ -61,21 +77,36 @@ public class BndWrapper {
 
   /**
    * Wraps .jar files using Bnd analyzer. Uses bundlification rules defined in Settings/OSGi/Library Bundling.
+   * <p/>
+   * Wrapped libraries are cached in the {@code cache} subdirectory of the output directory, keyed by library path,
+   * length and timestamp and effective bundlification properties, so the same library is wrapped only once for all
+   * modules and builds. Cache misses are wrapped in parallel; messages are reported in the order of dependencies.
+   * Entries which were not used by any launch for {@link #MAX_UNUSED_ENTRY_AGE} are deleted.
    */
   @NotNull
   public List<String> bundlifyLibraries(@NotNull Collection<File> dependencies,
                                         @NotNull File outputDir,
                                         @NotNull List<LibraryBundlificationRule> rules) {
     List<String> result = ContainerUtil.newArrayListWithCapacity(dependencies.size());
+    File cacheDir = new File(outputDir, CACHE_DIR_NAME);
 
+    List<Object> entries = ContainerUtil.newArrayListWithCapacity(dependencies.size());
+    Map<String, WrapTask> tasks = ContainerUtil.newLinkedHashMap();
     for (File dependency : dependencies) {
       String path = dependency.getPath();
       if (CachingBundleInfoProvider.canBeBundlified(path)) {
         myReporter.progress(path);
         try {
-          File bundledDependency = wrap(dependency, outputDir, rules);
-          if (bundledDependency != null) {
-            result.add(bundledDependency.getPath());
+          Map<String, String> properties = getBundlificationProperties(dependency, rules);
+          if (properties != null) {
+            String key = getCacheKey(dependency, properties);
+            deleteLegacyBundle(outputDir, dependency);
+            WrapTask task = tasks.get(key);
+            if (task == null) {
+              task = new WrapTask(dependency, new File(new File(cacheDir, key), dependency.getName()), properties);
+              tasks.put(key, task);
+            }
+            entries.add(task);
           }
         }
         catch (OsgiBuildException e) {
@@ -83,46 +114,248 @@ public class BndWrapper {
         }
       }
       else if (CachingBundleInfoProvider.isBundle(path)) {
-        result.add(path);
+        entries.add(path);
+      }
+    }
+
+    pruneCache(cacheDir, tasks.keySet());
+    runWrapTasks(ContainerUtil.filter(tasks.values(), task -> !task.myTargetFile.isFile()));
+
+    Set<WrapTask> reported = ContainerUtil.newHashSet();
+    for (Object entry : entries) {
+      if (entry instanceof WrapTask) {
+        WrapTask task = (WrapTask)entry;
+        if (reported.add(task)) {
+          task.myReporter.replay();
+          if (task.myException != null) {
+            myReporter.warning(task.myException.getMessage(), task.myException.getCause(), task.myException.getSourcePath(), -1);
+          }
+        }
+        if (task.myException == null && task.myTargetFile.isFile()) {
+          result.add(task.myTargetFile.getPath());
+        }
+      }
+      else {
+        result.add((String)entry);
       }
     }
 
     return result;
   }
 
+  /**
+   * Marks the given entries as used now and deletes entries which were not used for {@link #MAX_UNUSED_ENTRY_AGE},
+   * so that bundles of other launches sharing the cache (possibly loaded by a running framework) are kept.
+   */
+  private void pruneCache(@NotNull File cacheDir, @NotNull Set<String> usedEntries) {
+    long now = System.currentTimeMillis();
+    synchronized (ourCacheLock) {
+      File[] children = cacheDir.listFiles();
+      if (children == null) {
+        return;
+      }
+      for (File child : children) {
+        if (usedEntries.contains(child.getName())) {
+          //noinspection ResultOfMethodCallIgnored
+          child.setLastModified(now);
+        }
+        else if (now - child.lastModified() > MAX_UNUSED_ENTRY_AGE && !FileUtil.delete(child)) {
+          myReporter.warning("Can't delete outdated bundle '" + child + "'", null, null, -1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Previous versions wrapped libraries right into the output directory, the wrapped library is in the cache now.
+   */
+  private static void deleteLegacyBundle(@NotNull File outputDir, @NotNull File dependency) {
+    File legacyBundle = new File(outputDir, dependency.getName());
+    if (legacyBundle.isFile()) {
+      FileUtil.delete(legacyBundle);
+    }
+  }
+
+  private void runWrapTasks(@NotNull List<WrapTask> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    if (tasks.size() == 1) {
+      tasks.get(0).run();
+      return;
+    }
+
+    int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, ConcurrencyUtil.newNamedThreadFactory("OSGi Library Bundlification"));
+    try {
+      List<Future<?>> futures = ContainerUtil.newArrayListWithCapacity(tasks.size());
+      for (WrapTask task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        catch (ExecutionException e) {
+          Logger.getInstance(BndWrapper.class).error(e.getCause());
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns effective bnd properties of the library according to bundlification rules,
+   * or {@code null} if the library should not be bundled.
+   */
   @Nullable
-  private File wrap(@NotNull File sourceFile, @NotNull File outputDir, @NotNull List<LibraryBundlificationRule> rules) throws OsgiBuildException {
+  private static Map<String, String> getBundlificationProperties(@NotNull File sourceFile,
+                                                                 @NotNull List<LibraryBundlificationRule> rules) throws OsgiBuildException {
     if (!sourceFile.isFile()) {
       throw new OsgiBuildException("The library '" + sourceFile + "' does not exist - please check module dependencies.");
     }
 
-    File targetFile = new File(outputDir, sourceFile.getName());
     Map<String, String> additionalProperties = ContainerUtil.newHashMap();
 
-    long lastModified = Long.MIN_VALUE;
     for (LibraryBundlificationRule bundlificationRule : rules) {
       if (bundlificationRule.appliesTo(sourceFile.getName())) {
         if (bundlificationRule.isDoNotBundle()) {
           return null;
         }
         additionalProperties.putAll(bundlificationRule.getAdditionalPropertiesMap());
-        lastModified = Math.max(lastModified, bundlificationRule.getLastModified());
         if (bundlificationRule.isStopAfterThisRule()) {
           break;
         }
       }
     }
 
-    if (targetFile.exists() && targetFile.lastModified() >= sourceFile.lastModified() && targetFile.lastModified() >= lastModified) {
-      return targetFile;
+    return additionalProperties;
+  }
+
+  /**
+   * Cache key of a wrapped library: hash of the library path, length and timestamp (the same stamp the wrapped library
+   * was checked with before caching), its name (used for the default symbolic name) and effective bundlification properties.
+   */
+  @NotNull
+  private static String getCacheKey(@NotNull File sourceFile, @NotNull Map<String, String> properties) throws OsgiBuildException {
+    StringBuilder text = new StringBuilder().append(CACHE_VERSION).append('\n')
+      .append(sourceFile.getAbsolutePath()).append(':').append(sourceFile.length()).append(':').append(sourceFile.lastModified()).append('\n')
+      .append(sourceFile.getName()).append('\n');
+    for (Map.Entry<String, String> entry : new TreeMap<>(properties).entrySet()) {
+      text.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+    }
+    return toHexString(createDigest().digest(text.toString().getBytes(CharsetToolkit.UTF8_CHARSET)));
+  }
+
+  @NotNull
+  private static MessageDigest createDigest() throws OsgiBuildException {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new OsgiBuildException("SHA-1 is not supported", e, null);
+    }
+  }
+
+  @NotNull
+  private static String toHexString(@NotNull byte[] bytes) {
+    StringBuilder result = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return result.toString();
+  }
+
+  private class WrapTask implements Runnable {
+    private final File mySourceFile;
+    private final File myTargetFile;
+    private final Map<String, String> myProperties;
+    private final BufferingReporter myReporter = new BufferingReporter(BndWrapper.this.myReporter);
+    private OsgiBuildException myException;
+
+    private WrapTask(@NotNull File sourceFile, @NotNull File targetFile, @NotNull Map<String, String> properties) {
+      mySourceFile = sourceFile;
+      myTargetFile = targetFile;
+      myProperties = properties;
+    }
+
+    @Override
+    public void run() {
+      File tempFile = new File(myTargetFile.getPath() + ".tmp" + Thread.currentThread().getId());
+      try {
+        doWrap(mySourceFile, tempFile, myProperties, myReporter);
+        if (!tempFile.renameTo(myTargetFile) && !myTargetFile.isFile()) {
+          throw new OsgiBuildException("Can't create bundle '" + myTargetFile + "'");
+        }
+      }
+      catch (OsgiBuildException e) {
+        myException = e;
+      }
+      finally {
+        FileUtil.delete(tempFile);
+      }
+    }
+  }
+
+  /**
+   * Collects messages of a background task to pass them to the real reporter later, in a predictable order.
+   */
+  private static class BufferingReporter implements Reporter {
+    private final Reporter myDelegate;
+    private final List<Consumer<Reporter>> myMessages = Collections.synchronizedList(new ArrayList<>());
+
+    private BufferingReporter(@NotNull Reporter delegate) {
+      myDelegate = delegate;
+    }
+
+    @Override
+    public void progress(@NotNull String message) {
+      myMessages.add(reporter -> reporter.progress(message));
+    }
+
+    @Override
+    public void warning(@NotNull String message, @Nullable Throwable t, @Nullable String sourcePath, int lineNum) {
+      myMessages.add(reporter -> reporter.warning(message, t, sourcePath, lineNum));
     }
 
-    doWrap(sourceFile, targetFile, additionalProperties);
-    return targetFile;
+    @Override
+    public void error(@NotNull String message, @Nullable Throwable t, @Nullable String sourcePath, int lineNum) {
+      myMessages.add(reporter -> reporter.error(message, t, sourcePath, lineNum));
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return myDelegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(@NotNull String message) {
+      myMessages.add(reporter -> reporter.debug(message));
+    }
+
+    @Override
+    public String setReportSource(String source) {
+      return null;
+    }
+
+    private void replay() {
+      synchronized (myMessages) {
+        myMessages.forEach(message -> message.accept(myDelegate));
+      }
+    }
   }
 
   // internal function which does the actual wrapping. 90% borrowed from the Bnd source code.
-  private void doWrap(@NotNull File inputJar, @NotNull File outputJar, @NotNull Map<String, String> properties) throws OsgiBuildException {
+  private void doWrap(@NotNull File inputJar,
+                      @NotNull File outputJar,
+                      @NotNull Map<String, String> properties,
+                      @NotNull Reporter reporter) throws OsgiBuildException {
     if (!FileUtil.delete(outputJar)) {
       throw new OsgiBuildException("Can't delete outdated bundle '" + outputJar + "'");
     }
@@ -130,7 +363,7 @@ public class BndWrapper {
       throw new OsgiBuildException("Can't create output directory for '" + outputJar + "'");
     }
 
-    try (Analyzer analyzer = new ReportingAnalyzer(myReporter)) {
+    try (Analyzer analyzer = new ReportingAnalyzer(reporter)) {
       analyzer.setPedantic(false);
       analyzer.setJar(inputJar);
       analyzer.putAll(properties, false);
@@ -169,8 +402,8 @@ public class BndWrapper {
         jar.write(outputJar);
       }
 
-      analyzer.getWarnings().forEach(s -> reportProblem(s, null, false));
-      analyzer.getErrors().forEach(s -> reportProblem(s, null, true));
+      analyzer.getWarnings().forEach(s -> reportProblem(reporter, s, null, false));
+      analyzer.getErrors().forEach(s -> reportProblem(reporter, s, null, true));
     }
     catch (OsgiBuildException e) {
       throw e;
@@ -264,11 +497,11 @@ public class BndWrapper {
       jar.write(outputFile);
     }
 
-    builder.getWarnings().forEach(s -> reportProblem(s, builder.getLocation(s), false));
-    builder.getErrors().forEach(s -> reportProblem(s, builder.getLocation(s), true));
+    builder.getWarnings().forEach(s -> reportProblem(myReporter, s, builder.getLocation(s), false));
+    builder.getErrors().forEach(s -> reportProblem(myReporter, s, builder.getLocation(s), true));
   }
 
-  private void reportProblem(String message, Report.Location location, boolean error) {
+  private static void reportProblem(Reporter reporter, String message, Report.Location location, boolean error) {
     String sourcePath = null;
     int lineNum = -1;
     if (location != null) {
@@ -278,10 +511,10 @@ public class BndWrapper {
       }
     }
     if (error) {
-      myReporter.error(message, null, sourcePath, lineNum);
+      reporter.error(message, null, sourcePath, lineNum);
     }
     else {
-      myReporter.warning(message, null, sourcePath, lineNum);
+      reporter.warning(message, null, sourcePath, lineNum);
     }
   }
 
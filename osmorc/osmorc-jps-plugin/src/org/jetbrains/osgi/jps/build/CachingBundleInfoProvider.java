@@ -26,31 +26,46 @@ package org.jetbrains.osgi.jps.build;
 
 import aQute.bnd.osgi.Constants;
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.*;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 /**
  * This is a helper class which helps providing information about bundles (that do not necessarily belong to the project).
+ * <p/>
+ * Only the attributes needed to identify a bundle are cached; they are keyed by path and validated against
+ * the length and modification time of the manifest source (the .jar file or the manifest of an exploded bundle).
+ * The build process persists the cache between builds via {@link #loadCache(File)} and {@link #saveCache(File)}.
+ * The cache holds at most {@link #MAX_CACHE_SIZE} entries; entries of deleted files are evicted first.
  *
  * @author <a href="mailto:janthomae@janthomae.de">Jan Thomä</a>
  */
 public class CachingBundleInfoProvider {
-  private static final Map<String, Pair<Long, Manifest>> ourCache = new WeakHashMap<String, Pair<Long, Manifest>>();
+  private static final Logger LOG = Logger.getInstance(CachingBundleInfoProvider.class);
+
+  private static final int STORAGE_VERSION = 1;
+  private static final int MAX_CACHE_SIZE = 10000;
+
+  private static final ConcurrentMap<String, BundleInfo> ourCache = ContainerUtil.newConcurrentMap();
+  private static final AtomicLong ourModificationCount = new AtomicLong();
+  private static volatile long ourSavedModificationCount = 0;
+  private static volatile String ourLoadedStorage = null;
 
   /**
    * True for .jar files or exploded directories with Bundle-SymbolicName in their manifests.
    */
   public static boolean isBundle(@NotNull String path) {
-    return getBundleAttribute(path, Constants.BUNDLE_SYMBOLICNAME) != null;
+    return getBundleInfo(path).mySymbolicName != null;
   }
 
   /**
@@ -62,7 +77,7 @@ public class CachingBundleInfoProvider {
 
   @Nullable
   public static String getBundleSymbolicName(@NotNull String path) {
-    String symbolicName = getBundleAttribute(path, Constants.BUNDLE_SYMBOLICNAME);
+    String symbolicName = getBundleInfo(path).mySymbolicName;
     if (symbolicName != null) {
       int p = symbolicName.indexOf(';');
       if (p > 0) symbolicName = symbolicName.substring(0, p);  // take the name and leave out any parameters
@@ -72,62 +87,187 @@ public class CachingBundleInfoProvider {
 
   @Nullable
   public static String getBundleVersion(@NotNull String path) {
-    return getBundleAttribute(path, Constants.BUNDLE_VERSION);
+    return getBundleInfo(path).myVersion;
   }
 
   /**
    * True if the bundle exists and is a fragment one.
    */
   public static boolean isFragmentBundle(@NotNull String path) {
-    return getBundleAttribute(path, Constants.FRAGMENT_HOST) != null;
+    return getBundleInfo(path).myFragmentHost != null;
   }
 
+  /**
+   * Returns a main attribute of the bundle manifest. Attributes other than symbolic name, version and fragment host
+   * are not cached and cause the manifest to be read.
+   */
   @Nullable
-  public synchronized static String getBundleAttribute(@NotNull String path, @NotNull String attribute) {
-    Pair<Long, Manifest> pair = ourCache.remove(path);
+  public static String getBundleAttribute(@NotNull String path, @NotNull String attribute) {
+    if (Constants.BUNDLE_SYMBOLICNAME.equals(attribute)) return getBundleInfo(path).mySymbolicName;
+    if (Constants.BUNDLE_VERSION.equals(attribute)) return getBundleInfo(path).myVersion;
+    if (Constants.FRAGMENT_HOST.equals(attribute)) return getBundleInfo(path).myFragmentHost;
+
+    Manifest manifest = readManifest(new File(path));
+    return manifest != null ? manifest.getMainAttributes().getValue(attribute) : null;
+  }
+
+  /**
+   * Merges the cache persisted by a previous build into memory. Entries already in memory take precedence;
+   * stale ones are dropped lazily on access.
+   */
+  public static void loadCache(@NotNull File storage) {
+    String storagePath = storage.getPath();
+    if (storagePath.equals(ourLoadedStorage) || !storage.isFile()) return;
+
+    try {
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(storage)))) {
+        if (input.readInt() != STORAGE_VERSION) return;
+        int size = input.readInt();
+        for (int i = 0; i < size && ourCache.size() < MAX_CACHE_SIZE; i++) {
+          String path = input.readUTF();
+          ourCache.putIfAbsent(path, BundleInfo.read(input));
+        }
+      }
+      ourLoadedStorage = storagePath;
+    }
+    catch (IOException e) {
+      LOG.info("Cannot load bundle info cache from " + storage, e);
+    }
+  }
+
+  /**
+   * Writes the cache to the given file if it was changed since the last load or save.
+   * Entries of files which no longer exist are not written.
+   */
+  public static void saveCache(@NotNull File storage) {
+    long modificationCount = ourModificationCount.get();
+    if (modificationCount == ourSavedModificationCount && storage.getPath().equals(ourLoadedStorage)) return;
 
     try {
-      File bundleFile = new File(path);
+      FileUtil.createParentDirs(storage);
+      File temp = new File(storage.getPath() + ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        Map<String, BundleInfo> snapshot = ContainerUtil.newHashMap(ourCache);
+        for (Iterator<String> iterator = snapshot.keySet().iterator(); iterator.hasNext(); ) {
+          if (!new File(iterator.next()).exists()) iterator.remove();
+        }
+        output.writeInt(STORAGE_VERSION);
+        output.writeInt(snapshot.size());
+        for (Map.Entry<String, BundleInfo> entry : snapshot.entrySet()) {
+          output.writeUTF(entry.getKey());
+          entry.getValue().write(output);
+        }
+      }
+      FileUtil.rename(temp, storage);
+      ourLoadedStorage = storage.getPath();
+      ourSavedModificationCount = modificationCount;
+    }
+    catch (IOException e) {
+      LOG.info("Cannot save bundle info cache to " + storage, e);
+    }
+  }
+
+  @TestOnly
+  public static void clearCache() {
+    ourCache.clear();
+    ourModificationCount.set(0);
+    ourSavedModificationCount = 0;
+    ourLoadedStorage = null;
+  }
+
+  @NotNull
+  private static BundleInfo getBundleInfo(@NotNull String path) {
+    File bundleFile = new File(path);
+    File stampFile = bundleFile.isDirectory() ? new File(bundleFile, JarFile.MANIFEST_NAME) : bundleFile;
+    long length = stampFile.length(), timestamp = stampFile.lastModified();
+
+    BundleInfo info = ourCache.get(path);
+    if (info == null || info.myLength != length || info.myTimestamp != timestamp) {
+      Manifest manifest = readManifest(bundleFile);
+      if (info == null && ourCache.size() >= MAX_CACHE_SIZE) evictEntries();
+      info = new BundleInfo(length, timestamp, manifest);
+      ourCache.put(path, info);
+      ourModificationCount.incrementAndGet();
+    }
+    return info;
+  }
+
+  /**
+   * Drops entries of files which no longer exist and, if that's not enough, arbitrary entries down to 3/4 of the limit.
+   */
+  private static void evictEntries() {
+    ourCache.keySet().removeIf(path -> !new File(path).exists());
+    for (Iterator<String> iterator = ourCache.keySet().iterator(); iterator.hasNext() && ourCache.size() > MAX_CACHE_SIZE * 3 / 4; ) {
+      iterator.next();
+      iterator.remove();
+    }
+    ourModificationCount.incrementAndGet();
+  }
+
+  @Nullable
+  private static Manifest readManifest(@NotNull File bundleFile) {
+    try {
       if (bundleFile.isDirectory()) {
         File manifestFile = new File(bundleFile, JarFile.MANIFEST_NAME);
-        if (pair == null || pair.first != manifestFile.lastModified()) {
-          pair = null;
-          FileInputStream stream = new FileInputStream(manifestFile);
-          try {
-            Manifest manifest = new Manifest(stream);
-            pair = Pair.create(manifestFile.lastModified(), manifest);
-          }
-          finally {
-            stream.close();
+        if (manifestFile.isFile()) {
+          try (FileInputStream stream = new FileInputStream(manifestFile)) {
+            return new Manifest(stream);
           }
         }
       }
       else if (bundleFile.isFile()) {
-        if (pair == null || pair.first != bundleFile.lastModified()) {
-          pair = null;
-          JarFile jar = new JarFile(bundleFile);
-          try {
-            Manifest manifest = jar.getManifest();
-            if (manifest != null) {
-              pair = Pair.create(bundleFile.lastModified(), manifest);
-            }
-          }
-          finally {
-            jar.close();
-          }
+        try (JarFile jar = new JarFile(bundleFile)) {
+          return jar.getManifest();
         }
       }
     }
     catch (IOException e) {
-      Logger.getInstance(CachingBundleInfoProvider.class).debug(e);
+      LOG.debug(e);
     }
+    return null;
+  }
+
+  private static class BundleInfo {
+    private final long myLength;
+    private final long myTimestamp;
+    private final String mySymbolicName;
+    private final String myVersion;
+    private final String myFragmentHost;
 
-    if (pair != null) {
-      ourCache.put(path, pair);
-      return pair.second.getMainAttributes().getValue(attribute);
+    private BundleInfo(long length, long timestamp, @Nullable String symbolicName, @Nullable String version, @Nullable String fragmentHost) {
+      myLength = length;
+      myTimestamp = timestamp;
+      mySymbolicName = symbolicName;
+      myVersion = version;
+      myFragmentHost = fragmentHost;
     }
-    else {
-      return null;
+
+    private BundleInfo(long length, long timestamp, @Nullable Manifest manifest) {
+      this(length, timestamp,
+           manifest != null ? manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME) : null,
+           manifest != null ? manifest.getMainAttributes().getValue(Constants.BUNDLE_VERSION) : null,
+           manifest != null ? manifest.getMainAttributes().getValue(Constants.FRAGMENT_HOST) : null);
+    }
+
+    private static BundleInfo read(DataInput input) throws IOException {
+      return new BundleInfo(input.readLong(), input.readLong(), readString(input), readString(input), readString(input));
+    }
+
+    private void write(DataOutput output) throws IOException {
+      output.writeLong(myLength);
+      output.writeLong(myTimestamp);
+      writeString(output, mySymbolicName);
+      writeString(output, myVersion);
+      writeString(output, myFragmentHost);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+      return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+      output.writeBoolean(value != null);
+      if (value != null) output.writeUTF(value);
     }
   }
 }
@@ -24,6 +24,7 @@ import org.jetbrains.jps.incremental.CompileContext;
 import org.jetbrains.jps.incremental.ProjectBuildException;
 import org.jetbrains.jps.incremental.TargetBuilder;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 
@@ -33,6 +34,8 @@ import java.util.Collections;
 public class OsmorcBuilder extends TargetBuilder<BuildRootDescriptor, OsmorcBuildTarget> {
   public static final String ID = "osgi";
 
+  private static final String BUNDLE_INFO_STORAGE = "osgi/bundle-info.dat";
+
   public OsmorcBuilder() {
     super(Collections.singletonList(OsmorcBuildTargetType.INSTANCE));
   }
@@ -43,6 +46,16 @@ public class OsmorcBuilder extends TargetBuilder<BuildRootDescriptor, OsmorcBuil
     return ID;
   }
 
+  @Override
+  public void buildStarted(CompileContext context) {
+    CachingBundleInfoProvider.loadCache(getBundleInfoStorage(context));
+  }
+
+  @Override
+  public void buildFinished(CompileContext context) {
+    CachingBundleInfoProvider.saveCache(getBundleInfoStorage(context));
+  }
+
   @Override
   public void build(@NotNull OsmorcBuildTarget target,
                     @NotNull DirtyFilesHolder<BuildRootDescriptor, OsmorcBuildTarget> holder,
@@ -54,4 +67,8 @@ public class OsmorcBuilder extends TargetBuilder<BuildRootDescriptor, OsmorcBuil
       new OsgiBuildSession().build(target, context);
     }
   }
+
+  private static File getBundleInfoStorage(CompileContext context) {
+    return new File(context.getProjectDescriptor().dataManager.getDataPaths().getDataStorageRoot(), BUNDLE_INFO_STORAGE);
+  }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.osgi.jps.build
+
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.testFramework.UsefulTestCase
+import java.io.File
+import java.io.FileOutputStream
+import java.util.concurrent.TimeUnit
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+class BndWrapperTest : UsefulTestCase() {
+  private lateinit var myTempDir: File
+  private lateinit var myOutputDir: File
+  private lateinit var myLibrary: File
+
+  override fun setUp() {
+    super.setUp()
+    myTempDir = FileUtil.createTempDirectory("osgi", "bundlify")
+    myOutputDir = File(myTempDir, "bundles")
+    myLibrary = File(myTempDir, "lib/library-1.0.jar")
+  }
+
+  override fun tearDown() {
+    try {
+      FileUtil.delete(myTempDir)
+    }
+    finally {
+      super.tearDown()
+    }
+  }
+
+  fun testCacheHit() {
+    createLibrary("first")
+    val bundle = bundlify(BndWrapper(TestReporter()))
+    assertTrue(bundle.isFile)
+    bundle.setLastModified(1000)
+
+    assertEquals(bundle, bundlify(BndWrapper(TestReporter())))
+    assertEquals(1000, bundle.lastModified())
+  }
+
+  fun testRewrapOnContentChange() {
+    createLibrary("first")
+    val first = bundlify(BndWrapper(TestReporter()))
+
+    createLibrary("second, longer content")
+    val second = bundlify(BndWrapper(TestReporter()))
+    assertFalse(first == second)
+    assertTrue(second.isFile)
+    assertEquals(setOf("lib/content.txt"), entries(second) - setOf("META-INF/MANIFEST.MF"))
+  }
+
+  fun testKeepEntriesUsedRecently() {
+    createLibrary("first")
+    val first = bundlify(BndWrapper(TestReporter()))
+
+    createLibrary("second, longer content")
+    val second = bundlify(BndWrapper(TestReporter()))
+    assertTrue(first.isFile)
+    assertTrue(second.isFile)
+  }
+
+  fun testPruneStaleEntries() {
+    createLibrary("first")
+    val first = bundlify(BndWrapper(TestReporter()))
+    first.parentFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31))
+
+    createLibrary("second, longer content")
+    val second = bundlify(BndWrapper(TestReporter()))
+    assertFalse(first.parentFile.exists())
+    assertTrue(second.isFile)
+    assertEquals(listOf(second.parentFile.name), File(myOutputDir, "cache").list()!!.toList())
+  }
+
+  fun testUsedEntryIsNotPruned() {
+    createLibrary("first")
+    val first = bundlify(BndWrapper(TestReporter()))
+    first.parentFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31))
+
+    assertEquals(first, bundlify(BndWrapper(TestReporter())))
+    assertTrue(first.isFile)
+  }
+
+  fun testLegacyBundleDeleted() {
+    createLibrary("first")
+    val legacy = File(myOutputDir, myLibrary.name)
+    FileUtil.copy(myLibrary, legacy)
+
+    bundlify(BndWrapper(TestReporter()))
+    assertFalse(legacy.exists())
+  }
+
+  private fun bundlify(wrapper: BndWrapper): File {
+    val paths = wrapper.bundlifyLibraries(listOf(myLibrary), myOutputDir, emptyList())
+    assertEquals(1, paths.size)
+    return File(paths[0])
+  }
+
+  private fun createLibrary(content: String) {
+    FileUtil.createParentDirs(myLibrary)
+    val manifest = Manifest()
+    manifest.mainAttributes[Attributes.Name.MANIFEST_VERSION] = "1.0"
+    JarOutputStream(FileOutputStream(myLibrary), manifest).use {
+      it.putNextEntry(JarEntry("lib/content.txt"))
+      it.write(content.toByteArray())
+      it.closeEntry()
+    }
+  }
+
+  private fun entries(file: File) =
+    JarFile(file).use { it.entries().asSequence().filter { !it.isDirectory }.map { it.name }.toSet() }
+
+  private class TestReporter : Reporter {
+    override fun progress(message: String) { }
+
+    override fun warning(message: String, t: Throwable?, sourcePath: String?, lineNum: Int) { }
+
+    override fun error(message: String, t: Throwable?, sourcePath: String?, lineNum: Int) { }
+
+    override fun isDebugEnabled() = false
+
+    override fun debug(message: String) { }
+
+    override fun setReportSource(source: String?): String? = null
+  }
+}
@@ -32,6 +32,9 @@ import org.junit.Test;
 import org.osmorc.OsgiTestUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.jar.JarFile;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -56,6 +59,7 @@ public class CachingBundleInfoProviderTest {
 
   @After
   public void tearDown() throws Exception {
+    CachingBundleInfoProvider.clearCache();
     FileUtil.delete(myTempDir);
   }
 
@@ -86,4 +90,49 @@ public class CachingBundleInfoProviderTest {
     assertThat(CachingBundleInfoProvider.isFragmentBundle(myJarBundle), equalTo(false));
     assertThat(CachingBundleInfoProvider.isFragmentBundle(myInvalidDirBundle), equalTo(false));
   }
+
+  @Test
+  public void testPersistentCache() throws IOException {
+    assertThat(CachingBundleInfoProvider.getBundleSymbolicName(myJarBundle), equalTo("jarbundle"));
+    File storage = new File(myTempDir, "bundle-info.dat");
+    CachingBundleInfoProvider.saveCache(storage);
+    assertThat(storage.isFile(), equalTo(true));
+
+    CachingBundleInfoProvider.clearCache();
+    CachingBundleInfoProvider.loadCache(storage);
+    corrupt(new File(myJarBundle));
+    assertThat(CachingBundleInfoProvider.getBundleSymbolicName(myJarBundle), equalTo("jarbundle"));
+    assertThat(CachingBundleInfoProvider.getBundleVersion(myJarBundle), equalTo("1.0.0"));
+    assertThat(CachingBundleInfoProvider.isFragmentBundle(myJarBundle), equalTo(false));
+  }
+
+  @Test
+  public void testFailedSaveIsRetried() throws IOException {
+    assertThat(CachingBundleInfoProvider.getBundleSymbolicName(myJarBundle), equalTo("jarbundle"));
+    File storage = new File(myTempDir, "bundle-info.dat");
+    CachingBundleInfoProvider.saveCache(storage);
+
+    assertThat(CachingBundleInfoProvider.getBundleSymbolicName(myDirBundle), equalTo("dirbundle"));
+    File temp = new File(storage.getPath() + ".tmp");
+    assertThat(temp.mkdir(), equalTo(true));
+    CachingBundleInfoProvider.saveCache(storage);
+    FileUtil.delete(temp);
+    CachingBundleInfoProvider.saveCache(storage);
+
+    CachingBundleInfoProvider.clearCache();
+    CachingBundleInfoProvider.loadCache(storage);
+    corrupt(new File(myDirBundle, JarFile.MANIFEST_NAME));
+    assertThat(CachingBundleInfoProvider.getBundleSymbolicName(myDirBundle), equalTo("dirbundle"));
+  }
+
+  /**
+   * Overwrites the file keeping its length and timestamp, so only cached data can be read from it.
+   */
+  private static void corrupt(File file) throws IOException {
+    long timestamp = file.lastModified();
+    byte[] content = new byte[(int)file.length()];
+    Arrays.fill(content, (byte)' ');
+    FileUtil.writeToFile(file, content);
+    assertThat(file.setLastModified(timestamp), equalTo(true));
+  }
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.plugins.ruby.motion.bridgesupport;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.Trinity;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Keeps parsed frameworks with their selector names on disk in a binary form, so they are deserialized
+ * instead of parsing bridgesupport files again. Entries are stored per SDK version and framework name,
+ * an entry is used only if it was written for the same stamp of the bridgesupport file.
+ *
+ * @author Dennis.Ushakov
+ */
+public class BridgeSupportCache {
+  private static final Logger LOG = Logger.getInstance(BridgeSupportCache.class);
+  private static final int VERSION = 1;
+
+  private static final byte CONSTANT = 0;
+  private static final byte STRING_CONSTANT = 1;
+  private static final byte ENUM = 2;
+
+  private static final BridgeSupportCache ourInstance =
+    new BridgeSupportCache(new File(PathManager.getSystemPath(), "rubymotion/bridgesupport"));
+
+  private final File myCacheDir;
+
+  public BridgeSupportCache(@NotNull File cacheDir) {
+    myCacheDir = cacheDir;
+  }
+
+  public static BridgeSupportCache getInstance() {
+    return ourInstance;
+  }
+
+  /**
+   * @return framework, its id selector names and selector names, or null if there is no entry with the given stamp
+   */
+  @Nullable
+  public Trinity<Framework, Set<String>, Set<String>> load(@NotNull String name,
+                                                           @NotNull String version,
+                                                           boolean osx,
+                                                           @NotNull String stamp) {
+    final File file = getCacheFile(name, version, osx);
+    if (!file.isFile()) return null;
+
+    try {
+      final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (in.readInt() != VERSION || !stamp.equals(IOUtil.readUTF(in))) {
+          return null;
+        }
+        final Input input = new Input(in);
+        final Framework framework = input.readFramework(name, version, osx);
+        final Set<String> idSelectorNames = input.readStrings();
+        final Set<String> selectorNames = input.readStrings();
+        return Trinity.create(framework, idSelectorNames, selectorNames);
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      LOG.info("Can't read cached framework " + name + ", v." + version, e);
+      FileUtil.delete(file);
+      return null;
+    }
+  }
+
+  public void save(@NotNull Framework framework,
+                   @NotNull Set<String> idSelectorNames,
+                   @NotNull Set<String> selectorNames,
+                   @NotNull String stamp) {
+    final File file = getCacheFile(framework.getName(), framework.getVersion(), framework.isOSX());
+    final File tempFile = new File(file.getPath() + ".tmp");
+    try {
+      FileUtil.createParentDirs(file);
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      try {
+        out.writeInt(VERSION);
+        IOUtil.writeUTF(out, stamp);
+        final Output output = new Output(out);
+        output.writeFramework(framework);
+        output.writeStrings(idSelectorNames);
+        output.writeStrings(selectorNames);
+      }
+      finally {
+        out.close();
+      }
+      FileUtil.rename(tempFile, file);
+    }
+    catch (IOException e) {
+      LOG.warn("Can't cache framework " + framework, e);
+      FileUtil.delete(tempFile);
+      FileUtil.delete(file);
+    }
+  }
+
+  @NotNull
+  private File getCacheFile(@NotNull String name, @NotNull String version, boolean osx) {
+    final String fileName = FileUtil.sanitizeFileName(version + "-" + name + (osx ? "-osx" : ""), false);
+    return new File(myCacheDir, fileName + ".dat");
+  }
+
+  /**
+   * Writes every distinct string once, repeated ones are written as indices of the first occurrence.
+   */
+  private static class Output {
+    private final DataOutput myOut;
+    private final Map<String, Integer> myStringIndices = new HashMap<>();
+
+    private Output(@NotNull DataOutput out) {
+      myOut = out;
+    }
+
+    private void writeFramework(@NotNull Framework framework) throws IOException {
+      writeFunctions(framework);
+      writeClasses(framework.getClasses());
+      writeClasses(framework.getProtocols());
+
+      final Collection<Constant> constants = framework.getConstants();
+      writeInt(constants.size());
+      for (Constant constant : constants) {
+        writeConstant(constant);
+      }
+
+      final Collection<Struct> structs = framework.getStructs();
+      writeInt(structs.size());
+      for (Struct struct : structs) {
+        writeString(struct.getName());
+        final Collection<String> fields = struct.getFields();
+        writeInt(fields.size());
+        for (String field : fields) {
+          writeString(field);
+          writeString(struct.getFieldType(field));
+        }
+      }
+
+      final Map<String, String> aliases = framework.getFunctionAliases();
+      writeInt(aliases.size());
+      for (Map.Entry<String, String> entry : aliases.entrySet()) {
+        writeString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+
+    private void writeClasses(@NotNull Collection<Class> classes) throws IOException {
+      writeInt(classes.size());
+      for (Class clazz : classes) {
+        writeString(clazz.getName());
+        writeFunctions(clazz);
+        writeClasses(clazz.getSubClasses());
+      }
+    }
+
+    private void writeFunctions(@NotNull FunctionHolder holder) throws IOException {
+      final Collection<Function> functions = holder.getFunctions();
+      writeInt(functions.size());
+      for (Function function : functions) {
+        writeString(function.getName());
+        myOut.writeBoolean(function.isVariadic());
+        myOut.writeBoolean(function.isClassMethod());
+        writeString(function.getReturnValue());
+        final List<Pair<String, String>> arguments = function.getArguments();
+        writeInt(arguments.size());
+        for (Pair<String, String> argument : arguments) {
+          writeString(argument.first);
+          writeString(argument.second);
+        }
+      }
+    }
+
+    private void writeConstant(@NotNull Constant constant) throws IOException {
+      if (constant instanceof StringConstant) {
+        myOut.writeByte(STRING_CONSTANT);
+        writeString(constant.getName());
+        writeString(((StringConstant)constant).getValue());
+        myOut.writeBoolean(((StringConstant)constant).isNsString());
+      }
+      else if (constant instanceof Enum) {
+        myOut.writeByte(ENUM);
+        writeString(constant.getName());
+        writeString(((Enum)constant).getValue());
+      }
+      else {
+        myOut.writeByte(CONSTANT);
+        writeString(constant.getName());
+        writeString(constant.getDeclaredType());
+      }
+    }
+
+    private void writeStrings(@NotNull Set<String> strings) throws IOException {
+      writeInt(strings.size());
+      for (String s : strings) {
+        writeString(s);
+      }
+    }
+
+    private void writeInt(int value) throws IOException {
+      DataInputOutputUtil.writeINT(myOut, value);
+    }
+
+    private void writeString(@Nullable String s) throws IOException {
+      if (s == null) {
+        writeInt(0);
+        return;
+      }
+      final Integer index = myStringIndices.get(s);
+      if (index != null) {
+        writeInt(index + 2);
+        return;
+      }
+      myStringIndices.put(s, myStringIndices.size());
+      writeInt(1);
+      IOUtil.writeUTF(myOut, s);
+    }
+  }
+
+  private static class Input {
+    private final DataInput myIn;
+    private final List<String> myStrings = new ArrayList<>();
+
+    private Input(@NotNull DataInput in) {
+      myIn = in;
+    }
+
+    @NotNull
+    private Framework readFramework(@NotNull String name, @NotNull String version, boolean osx) throws IOException {
+      final Framework framework = new Framework(name, version, osx);
+      readFunctions(framework);
+      for (Class clazz : readClasses()) {
+        framework.addClass(clazz);
+      }
+      for (Class protocol : readClasses()) {
+        framework.addProtocol(protocol);
+      }
+
+      for (int i = readInt(); i > 0; i--) {
+        framework.addConstant(readConstant());
+      }
+
+      for (int i = readInt(); i > 0; i--) {
+        final Struct struct = new Struct(readString());
+        for (int j = readInt(); j > 0; j--) {
+          struct.addField(readString(), readString());
+        }
+        struct.seal();
+        framework.addStruct(struct);
+      }
+
+      for (int i = readInt(); i > 0; i--) {
+        framework.addFunctionAlias(readString(), readString());
+      }
+      framework.seal();
+      return framework;
+    }
+
+    @NotNull
+    private List<Class> readClasses() throws IOException {
+      final int count = readInt();
+      final List<Class> classes = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        final Class clazz = new Class(readString());
+        readFunctions(clazz);
+        for (Class subClass : readClasses()) {
+          clazz.addSubClass(subClass);
+        }
+        clazz.seal();
+        classes.add(clazz);
+      }
+      return classes;
+    }
+
+    private void readFunctions(@NotNull FunctionHolder holder) throws IOException {
+      for (int i = readInt(); i > 0; i--) {
+        final Function function = new Function(readString(), myIn.readBoolean(), myIn.readBoolean());
+        final String returnValue = readString();
+        for (int j = readInt(); j > 0; j--) {
+          function.addArgument(readString(), readString());
+        }
+        function.setReturnValue(returnValue);
+        holder.addFunction(function);
+      }
+    }
+
+    @NotNull
+    private Constant readConstant() throws IOException {
+      final byte kind = myIn.readByte();
+      switch (kind) {
+        case STRING_CONSTANT:
+          return new StringConstant(readString(), readString(), myIn.readBoolean());
+        case ENUM:
+          return new Enum(readString(), readString());
+        case CONSTANT:
+          return new Constant(readString(), readString());
+        default:
+          throw new IOException("Unknown constant kind: " + kind);
+      }
+    }
+
+    @NotNull
+    private Set<String> readStrings() throws IOException {
+      final int count = readInt();
+      final Set<String> strings = new HashSet<>(count * 4 / 3 + 1);
+      for (int i = 0; i < count; i++) {
+        strings.add(readString());
+      }
+      return strings;
+    }
+
+    private int readInt() throws IOException {
+      return DataInputOutputUtil.readINT(myIn);
+    }
+
+    @Nullable
+    private String readString() throws IOException {
+      final int ref = readInt();
+      if (ref == 0) return null;
+      if (ref == 1) {
+        final String s = IOUtil.readUTF(myIn).intern();
+        myStrings.add(s);
+        return s;
+      }
+      return myStrings.get(ref - 2);
+    }
+  }
+}
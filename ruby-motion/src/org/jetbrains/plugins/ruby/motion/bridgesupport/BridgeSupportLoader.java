@@ -18,13 +18,13 @@ package org.jetbrains.plugins.ruby.motion.bridgesupport;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.Consumer;
-import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.ruby.motion.RubyMotionUtil;
 import org.jetbrains.plugins.ruby.utils.VirtualFileUtil;
 
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,7 +32,8 @@ import java.util.Set;
  * @author Dennis.Ushakov
  */
 public class BridgeSupportLoader {
-  private final Map<String, List<FrameworkInfo>> myFrameworks = new HashMap<>();
+  /** Frameworks by SDK version and name, built once and read without locking */
+  private volatile Map<String, Map<String, FrameworkInfo>> myFrameworks = null;
 
   public static BridgeSupportLoader getInstance() {
     return ServiceManager.getService(BridgeSupportLoader.class);
@@ -46,35 +47,44 @@ public class BridgeSupportLoader {
 
   @Nullable
   private FrameworkInfo getFrameworkInfo(String version, String name) {
-    ensureFrameworksLoaded();
-    final List<FrameworkInfo> frameworkInfos = myFrameworks.get(version);
-    if (frameworkInfos == null) return null;
+    final Map<String, FrameworkInfo> frameworkInfos = ensureFrameworksLoaded().get(version);
+    return frameworkInfos != null ? frameworkInfos.get(name) : null;
+  }
 
-    for (FrameworkInfo frameworkInfo : frameworkInfos) {
-      if (frameworkInfo.getName().equals(name)) {
-        return frameworkInfo;
+  @NotNull
+  private Map<String, Map<String, FrameworkInfo>> ensureFrameworksLoaded() {
+    Map<String, Map<String, FrameworkInfo>> frameworks = myFrameworks;
+    if (frameworks != null) {
+      return frameworks;
+    }
+    synchronized (this) {
+      frameworks = myFrameworks;
+      if (frameworks != null) {
+        return frameworks;
+      }
+      frameworks = new HashMap<>();
+      loadFrameworks(frameworks);
+      if (!frameworks.isEmpty()) {
+        myFrameworks = frameworks;
       }
+      return frameworks;
     }
-    return null;
   }
 
-  private synchronized void ensureFrameworksLoaded() {
-    if (!myFrameworks.isEmpty()) {
-      return;
-    }
+  private static void loadFrameworks(Map<String, Map<String, FrameworkInfo>> frameworks) {
     VirtualFile rubyMotion = VirtualFileUtil.findFileBy(RubyMotionUtil.getInstance().getRubyMotionPath() + "/data/ios/");
     rubyMotion = rubyMotion == null ? VirtualFileUtil.findFileBy(RubyMotionUtil.getInstance().getRubyMotionPath() + "/data/") : rubyMotion;
-    loadSdks(rubyMotion);
+    loadSdks(rubyMotion, frameworks);
     if (rubyMotion == null || !"ios".equals(rubyMotion.getName())) {
       return;
     }
     rubyMotion = VirtualFileUtil.findFileBy(RubyMotionUtil.getInstance().getRubyMotionPath() + "/data/android/");
-    loadSdks(rubyMotion);
+    loadSdks(rubyMotion, frameworks);
     rubyMotion = VirtualFileUtil.findFileBy(RubyMotionUtil.getInstance().getRubyMotionPath() + "/data/osx/");
-    loadSdks(rubyMotion);
+    loadSdks(rubyMotion, frameworks);
   }
 
-  private void loadSdks(VirtualFile rubyMotion) {
+  private static void loadSdks(VirtualFile rubyMotion, Map<String, Map<String, FrameworkInfo>> frameworks) {
     if (rubyMotion == null) {
       return;
     }
@@ -82,23 +92,23 @@ public class BridgeSupportLoader {
       if (file.isDirectory()) {
         final VirtualFile bridgeSupport = file.findChild("BridgeSupport");
         if (bridgeSupport == null) continue;
-        ensureFrameworkLoaded(bridgeSupport);
+        ensureFrameworkLoaded(bridgeSupport, frameworks);
       }
     }
   }
 
-  private void ensureFrameworkLoaded(final VirtualFile bridgeSupport) {
+  private static void ensureFrameworkLoaded(final VirtualFile bridgeSupport, Map<String, Map<String, FrameworkInfo>> frameworks) {
     String version = bridgeSupport.getParent().getName();
-    List<FrameworkInfo> frameworkInfos = ContainerUtil.newArrayList();
+    Map<String, FrameworkInfo> frameworkInfos = new LinkedHashMap<>();
     for (VirtualFile file : bridgeSupport.getChildren()) {
       final String name = file.getNameWithoutExtension();
       if (RubyMotionUtil.getInstance().isIgnoredFrameworkName(name)) continue;
-      if ("bridgesupport".equals(file.getExtension()) && file.getLength() > 0) {
+      if ("bridgesupport".equals(file.getExtension()) && file.getLength() > 0 && !frameworkInfos.containsKey(name)) {
         boolean isOSX = "osx".equals(file.getParent().getParent().getParent().getName());
-        frameworkInfos.add(new FrameworkInfo(name, version, isOSX, file.getPath()));
+        frameworkInfos.put(name, new FrameworkInfo(name, version, isOSX, file.getPath()));
       }
     }
-    myFrameworks.put(version, frameworkInfos);
+    frameworks.put(version, frameworkInfos);
   }
 
   public boolean isIdSelector(String name, String sdkVersion, String frameworkName) {
@@ -116,9 +126,8 @@ public class BridgeSupportLoader {
   }
 
   public void processFrameworks(Consumer<Framework> consumer) {
-    ensureFrameworksLoaded();
-    for (List<FrameworkInfo> frameworkInfos : myFrameworks.values()) {
-      for (FrameworkInfo frameworkInfo : frameworkInfos) {
+    for (Map<String, FrameworkInfo> frameworkInfos : ensureFrameworksLoaded().values()) {
+      for (FrameworkInfo frameworkInfo : frameworkInfos.values()) {
         Framework framework = frameworkInfo.getFramework();
         if (framework != null) {
           consumer.consume(framework);
@@ -18,14 +18,18 @@ package org.jetbrains.plugins.ruby.motion.bridgesupport;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.io.StreamUtil;
 import com.intellij.openapi.util.text.StringUtil;
-import org.jdom.Element;
-import org.jdom.input.SAXBuilder;
 import org.jetbrains.org.objectweb.asm.Opcodes;
 import org.jetbrains.org.objectweb.asm.signature.SignatureReader;
 import org.jetbrains.org.objectweb.asm.signature.SignatureVisitor;
 import org.jetbrains.plugins.ruby.ruby.lang.psi.impl.RNameUtilCore;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -41,8 +45,9 @@ public class BridgeSupportReader {
   public static Framework read(final String name, final String version, final InputStream text, final boolean osx) {
     final Framework framework = new Framework(name, version, osx);
     try {
-      final Element root = new SAXBuilder().build(text).getRootElement();
-      readFramework(root, framework);
+      final XMLReader reader = XMLReaderFactory.createXMLReader();
+      reader.setContentHandler(new FrameworkHandler(framework));
+      reader.parse(new InputSource(text));
       framework.mergeClasses();
     } catch (Exception e) {
       LOG.error("Can't load framework", e, name, version, osx ? "osx" : "");
@@ -54,66 +59,117 @@ public class BridgeSupportReader {
     return framework;
   }
 
-  private static void readFramework(Element root, Framework framework) {
+  /**
+   * Builds the framework model in a single pass over the file: top level elements are framework members,
+   * methods are read inside classes and protocols, arguments and return values inside functions and methods.
+   * Only the element being read is kept, so no document tree is built.
+   */
+  private static class FrameworkHandler extends DefaultHandler {
+    private final Framework myFramework;
+    /** Name attributes of the open elements, from the root down */
+    private final List<String> myNames = new ArrayList<>();
+    private Class myClass;
+    private boolean myProtocol;
+    private Struct myStruct;
+    private Function myFunction;
+    private String myFunctionType;
+    private int myFunctionDepth;
+
+    private FrameworkHandler(Framework framework) {
+      myFramework = framework;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      final int depth = myNames.size() + 1;
+      final String parentName = depth > 1 ? myNames.get(depth - 2) : null;
+      myNames.add(attributes.getValue(NAME));
+
+      if (myFunction != null) {
+        if (depth == myFunctionDepth + 1) {
+          if ("arg".equals(qName)) {
+            myFunction.addArgument(intern(attributes.getValue(NAME)), getDeclaredType(attributes, parentName));
+          } else if ("retval".equals(qName)) {
+            myFunction.setReturnValue(getDeclaredType(attributes, parentName));
+          }
+        }
+      } else if (depth == 2) {
+        startFrameworkMember(qName, attributes, parentName);
+      } else if (depth == 3) {
+        if (myClass != null && "method".equals(qName)) {
+          startFunction(attributes, depth);
+        } else if (myStruct != null && "field".equals(qName)) {
+          myStruct.addField(attributes.getValue(NAME), getDeclaredType(attributes, parentName));
+        }
+      }
+    }
 
-    final List children = root.getChildren();
-    for (Object child : children) {
-      final Element e = (Element)child;
-      final String name = e.getName();
+    private void startFrameworkMember(String name, Attributes attributes, String parentName) {
       if ("class".equals(name) || "interface".equals(name)) {
-        framework.addClass(readClass(e));
+        myClass = new Class(buildClassName(attributes.getValue(NAME)));
+        myProtocol = false;
       } else if ("informal_protocol".equals(name)) {
-        framework.addProtocol(readClass(e));
+        myClass = new Class(buildClassName(attributes.getValue(NAME)));
+        myProtocol = true;
       } else if ("constant".equals(name)) {
-        readConstant(framework, e);
+        myFramework.addConstant(new Constant(attributes.getValue(NAME), getDeclaredType(attributes, parentName)));
       } else if ("string_constant".equals(name)) {
-        readStringConstant(framework, e);
+        final String nsstring = attributes.getValue("nsstring");
+        myFramework.addConstant(new StringConstant(attributes.getValue(NAME), attributes.getValue("value"), "true".equals(nsstring)));
       } else if ("enum".equals(name)) {
-        readEnum(framework, e);
+        myFramework.addConstant(new Enum(attributes.getValue(NAME), attributes.getValue("value")));
       } else if ("function".equals(name)) {
-        readFunction(framework, e);
+        startFunction(attributes, 2);
       } else if ("function_alias".equals(name)) {
-        readFunctionAlias(framework, e);
+        myFramework.addFunctionAlias(attributes.getValue("name"), attributes.getValue("original"));
       } else if ("struct".equals(name)) {
-        readStruct(framework, e);
+        myStruct = new Struct(attributes.getValue(NAME));
       }
     }
-  }
 
-  private static void readStruct(Framework framework, Element e) {
-    final Struct struct = new Struct(e.getAttributeValue(NAME));
-    for (Object o : e.getChildren()) {
-      final Element child = (Element)o;
-      if ("field".equals(child.getName())) {
-        struct.addField(child.getAttributeValue(NAME), getDeclaredType(child));
-      }
+    private void startFunction(Attributes attributes, int depth) {
+      String name = attributes.getValue("selector");
+      name = name == null ? attributes.getValue(NAME) : name;
+      myFunction = new Function(intern(name), "true".equals(attributes.getValue("variadic")),
+                                "true".equals(attributes.getValue("class_method")));
+      myFunctionType = attributes.getValue("type");
+      myFunctionDepth = depth;
     }
-    struct.seal();
-    framework.addStruct(struct);
-  }
-
-  private static void readFunctionAlias(Framework framework, Element e) {
-    framework.addFunctionAlias(e.getAttributeValue("name"), e.getAttributeValue("original"));
-  }
 
-  private static void readFunction(FunctionHolder holder, Element e) {
-    String name = e.getAttributeValue("selector");
-    name = name == null ? e.getAttributeValue(NAME) : name;
-    final Function function = new Function(name, "true".equals(e.getAttributeValue("variadic")),
-                                           "true".equals(e.getAttributeValue("class_method")));
-    final String type = e.getAttributeValue("type");
-    for (Object o : e.getChildren()) {
-      final Element child = (Element)o;
-      if ("arg".equals(child.getName())) {
-        function.addArgument(child.getAttributeValue(NAME), getDeclaredType(child));
-      } else if ("retval".equals(child.getName())) {
-        function.setReturnValue(getDeclaredType(child));
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      final int depth = myNames.size();
+      myNames.remove(depth - 1);
+
+      if (myFunction != null) {
+        if (depth == myFunctionDepth) {
+          if (myFunction.getReturnValue() == null && myFunctionType != null) {
+            readAndroidTypeAndArguments(myFunction, myFunctionType);
+          }
+          (myClass != null ? myClass : myFramework).addFunction(myFunction);
+          myFunction = null;
+          myFunctionType = null;
+        }
+      } else if (depth == 2) {
+        if (myClass != null) {
+          myClass.seal();
+          if (myProtocol) {
+            myFramework.addProtocol(myClass);
+          } else {
+            myFramework.addClass(myClass);
+          }
+          myClass = null;
+        } else if (myStruct != null) {
+          myStruct.seal();
+          myFramework.addStruct(myStruct);
+          myStruct = null;
+        }
       }
     }
-    if (function.getReturnValue() == null && type != null) {
-      readAndroidTypeAndArguments(function, type);
-    }
-    holder.addFunction(function);
+  }
+
+  private static String intern(String s) {
+    return s != null ? s.intern() : null;
   }
 
   private static void readAndroidTypeAndArguments(final Function function, String argsAndType) {
@@ -123,32 +179,6 @@ public class BridgeSupportReader {
     function.setReturnValue(visitor.getReturnType());
   }
 
-  private static void readConstant(Framework framework, Element e) {
-    framework.addConstant(new Constant(e.getAttributeValue(NAME), getDeclaredType(e)));
-  }
-
-  private static void readStringConstant(Framework framework, Element e) {
-    final String nsstring = e.getAttributeValue("nsstring");
-    framework.addConstant(new StringConstant(e.getAttributeValue(NAME), e.getAttributeValue("value"), "true".equals(nsstring)));
-  }
-
-  private static void readEnum(Framework framework, Element e) {
-    framework.addConstant(new Enum(e.getAttributeValue(NAME), e.getAttributeValue("value")));
-  }
-
-  private static Class readClass(Element e) {
-    final String name = buildClassName(e.getAttributeValue(NAME));
-    final Class clazz = new Class(name);
-    for (Object o : e.getChildren()) {
-      final Element child = (Element)o;
-      if ("method".equals(child.getName())) {
-        readFunction(clazz, child);
-      }
-    }
-    clazz.seal();
-    return clazz;
-  }
-
   private static String buildClassName(final String name) {
     final String[] components = name.split("(/|\\$)");
     for (int i = 0; i < components.length; i++) {
@@ -157,11 +187,11 @@ public class BridgeSupportReader {
     return StringUtil.join(components, RNameUtilCore.SYMBOL_DELIMITER);
   }
 
-  private static String getDeclaredType(Element e) {
-    String declaredType = e.getAttributeValue(DECLARED_TYPE);
-    declaredType = declaredType == null ? e.getAttributeValue(DECLARED_TYPE64) : declaredType;
+  private static String getDeclaredType(Attributes attributes, String parentName) {
+    String declaredType = attributes.getValue(DECLARED_TYPE);
+    declaredType = declaredType == null ? attributes.getValue(DECLARED_TYPE64) : declaredType;
     if (declaredType == null) {
-      LOG.warn("No declared type for " + ((Element)e.getParent()).getAttributeValue(NAME));
+      LOG.warn("No declared type for " + parentName);
       return "void";
     }
     declaredType = StringUtil.trimEnd(declaredType, " _Nullable");
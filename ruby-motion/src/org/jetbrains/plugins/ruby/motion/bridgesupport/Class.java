@@ -45,6 +45,11 @@ public class Class extends FunctionHolder {
     return mySubClasses.get(name);
   }
 
+  void addSubClass(Class subClass) {
+    checkSeal();
+    mySubClasses.put(subClass.getName(), subClass);
+  }
+
   public static Map<String, Class> mergeClasses(Collection<Class> classes) {
     final Map<String, Class> result = new HashMap<>();
     for (Class clazz : classes) {
@@ -35,9 +35,9 @@ public class FrameworkInfo {
   @NotNull private final String myVersion;
   private final boolean myOSX;
 
-  private SoftReference<Framework> myFramework = null;
-  private SoftReference<Set<String>> myIdSelectorNames = null;
-  private SoftReference<Set<String>> mySelectorNames = null;
+  private final Object myLock = new Object();
+  /** Framework with its id selector names and selector names, read without locking */
+  private volatile SoftReference<Trinity<Framework, Set<String>, Set<String>>> myData = null;
 
   public FrameworkInfo(@NotNull String name, @NotNull String version, boolean isOSX, @NotNull String bridgeSupportFilePath) {
     myBridgeSupportPath = bridgeSupportFilePath;
@@ -52,34 +52,52 @@ public class FrameworkInfo {
   }
 
   @Nullable
-  public synchronized Framework getFramework() {
-    Framework result = SoftReference.dereference(myFramework);
-    return result != null ? result : reloadFramework().first;
+  public Framework getFramework() {
+    return getData().first;
   }
 
   @Nullable
-  public synchronized Set<String> getIdSelectorNames() {
-    Set<String> result = SoftReference.dereference(myIdSelectorNames);
-    return result != null ? result : reloadFramework().second;
+  public Set<String> getIdSelectorNames() {
+    return getData().second;
   }
 
   @Nullable
-  public synchronized Set<String> getSelectorNames() {
-    Set<String> result = SoftReference.dereference(mySelectorNames);
-    return result != null ? result : reloadFramework().third;
+  public Set<String> getSelectorNames() {
+    return getData().third;
+  }
+
+  @NotNull
+  private Trinity<Framework, Set<String>, Set<String>> getData() {
+    Trinity<Framework, Set<String>, Set<String>> result = SoftReference.dereference(myData);
+    if (result != null) return result;
+
+    synchronized (myLock) {
+      result = SoftReference.dereference(myData);
+      return result != null ? result : reloadFramework();
+    }
   }
 
   private Trinity<Framework, Set<String>, Set<String>> reloadFramework() {
     VirtualFile file = LocalFileSystem.getInstance().findFileByPath(myBridgeSupportPath);
     if (file == null) return Trinity.create(null, null, null);
 
-    Set<String> idSelectorNames = null;
-    Set<String> selectorNames = null;
-    Framework framework = null;
+    String stamp = file.getPath() + ":" + file.getTimeStamp() + ":" + file.getLength();
+    Trinity<Framework, Set<String>, Set<String>> result = BridgeSupportCache.getInstance().load(myName, myVersion, myOSX, stamp);
+    if (result == null) {
+      result = parseFramework(file);
+      if (result.first != null) {
+        BridgeSupportCache.getInstance().save(result.first, result.second, result.third, stamp);
+      }
+    }
+    myData = result.first != null ? new SoftReference<>(result) : null;
+    return result;
+  }
+
+  private Trinity<Framework, Set<String>, Set<String>> parseFramework(@NotNull VirtualFile file) {
     try {
-      framework = BridgeSupportReader.read(myName, myVersion, file.getInputStream(), myOSX);
-      idSelectorNames = ContainerUtil.newHashSet();
-      selectorNames = ContainerUtil.newHashSet();
+      Framework framework = BridgeSupportReader.read(myName, myVersion, file.getInputStream(), myOSX);
+      Set<String> idSelectorNames = ContainerUtil.newHashSet();
+      Set<String> selectorNames = ContainerUtil.newHashSet();
       for (Class clazz : framework.getClasses()) {
         for (Function function : clazz.getFunctions()) {
           if (function.isId()) {
@@ -88,13 +106,11 @@ public class FrameworkInfo {
           selectorNames.add(function.getName());
         }
       }
+      return Trinity.create(framework, idSelectorNames, selectorNames);
     }
     catch (IOException e) {
       LOG.error("Failed to load bridgesupport file", e);
+      return Trinity.create(null, null, null);
     }
-    myFramework = framework != null ? new SoftReference<>(framework) : null;
-    myIdSelectorNames = idSelectorNames != null ? new SoftReference<>(idSelectorNames) : null;
-    mySelectorNames = selectorNames != null ? new SoftReference<>(selectorNames) : null;
-    return Trinity.create(framework, idSelectorNames, selectorNames);
   }
 }
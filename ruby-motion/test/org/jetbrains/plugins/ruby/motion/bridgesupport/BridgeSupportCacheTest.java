@@ -0,0 +1,121 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.plugins.ruby.motion.bridgesupport;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.Trinity;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Dennis.Ushakov
+ */
+public class BridgeSupportCacheTest extends UsefulTestCase {
+  private File myCacheDir;
+  private BridgeSupportCache myCache;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCacheDir = FileUtil.createTempDirectory("bridgesupport", "cache");
+    myCache = new BridgeSupportCache(myCacheDir);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myCacheDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testFunctionsAndConstants() throws Exception {
+    final Framework framework = reload("AudioToolbox").first;
+    assertSize(203, framework.getFunctions());
+    final Function function = framework.getFunction("AUGraphConnectNodeInput");
+    assertEquals("OSStatus", function.getReturnValue());
+    final List<Pair<String, String>> arguments = function.getArguments();
+    assertEquals(5, arguments.size());
+    assertEquals(Pair.create("inDestNode", "AUNode"), arguments.get(3));
+
+    final StringConstant constant = (StringConstant)framework.getConstant("kAFInfoDictionary_Lyricist");
+    assertEquals("lyricist", constant.getValue());
+    assertFalse(constant.isNsString());
+  }
+
+  public void testClassesAndProtocols() throws Exception {
+    final Framework framework = reload("QuartzCore").first;
+    assertSize(21, framework.getClasses());
+    assertSize(4, framework.getProtocols());
+    assertSize(101, framework.getConstants());
+    assertSize(2, framework.getProtocol("CAAnimationDelegate").getFunction("animationDidStop:finished:").getArguments());
+  }
+
+  public void testStructsAndAliases() throws Exception {
+    final Framework structs = reload("MapKit").first;
+    assertSize(5, structs.getStructs());
+    assertEquals("CLLocationDegrees", structs.getStruct("MKCoordinateSpan").getFieldType("latitudeDelta"));
+
+    final Framework aliases = reload("CoreGraphics").first;
+    assertEquals("__CGSizeApplyAffineTransform", aliases.getOriginalFunctionName("CGSizeApplyAffineTransform"));
+  }
+
+  public void testNestedClasses() throws Exception {
+    final Framework framework = reload("android").first;
+    final Class activity = framework.getClass("Android::App::Activity");
+    assertNotNull(activity);
+    assertEquals("Android::Database::Cursor", activity.getFunction("managedQuery").getReturnValue());
+    assertNotNull(framework.getClass("Android::Database::Cursor"));
+  }
+
+  public void testSelectorNames() throws Exception {
+    final Trinity<Framework, Set<String>, Set<String>> loaded = reload("RubyMotion");
+    assertEquals(Collections.singleton("id"), loaded.second);
+    assertTrue(loaded.third.contains("dispatch_object"));
+  }
+
+  public void testStaleStamp() throws Exception {
+    final Framework framework = createFramework("RubyMotion");
+    myCache.save(framework, Collections.emptySet(), Collections.emptySet(), "1");
+    assertNotNull(myCache.load("RubyMotion", "666", false, "1"));
+    assertNull(myCache.load("RubyMotion", "666", false, "2"));
+    assertNull(myCache.load("RubyMotion", "667", false, "1"));
+    assertNull(myCache.load("RubyMotion", "666", true, "1"));
+  }
+
+  private Trinity<Framework, Set<String>, Set<String>> reload(final String motion) throws Exception {
+    myCache.save(createFramework(motion), Collections.singleton("id"), Collections.singleton("dispatch_object"), "stamp");
+    final Trinity<Framework, Set<String>, Set<String>> loaded = myCache.load(motion, "666", false, "stamp");
+    assertNotNull(loaded);
+    return loaded;
+  }
+
+  private static Framework createFramework(final String motion) throws Exception {
+    final String path = PathManager.getHomePath() + "/contrib/ruby-motion/test/org/jetbrains/plugins/ruby/motion/bridgesupport/data/" + motion + ".bridgesupport";
+    final File file = new File(path);
+    assertTrue(path, file.exists());
+    return BridgeSupportReader.read(motion, "666", new FileInputStream(file), false);
+  }
+}
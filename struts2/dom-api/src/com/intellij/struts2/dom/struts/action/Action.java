@@ -83,6 +83,14 @@ public interface Action extends ParamsElement {
 
   // additional methods -----------------------------------
 
+  /**
+   * Returns the Action name as used for matching paths.
+   *
+   * @return {@code null} if not set.
+   */
+  @Nullable
+  String getNameValue();
+
   /**
    * Returns whether this Action has a wildcard mapping.
    *
@@ -17,8 +17,9 @@ package com.intellij.struts2.dom.struts.impl;
 
 import org.junit.Test;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
 
 /**
  * Tests for {@link ActionUtil}.
@@ -67,4 +68,21 @@ public class ActionUtilTest {
     assertTrue(ActionUtil.matchesPath("myPath*", "myPathSomething!myAction"));
   }
 
+  @Test
+  public void stripBangNotation() {
+    assertEquals("myPath", ActionUtil.stripBangNotation("myPath"));
+    assertEquals("myPath", ActionUtil.stripBangNotation("myPath!myAction"));
+    assertEquals("", ActionUtil.stripBangNotation("!myAction"));
+  }
+
+  @Test
+  public void compileWildcardPath() {
+    final Pattern pattern = ActionUtil.compileWildcardPath("some*Action*Stuff");
+    assertNotNull(pattern);
+    assertTrue(pattern.matcher("someXActionXStuff").matches());
+    assertFalse(pattern.matcher("some/Action/Stuff").matches());
+
+    assertNull(ActionUtil.compileWildcardPath("some*[Action"));
+  }
+
 }
\ No newline at end of file
@@ -48,4 +48,11 @@ public class StrutsConstantManagerWithWebXmlTest extends StrutsConstantManagerTe
     final VirtualFile strutsXmlFile = myFixture.findFileInTempDir(STRUTS_XML);
     performResolveTest(strutsXmlFile, StrutsCoreConstantContributor.ACTION_EXTENSION, Arrays.asList("foo"));
   }
+
+  public void testWebXmlInitParamWithoutValue() throws Throwable {
+    createStrutsFileSet(STRUTS_XML);
+
+    final VirtualFile strutsXmlFile = myFixture.findFileInTempDir(STRUTS_XML);
+    performResolveTest(strutsXmlFile, StrutsConstantKey.<String>create("struts.multipart.saveDir"), null);
+  }
 }
\ No newline at end of file
@@ -35,8 +35,9 @@ import java.util.List;
  */
 public abstract class ActionImpl implements Action {
 
+  @Override
   @Nullable
-  private String getNameValue() {
+  public String getNameValue() {
     return getName().getRawText();
   }
 
@@ -39,7 +39,7 @@ import java.util.regex.PatternSyntaxException;
  *
  * @author Yann C&eacute;bron
  */
-final class ActionUtil {
+public final class ActionUtil {
 
   private ActionUtil() {
   }
@@ -53,20 +53,42 @@ final class ActionUtil {
    */
   static boolean matchesPath(@NotNull @NonNls final String actionPath,
                              @NotNull @NonNls final String checkPath) {
-    // strip everything behind "!"
-    final int bangIdx = checkPath.indexOf('!');
-    final String strippedCheckPath = bangIdx == -1 ? checkPath : checkPath.substring(0, bangIdx);
+    final String strippedCheckPath = stripBangNotation(checkPath);
 
     // do we have any wildcard-markers in our path? no --> exact compare
     if (actionPath.indexOf('*') == -1) {
       return Comparing.equal(strippedCheckPath, actionPath);
     }
 
+    final Pattern pattern = compileWildcardPath(actionPath);
+    return pattern != null && pattern.matcher(strippedCheckPath).matches();
+  }
+
+  /**
+   * Strips everything behind "!" (bang notation for method invocation).
+   *
+   * @param checkPath Path to check.
+   * @return Path without method part.
+   */
+  @NotNull
+  public static String stripBangNotation(@NotNull @NonNls final String checkPath) {
+    final int bangIdx = checkPath.indexOf('!');
+    return bangIdx == -1 ? checkPath : checkPath.substring(0, bangIdx);
+  }
+
+  /**
+   * Compiles wildcard Action path for matching via {@link #stripBangNotation(String) stripped} paths.
+   *
+   * @param actionPath Path of Action containing wildcards.
+   * @return {@code null} if path cannot be compiled.
+   */
+  @Nullable
+  public static Pattern compileWildcardPath(@NotNull @NonNls final String actionPath) {
     try {
-      return Pattern.matches(StringUtil.replace(actionPath, "*", "[^/]*"), strippedCheckPath);
+      return Pattern.compile(StringUtil.replace(actionPath, "*", "[^/]*"));
     }
     catch (PatternSyntaxException e) {
-      return false;
+      return null;
     }
   }
 
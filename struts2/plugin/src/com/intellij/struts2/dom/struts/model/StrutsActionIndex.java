@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 The authors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.intellij.struts2.dom.struts.model;
+
+import com.intellij.struts2.dom.struts.action.Action;
+import com.intellij.struts2.dom.struts.impl.ActionUtil;
+import com.intellij.struts2.dom.struts.strutspackage.StrutsPackage;
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable lookup tables for all Actions of a {@link StrutsModel}.
+ * <p/>
+ * Actions without wildcards are found via exact name, wildcard Actions are matched via precompiled patterns.
+ * All results retain the declaration order of the model.
+ */
+class StrutsActionIndex {
+
+  private final List<Action> myAllActions = new ArrayList<>();
+  private final Map<String, NamespaceActions> myNamespaceActions = new HashMap<>();
+  private final NamespaceActions myAllNamespacesActions = new NamespaceActions();
+
+  StrutsActionIndex(@NotNull final List<StrutsPackage> strutsPackages) {
+    for (final StrutsPackage strutsPackage : strutsPackages) {
+      final NamespaceActions namespaceActions =
+        myNamespaceActions.computeIfAbsent(strutsPackage.searchNamespace(), namespace -> new NamespaceActions());
+
+      for (final Action action : strutsPackage.getActions()) {
+        final IndexedAction indexedAction = IndexedAction.create(action, myAllActions.size());
+        myAllActions.add(action);
+        namespaceActions.add(action, indexedAction);
+        myAllNamespacesActions.add(action, indexedAction);
+      }
+    }
+  }
+
+  /**
+   * @see StrutsModel#getActionsForNamespace(String)
+   */
+  @NotNull
+  List<Action> getActionsForNamespace(@Nullable @NonNls final String namespace) {
+    if (namespace == null) {
+      return new SmartList<>(myAllActions);
+    }
+
+    final NamespaceActions namespaceActions = myNamespaceActions.get(namespace);
+    return namespaceActions == null ? new SmartList<>() : new SmartList<>(namespaceActions.myActions);
+  }
+
+  /**
+   * @see StrutsModel#findActionsByName(String, String)
+   */
+  @NotNull
+  List<Action> findActionsByName(@NotNull @NonNls final String name, @Nullable @NonNls final String namespace) {
+    final NamespaceActions namespaceActions = namespace == null ? myAllNamespacesActions : myNamespaceActions.get(namespace);
+    if (namespaceActions == null) {
+      return new SmartList<>();
+    }
+
+    return namespaceActions.findActionsByName(ActionUtil.stripBangNotation(name));
+  }
+
+
+  private static class NamespaceActions {
+
+    private final List<Action> myActions = new ArrayList<>();
+    private final Map<String, List<IndexedAction>> myExactActions = new HashMap<>();
+    private final List<IndexedAction> myWildcardActions = new ArrayList<>();
+
+    private void add(@NotNull final Action action, @Nullable final IndexedAction indexedAction) {
+      myActions.add(action);
+      if (indexedAction == null) {
+        return;
+      }
+
+      if (indexedAction.myPattern == null) {
+        myExactActions.computeIfAbsent(indexedAction.myName, name -> new SmartList<>()).add(indexedAction);
+      }
+      else {
+        myWildcardActions.add(indexedAction);
+      }
+    }
+
+    @NotNull
+    private List<Action> findActionsByName(@NotNull final String strippedName) {
+      final List<IndexedAction> exactActions = ContainerUtil.notNullize(myExactActions.get(strippedName));
+
+      List<IndexedAction> wildcardActions = null;
+      for (final IndexedAction wildcardAction : myWildcardActions) {
+        if (wildcardAction.myPattern.matcher(strippedName).matches()) {
+          if (wildcardActions == null) {
+            wildcardActions = new SmartList<>();
+          }
+          wildcardActions.add(wildcardAction);
+        }
+      }
+
+      if (wildcardActions == null) {
+        return ContainerUtil.map(exactActions, indexedAction -> indexedAction.myAction);
+      }
+
+      final List<IndexedAction> allMatches = ContainerUtil.concat(exactActions, wildcardActions);
+      final IndexedAction[] sorted = allMatches.toArray(new IndexedAction[allMatches.size()]);
+      Arrays.sort(sorted, Comparator.comparingInt(indexedAction -> indexedAction.myOrdinal));
+      return ContainerUtil.map(sorted, indexedAction -> indexedAction.myAction);
+    }
+  }
+
+
+  private static class IndexedAction {
+
+    private final Action myAction;
+    private final int myOrdinal;
+    private final String myName;
+    @Nullable
+    private final Pattern myPattern;
+
+    private IndexedAction(@NotNull final Action action,
+                          final int ordinal,
+                          @NotNull final String name,
+                          @Nullable final Pattern pattern) {
+      myAction = action;
+      myOrdinal = ordinal;
+      myName = name;
+      myPattern = pattern;
+    }
+
+    /**
+     * @return {@code null} if the Action can never match any path (no name or invalid wildcard pattern).
+     */
+    @Nullable
+    private static IndexedAction create(@NotNull final Action action, final int ordinal) {
+      final String name = action.getNameValue();
+      if (name == null) {
+        return null;
+      }
+
+      if (name.indexOf('*') == -1) {
+        return new IndexedAction(action, ordinal, name, null);
+      }
+
+      final Pattern pattern = ActionUtil.compileWildcardPath(name);
+      return pattern == null ? null : new IndexedAction(action, ordinal, name, pattern);
+    }
+  }
+}
@@ -15,9 +15,13 @@
 
 package com.intellij.struts2.dom.struts.model;
 
-import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.struts2.dom.struts.StrutsRoot;
 import com.intellij.struts2.dom.struts.action.Action;
@@ -25,6 +29,7 @@ import com.intellij.struts2.dom.struts.strutspackage.Interceptor;
 import com.intellij.struts2.dom.struts.strutspackage.InterceptorOrStackBase;
 import com.intellij.struts2.dom.struts.strutspackage.InterceptorStack;
 import com.intellij.struts2.dom.struts.strutspackage.StrutsPackage;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Function;
 import com.intellij.util.NotNullFunction;
 import com.intellij.util.Processor;
@@ -36,10 +41,7 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author Yann C&eacute;bron
@@ -82,48 +84,69 @@ class StrutsModelImpl extends DomModelImpl<StrutsRoot> implements StrutsModel {
   @NotNull
   public List<Action> findActionsByName(@NotNull @NonNls final String name,
                                         @Nullable @NonNls final String namespace) {
-    return ContainerUtil.findAll(getActionsForNamespace(namespace), action -> action.matchesPath(name));
+    return getActionIndex().findActionsByName(name, namespace);
   }
 
   @NotNull
   public List<Action> findActionsByClass(@NotNull final PsiClass clazz) {
-    return findActionsByClassInner(clazz, false);
-  }
-
-  private List<Action> findActionsByClassInner(final PsiClass clazz,
-                                               final boolean skipOnFirst) {
-    final List<Action> actionResultList = new SmartList<>();
-
-    for (final StrutsPackage strutsPackage : getStrutsPackages()) {
-      for (final Action action : strutsPackage.getActions()) {
-        final PsiClass actionClassValue = action.searchActionClass();
-        if (Comparing.equal(clazz, actionClassValue)) {
-          actionResultList.add(action);
-          if (skipOnFirst) {
-            return actionResultList;
-          }
-        }
-      }
-    }
-
-    return actionResultList;
+    final List<Action> actions = getActionClassIndex().get(clazz);
+    return actions == null ? new SmartList<>() : new SmartList<>(actions);
   }
 
   @Override
   public boolean isActionClass(@NotNull final PsiClass clazz) {
-    return !findActionsByClassInner(clazz, true).isEmpty();
+    return getActionClassIndex().containsKey(clazz);
   }
 
   public List<Action> getActionsForNamespace(@Nullable @NonNls final String namespace) {
-    final List<Action> actionResultList = new SmartList<>();
+    return getActionIndex().getActionsForNamespace(namespace);
+  }
 
-    for (final StrutsPackage strutsPackage : getStrutsPackages()) {
-      if (namespace == null ||
-          Comparing.equal(namespace, strutsPackage.searchNamespace())) {
-        actionResultList.addAll(strutsPackage.getActions());
-      }
+  private CachedValue<StrutsActionIndex> myActionIndex;
+  private CachedValue<Map<PsiClass, List<Action>>> myActionClassIndex;
+
+  /**
+   * Actions by namespace/name, invalidated on any change of this model's files.
+   */
+  @NotNull
+  private StrutsActionIndex getActionIndex() {
+    if (myActionIndex == null) {
+      myActionIndex = CachedValuesManager.getManager(getProject()).createCachedValue(
+        () -> CachedValueProvider.Result.create(new StrutsActionIndex(getStrutsPackages()), getConfigFiles().toArray()), false);
     }
-    return actionResultList;
+    return myActionIndex.getValue();
+  }
+
+  /**
+   * Reverse Action class to Actions map, additionally depends on Java structure and out of code block changes
+   * (resolving action classes, possibly via Spring beans or default-class-ref of parent packages).
+   */
+  @NotNull
+  private Map<PsiClass, List<Action>> getActionClassIndex() {
+    if (myActionClassIndex == null) {
+      myActionClassIndex = CachedValuesManager.getManager(getProject()).createCachedValue(() -> {
+        final Map<PsiClass, List<Action>> actionsByClass = new HashMap<>();
+        for (final StrutsPackage strutsPackage : getStrutsPackages()) {
+          for (final Action action : strutsPackage.getActions()) {
+            final PsiClass actionClassValue = action.searchActionClass();
+            if (actionClassValue != null) {
+              actionsByClass.computeIfAbsent(actionClassValue, psiClass -> new SmartList<>()).add(action);
+            }
+          }
+        }
+
+        final Object[] dependencies = ArrayUtil.mergeArrays(getConfigFiles().toArray(),
+                                                            new Object[]{PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT,
+                                                              PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT});
+        return CachedValueProvider.Result.create(actionsByClass, dependencies);
+      }, false);
+    }
+    return myActionClassIndex.getValue();
+  }
+
+  @NotNull
+  private Project getProject() {
+    return getMergedModel().getManager().getProject();
   }
 
   public boolean processActions(final Processor<Action> processor) {
@@ -22,19 +22,26 @@ import com.intellij.javaee.web.WebUtil;
 import com.intellij.javaee.web.facet.WebFacet;
 import com.intellij.lang.properties.IProperty;
 import com.intellij.lang.properties.PropertiesImplUtil;
+import com.intellij.lang.properties.psi.PropertiesFile;
 import com.intellij.openapi.extensions.Extensions;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Comparing;
-import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.*;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.JarFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.struts2.StrutsConstants;
 import com.intellij.struts2.dom.struts.StrutsRoot;
@@ -42,6 +49,7 @@ import com.intellij.struts2.dom.struts.constant.Constant;
 import com.intellij.struts2.dom.struts.model.StrutsManager;
 import com.intellij.struts2.dom.struts.model.StrutsModel;
 import com.intellij.util.CommonProcessors;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.FilteringProcessor;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.xml.ConvertContext;
@@ -52,9 +60,8 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Yann C&eacute;bron
@@ -64,6 +71,9 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
   @NonNls
   private static final String STRUTS_DEFAULT_PROPERTIES = "/org/apache/struts2/default.properties";
 
+  @NonNls
+  private static final String STRUTS_DEFAULT_PROPERTIES_FILENAME = "default.properties";
+
   @NonNls
   private static final String STRUTS_PROPERTIES_FILENAME = "struts.properties";
 
@@ -74,6 +84,12 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
   };
 
 
+  /**
+   * Caches effective constants per module and model/web facet combination.
+   */
+  private static final Key<CachedValue<ModuleConstants>> KEY_MODULE_CONSTANTS =
+    Key.create("STRUTS2_MODULE_CONSTANTS");
+
   @NotNull
   @Override
   public List<StrutsConstant> getConstants(@NotNull final Module module) {
@@ -97,7 +113,7 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
       return null;
     }
 
-    final StrutsConstant strutsConstant = ContainerUtil.find(getConstants(module), strutsConstant1 -> Comparing.equal(strutsConstant1.getName(), strutsConstantKey.getKey()));
+    final StrutsConstant strutsConstant = getModuleConstants(module).myConstantDefinitions.get(strutsConstantKey.getKey());
 
     //noinspection unchecked
     return strutsConstant != null ? strutsConstant.getConverter() : null;
@@ -113,106 +129,218 @@ public class StrutsConstantManagerImpl extends StrutsConstantManager {
       return null;
     }
 
-    final String stringValue = getStringValue(containingFile,
-                                              strutsModel,
-                                              strutsConstantKey.getKey());
-    if (stringValue == null) {
-      return null;
-    }
+    final Module module = ModuleUtilCore.findModuleForPsiElement(containingFile);
+    assert module != null : containingFile;
 
-    final Converter<T> converter = findConverter(context, strutsConstantKey);
-    if (converter == null) {
-      //noinspection unchecked
-      return (T) stringValue;
+    final ModuleConstants moduleConstants = getModuleConstants(module);
+    final EffectiveConstants effectiveConstants = moduleConstants.getEffectiveConstants(module, strutsModel,
+                                                                                        WebUtil.getWebFacet(containingFile));
+    final EffectiveConstant constant = effectiveConstants.myConstants.get(strutsConstantKey.getKey());
+    if (constant == null) {
+      return null;
     }
 
-    final DomFileElement<StrutsRoot> first = strutsModel.getRoots().iterator().next();
-
-    final ConvertContext convertContext = ConvertContextFactory.createConvertContext(first);
+    final Ref<Object> convertedValue = constant.myConvertedValue.getValue();
     //noinspection unchecked
-    return converter.fromString(stringValue, convertContext);
+    return (T)convertedValue.get();
+  }
+
+  @NotNull
+  private ModuleConstants getModuleConstants(@NotNull final Module module) {
+    CachedValue<ModuleConstants> cachedValue = module.getUserData(KEY_MODULE_CONSTANTS);
+    if (cachedValue == null) {
+      final Project project = module.getProject();
+      cachedValue = CachedValuesManager.getManager(project).createCachedValue(
+        () -> CachedValueProvider.Result.create(new ModuleConstants(getConstants(module)),
+                                                PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT,
+                                                ProjectRootManager.getInstance(project)), false);
+      module.putUserData(KEY_MODULE_CONSTANTS, cachedValue);
+    }
+    return cachedValue.getValue();
   }
 
+
   /**
-   * Returns the plain String value for the given constant.
-   *
-   * @param context     Current context.
-   * @param strutsModel StrutsModel.
-   * @param name        Name of constant.
-   * @return {@code null} if no value could be resolved.
+   * All constants of a module: definitions by name and effective values per StrutsModel/WebFacet.
+   * Models and facets are weakly referenced, effective values don't refer to them.
    */
-  @Nullable
-  private static String getStringValue(@NotNull final PsiFile context,
-                                       @NotNull final StrutsModel strutsModel,
-                                       @NotNull @NonNls final String name) {
-    final Project project = context.getProject();
-    final Module module = ModuleUtilCore.findModuleForPsiElement(context);
-    assert module != null : context;
-
-    // collect all properties with matching key
-    final List<IProperty> properties = PropertiesImplUtil.findPropertiesByKey(project, name);
-
-    String value = null;
-
-    // 1. default.properties from struts2-core.jar
-    final IProperty strutsDefaultProperty = ContainerUtil.find(properties, property -> {
-      final VirtualFile virtualFile = property.getPropertiesFile().getVirtualFile();
-      return virtualFile != null &&
-             virtualFile.getFileSystem() instanceof JarFileSystem &&
-             StringUtil.endsWith(virtualFile.getPath(), STRUTS_DEFAULT_PROPERTIES) &&
-             ModuleUtilCore.moduleContainsFile(module, virtualFile, true);
-    });
-    if (strutsDefaultProperty != null) {
-      value = strutsDefaultProperty.getValue();
-    }
+  private static class ModuleConstants {
 
-    // 2. <constant> from StrutsModel
-    final Condition<Constant> constantNameCondition = constant -> Comparing.equal(constant.getName().getStringValue(), name);
-
-    final List<DomFileElement<StrutsRoot>> domFileElements = new ArrayList<>();
-    collectStrutsXmls(domFileElements, strutsModel, "struts-default.xml", true);
-    collectStrutsXmls(domFileElements, strutsModel, "struts-plugin.xml", true);
-    collectStrutsXmls(domFileElements, strutsModel, "struts.xml", false);
-    for (final DomFileElement<StrutsRoot> domFileElement : domFileElements) {
-      final Constant constant = ContainerUtil.find(domFileElement.getRootElement().getConstants(),
-                                                   constantNameCondition);
-      final String strutsXmlValue = constant != null ? constant.getValue().getStringValue() : null;
-      if (strutsXmlValue != null) {
-        value = strutsXmlValue;
+    private final Map<String, StrutsConstant> myConstantDefinitions = new HashMap<>();
+    private final ConcurrentMap<StrutsModel, ConcurrentMap<Object, EffectiveConstants>> myEffectiveConstants =
+      ContainerUtil.createConcurrentWeakMap();
+
+    private ModuleConstants(@NotNull final List<StrutsConstant> constants) {
+      for (final StrutsConstant constant : constants) {
+        myConstantDefinitions.putIfAbsent(constant.getName(), constant);
       }
     }
 
-    // 3. struts.properties in current module
-    final IProperty strutsProperty = ContainerUtil.find(properties, property -> {
-      final VirtualFile virtualFile = property.getPropertiesFile().getVirtualFile();
-      return virtualFile != null &&
-             Comparing.equal(virtualFile.getName(), STRUTS_PROPERTIES_FILENAME) &&
-             ModuleUtilCore.moduleContainsFile(module, virtualFile, false);
-    });
-    if (strutsProperty != null) {
-      value = strutsProperty.getValue();
+    @NotNull
+    private EffectiveConstants getEffectiveConstants(@NotNull final Module module,
+                                                     @NotNull final StrutsModel strutsModel,
+                                                     @Nullable final WebFacet webFacet) {
+      final ConcurrentMap<Object, EffectiveConstants> byWebFacet =
+        myEffectiveConstants.computeIfAbsent(strutsModel, model -> ContainerUtil.createConcurrentWeakMap());
+      return byWebFacet.computeIfAbsent(ObjectUtils.notNull(webFacet, ObjectUtils.NULL),
+                                        facet -> new EffectiveConstants(module, strutsModel, webFacet, myConstantDefinitions));
     }
+  }
+
+
+  /**
+   * Where the effective value of a constant comes from, in order of precedence.
+   */
+  enum ConstantSource {
+    DEFAULT_PROPERTIES,
+    STRUTS_XML,
+    STRUTS_PROPERTIES,
+    WEB_XML
+  }
+
+
+  private static class EffectiveConstant {
+
+    @NotNull
+    private final String myValue;
+
+    @NotNull
+    private final ConstantSource mySource;
+
+    /**
+     * Value converted via {@link StrutsConstant#getConverter()}, plain String value if no converter is defined.
+     */
+    private final AtomicNotNullLazyValue<Ref<Object>> myConvertedValue;
+
+    private EffectiveConstant(@NotNull final String value,
+                              @NotNull final ConstantSource source,
+                              @Nullable final StrutsConstant definition,
+                              @NotNull final DomFileElement<StrutsRoot> strutsRoot) {
+      myValue = value;
+      mySource = source;
+      myConvertedValue = new AtomicNotNullLazyValue<Ref<Object>>() {
+        @NotNull
+        @Override
+        protected Ref<Object> compute() {
+          final Converter converter = definition != null ? definition.getConverter() : null;
+          if (converter == null) {
+            return Ref.create(myValue);
+          }
 
-    // 4. web.xml
-    final WebFacet webFacet = WebUtil.getWebFacet(context);
-    if (webFacet == null) {
-      return value; // should not happen in real projects..
+          final ConvertContext convertContext = ConvertContextFactory.createConvertContext(strutsRoot);
+          return Ref.create(converter.fromString(myValue, convertContext));
+        }
+      };
     }
-    final WebApp webApp = webFacet.getRoot();
-    if (webApp == null) {
-      return value; // no web.xml
+
+    @Override
+    public String toString() {
+      return myValue + " (" + mySource + ")";
     }
+  }
+
+
+  /**
+   * Effective constant values, resolved once for all constant names.
+   */
+  private static class EffectiveConstants {
+
+    private final Map<String, EffectiveConstant> myConstants = new HashMap<>();
+
+    private EffectiveConstants(@NotNull final Module module,
+                               @NotNull final StrutsModel strutsModel,
+                               @Nullable final WebFacet webFacet,
+                               @NotNull final Map<String, StrutsConstant> definitions) {
+      final Map<String, Pair<String, ConstantSource>> values = new HashMap<>();
+      final Project project = module.getProject();
+
+      // 1. default.properties from struts2-core.jar
+      for (final PsiFile psiFile : FilenameIndex.getFilesByName(project, STRUTS_DEFAULT_PROPERTIES_FILENAME,
+                                                                GlobalSearchScope.moduleWithLibrariesScope(module))) {
+        final VirtualFile virtualFile = psiFile.getVirtualFile();
+        if (virtualFile != null &&
+            virtualFile.getFileSystem() instanceof JarFileSystem &&
+            StringUtil.endsWith(virtualFile.getPath(), STRUTS_DEFAULT_PROPERTIES)) {
+          putProperties(values, psiFile, ConstantSource.DEFAULT_PROPERTIES);
+          break;
+        }
+      }
+
+      // 2. <constant> from StrutsModel
+      final List<DomFileElement<StrutsRoot>> domFileElements = new ArrayList<>();
+      collectStrutsXmls(domFileElements, strutsModel, "struts-default.xml", true);
+      collectStrutsXmls(domFileElements, strutsModel, "struts-plugin.xml", true);
+      collectStrutsXmls(domFileElements, strutsModel, "struts.xml", false);
+      for (final DomFileElement<StrutsRoot> domFileElement : domFileElements) {
+        final Set<String> fileConstantNames = new HashSet<>();
+        for (final Constant constant : domFileElement.getRootElement().getConstants()) {
+          final String name = constant.getName().getStringValue();
+          if (name == null || !fileConstantNames.add(name)) {
+            continue;
+          }
+
+          final String strutsXmlValue = constant.getValue().getStringValue();
+          if (strutsXmlValue != null) {
+            values.put(name, Pair.create(strutsXmlValue, ConstantSource.STRUTS_XML));
+          }
+        }
+      }
+
+      // 3. struts.properties in current module
+      final Map<String, Pair<String, ConstantSource>> strutsPropertiesValues = new HashMap<>();
+      for (final PsiFile psiFile : FilenameIndex.getFilesByName(project, STRUTS_PROPERTIES_FILENAME,
+                                                                module.getModuleContentScope())) {
+        putProperties(strutsPropertiesValues, psiFile, ConstantSource.STRUTS_PROPERTIES);
+      }
+      values.putAll(strutsPropertiesValues);
+
+      // 4. web.xml
+      final WebApp webApp = webFacet != null ? webFacet.getRoot() : null;
+      if (webApp != null) {
+        final Filter filter = ContainerUtil.find(webApp.getFilters(), WEB_XML_STRUTS_FILTER_CONDITION);
+        if (filter != null) {
+          final Set<String> initParamNames = new HashSet<>();
+          for (final ParamValue initParam : filter.getInitParams()) {
+            final String name = initParam.getParamName().getStringValue();
+            if (name == null || !initParamNames.add(name)) {
+              continue;
+            }
+
+            // init-param without value unsets the constant
+            values.put(name, Pair.create(initParam.getParamValue().getStringValue(), ConstantSource.WEB_XML));
+          }
+        }
+      }
 
-    final Filter filter = ContainerUtil.find(webApp.getFilters(), WEB_XML_STRUTS_FILTER_CONDITION);
-    if (filter != null) {
-      final ParamValue initParam = ContainerUtil.find(filter.getInitParams(),
-                                                      (Condition<ParamValue>)paramValue -> Comparing.equal(paramValue.getParamName().getStringValue(), name));
-      if (initParam != null) {
-        value = initParam.getParamValue().getStringValue();
+      final DomFileElement<StrutsRoot> strutsRoot = strutsModel.getRoots().iterator().next();
+      for (final Map.Entry<String, Pair<String, ConstantSource>> entry : values.entrySet()) {
+        final String name = entry.getKey();
+        final String value = entry.getValue().first;
+        if (value != null) {
+          myConstants.put(name, new EffectiveConstant(value, entry.getValue().second, definitions.get(name), strutsRoot));
+        }
       }
     }
 
-    return value;
+    /**
+     * Adds all properties of the given file, first occurrence of a key wins. A property without value unsets the constant.
+     */
+    private static void putProperties(@NotNull final Map<String, Pair<String, ConstantSource>> values,
+                                      @NotNull final PsiFile psiFile,
+                                      @NotNull final ConstantSource source) {
+      final PropertiesFile propertiesFile = PropertiesImplUtil.getPropertiesFile(psiFile);
+      if (propertiesFile == null) {
+        return;
+      }
+
+      for (final IProperty property : propertiesFile.getProperties()) {
+        final String key = property.getKey();
+        final String value = property.getValue();
+        if (key != null) {
+          values.putIfAbsent(key, Pair.create(value, source));
+        }
+      }
+    }
   }
 
   /**